@@ -0,0 +1,13 @@
+package com.inventario;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class InventarioMotosApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(InventarioMotosApplication.class, args);
+    }
+}
+
@@ -0,0 +1,26 @@
+package com.inventario.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Permite la réplica durante los métodos marcados con {@link LecturaReplica}. Envuelve a la
+ * transacción (máxima precedencia), aunque basta con que la marca esté puesta cuando se pide
+ * la conexión, que LazyConnectionDataSourceProxy retrasa hasta la primera sentencia.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.datasource.replica.habilitada", havingValue = "true")
+public class AspectoLecturaReplica {
+
+    @Around("@within(com.inventario.config.LecturaReplica) || @annotation(com.inventario.config.LecturaReplica)")
+    public Object permitirReplica(ProceedingJoinPoint punto) throws Throwable {
+        return DataSourceEnrutado.conReplica(punto::proceed);
+    }
+}
@@ -0,0 +1,13 @@
+package com.inventario.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Habilita @Async sobre el ejecutor "applicationTaskExecutor" de Spring Boot.
+ * Con el perfil "virtual" (Java 21) ese ejecutor crea un hilo virtual por tarea.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
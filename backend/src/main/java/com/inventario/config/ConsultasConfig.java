@@ -0,0 +1,49 @@
+package com.inventario.config;
+
+import com.inventario.util.ContadorConsultas;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ConsultasConfig {
+
+    // Cada sentencia que prepara Hibernate pasa por ContadorConsultas
+    @Bean
+    public static HibernatePropertiesCustomizer inspectorSentencias() {
+        StatementInspector inspector = ContadorConsultas::registrarSentencia;
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    // Hibernate crea un RetencionConexion por sesión
+    @Bean
+    public static HibernatePropertiesCustomizer retencionConexiones() {
+        return propiedades -> propiedades.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                RetencionConexion.class.getName());
+    }
+
+    /**
+     * Mide cuánto tiempo retiene cada sesión su conexión JDBC, desde que la obtiene del pool
+     * hasta que la devuelve, y lo acumula en la medición abierta del hilo.
+     */
+    public static class RetencionConexion extends BaseSessionEventListener {
+
+        private long inicio;
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            inicio = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcConnectionReleaseEnd() {
+            if (inicio != 0) {
+                ContadorConsultas.registrarConexion(System.nanoTime() - inicio);
+                inicio = 0;
+            }
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class CorsConfig {
             "Authorization",
             "Origin, Accept",
             "X-Requested-With",
+            "X-Correlation-Id",
+            "If-None-Match",
             "Access-Control-Request-Method",
             "Access-Control-Request-Headers"
         ));
@@ -38,7 +40,9 @@ public class CorsConfig {
             "Accept",
             "Authorization",
             "Access-Control-Allow-Origin",
-            "Access-Control-Allow-Credentials"
+            "Access-Control-Allow-Credentials",
+            "X-Correlation-Id",
+            "ETag"
         ));
         corsConfiguration.setAllowedMethods(Arrays.asList(
             "GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"
@@ -0,0 +1,59 @@
+package com.inventario.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envía a la réplica, mientras esté disponible y al día, las transacciones de solo lectura
+ * abiertas dentro de un método marcado con {@link LecturaReplica}; todo lo demás (las
+ * lecturas puntuales que deben ver lo recién escrito y cualquier acceso fuera de
+ * transacción) va a la primaria. Debe usarse detrás de un LazyConnectionDataSourceProxy
+ * para que la conexión se pida cuando la transacción ya está marcada como readOnly.
+ */
+public class DataSourceEnrutado extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIA = "primaria";
+    public static final String REPLICA = "replica";
+
+    /**
+     * Trabajo que puede lanzar cualquier excepción (la del método interceptado).
+     */
+    @FunctionalInterface
+    public interface Lectura<T> {
+        T ejecutar() throws Throwable;
+    }
+
+    // Marca de AspectoLecturaReplica para el hilo en curso
+    private static final ThreadLocal<Boolean> REPLICA_PERMITIDA = new ThreadLocal<>();
+
+    private final MonitorReplica monitorReplica;
+
+    public DataSourceEnrutado(MonitorReplica monitorReplica) {
+        this.monitorReplica = monitorReplica;
+    }
+
+    // Ejecuta la lectura permitiendo la réplica; al terminar se restaura la marca anterior
+    public static <T> T conReplica(Lectura<T> lectura) throws Throwable {
+        Boolean anterior = REPLICA_PERMITIDA.get();
+        REPLICA_PERMITIDA.set(Boolean.TRUE);
+        try {
+            return lectura.ejecutar();
+        } finally {
+            if (anterior == null) {
+                REPLICA_PERMITIDA.remove();
+            } else {
+                REPLICA_PERMITIDA.set(anterior);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (Boolean.TRUE.equals(REPLICA_PERMITIDA.get())
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && monitorReplica.isUtilizable()) {
+            return REPLICA;
+        }
+        return PRIMARIA;
+    }
+}
@@ -0,0 +1,46 @@
+package com.inventario.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Asigna a cada petición un id de correlación (el de la cabecera X-Correlation-Id si
+ * el cliente lo envía) y lo deja en el MDC para que aparezca en todas sus líneas de log.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FiltroCorrelacion extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Correlation-Id";
+    public static final String CLAVE_MDC = "correlationId";
+
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String id = request.getHeader(CABECERA);
+        if (id == null || !ID_VALIDO.matcher(id).matches()) {
+            id = UUID.randomUUID().toString();
+        }
+
+        MDC.put(CLAVE_MDC, id);
+        response.setHeader(CABECERA, id);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(CLAVE_MDC);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.inventario.config;
+
+import com.inventario.util.ContadorConsultas;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las sentencias SQL, las entidades cargadas y el tiempo con conexión JDBC retenida
+ * (inventario.conexion.retenida) de cada petición a /api. Si se supera el presupuesto del
+ * endpoint o una misma sentencia se repite demasiado (N+1) lo registra en el log y en las
+ * métricas inventario.consultas.*.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InterceptorConsultas implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_MEDICION = InterceptorConsultas.class.getName() + ".medicion";
+    private static final int LONGITUD_MAXIMA_SQL = 300;
+    // Etiqueta uri de las peticiones sin patrón de handler (404, recursos estáticos): la URI
+    // literal crearía una serie de métricas por cada ruta distinta
+    private static final String RUTA_DESCONOCIDA = "UNKNOWN";
+
+    private final PropiedadesConsultas propiedades;
+    private final MeterRegistry registry;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registrarContadorEntidades() {
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_LOAD,
+                (PostLoadEventListener) evento -> ContadorConsultas.registrarEntidadCargada());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (propiedades.isHabilitado()) {
+            request.setAttribute(ATRIBUTO_MEDICION, ContadorConsultas.iniciar());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(ATRIBUTO_MEDICION) instanceof ContadorConsultas.Medicion medicion)) {
+            return;
+        }
+        medicion.close();
+
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String ruta = patron != null ? patron.toString() : RUTA_DESCONOCIDA;
+        String endpoint = request.getMethod() + " " + (patron != null ? ruta : request.getRequestURI());
+
+        DistributionSummary.builder("inventario.consultas")
+                .description("Sentencias SQL por petición")
+                .tag("uri", ruta).tag("method", request.getMethod())
+                .register(registry).record(medicion.getConsultas());
+        DistributionSummary.builder("inventario.consultas.entidades")
+                .description("Entidades cargadas por petición")
+                .tag("uri", ruta).tag("method", request.getMethod())
+                .register(registry).record(medicion.getEntidadesCargadas());
+
+        if (medicion.getConexiones() > 0) {
+            Timer.builder("inventario.conexion.retenida")
+                    .description("Tiempo con conexión JDBC retenida por petición")
+                    .tag("uri", ruta).tag("method", request.getMethod())
+                    .register(registry).record(medicion.getNanosConexion(), TimeUnit.NANOSECONDS);
+        }
+
+        int presupuesto = propiedades.presupuestoPara(ruta);
+        if (medicion.getConsultas() > presupuesto) {
+            log.warn("{} ejecutó {} sentencias SQL (presupuesto {}) y cargó {} entidades",
+                    endpoint, medicion.getConsultas(), presupuesto, medicion.getEntidadesCargadas());
+            Counter.builder("inventario.consultas.presupuesto.excedido")
+                    .tag("uri", ruta).tag("method", request.getMethod())
+                    .register(registry).increment();
+        }
+
+        Map<String, Integer> repetidas = medicion.getSentenciasRepetidas(propiedades.getUmbralRepeticiones());
+        if (!repetidas.isEmpty()) {
+            repetidas.forEach((sql, veces) -> log.warn("Posible N+1 en {}: {} ejecuciones de {}",
+                    endpoint, veces, abreviar(sql)));
+            Counter.builder("inventario.consultas.repetidas")
+                    .description("Peticiones con sentencias repetidas (posible N+1)")
+                    .tag("uri", ruta).tag("method", request.getMethod())
+                    .register(registry).increment();
+        }
+    }
+
+    private static String abreviar(String sql) {
+        return sql.length() <= LONGITUD_MAXIMA_SQL ? sql : sql.substring(0, LONGITUD_MAXIMA_SQL) + "...";
+    }
+}
@@ -0,0 +1,64 @@
+package com.inventario.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Jornada comercial de la tienda (prefijo app.jornada). Calcula en Java los rangos
+ * semiabiertos [inicio, fin) que usan las consultas por fecha, para comparar la columna
+ * directamente y poder usar sus índices en lugar de aplicarle funciones como CAST(... AS date).
+ *
+ * Las fechas se guardan como LocalDateTime en la zona del servidor: los límites de cada
+ * jornada se calculan en la zona de la tienda y se convierten a la del servidor.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.jornada")
+public class JornadaComercial {
+
+    /** Zona horaria de la tienda; por defecto la del servidor */
+    private ZoneId zona = ZoneId.systemDefault();
+
+    /** Hora (0-23) en que termina la jornada; lo vendido antes de esa hora cuenta para el día anterior */
+    private int horaCierre = 0;
+
+    public record Rango(LocalDateTime inicio, LocalDateTime fin) {
+    }
+
+    // Fecha de la jornada en curso
+    public LocalDate fechaActual() {
+        return ZonedDateTime.now(zona).minusHours(horaCierre).toLocalDate();
+    }
+
+    public Rango hoy() {
+        LocalDate hoy = fechaActual();
+        return dias(hoy, hoy);
+    }
+
+    // Jornadas completas desde la fecha inicial hasta la final, ambas incluidas
+    public Rango dias(LocalDate desde, LocalDate hasta) {
+        return new Rango(inicioDe(desde), inicioDe(hasta.plusDays(1)));
+    }
+
+    // Inicio de cada jornada desde la fecha inicial hasta la final, ambas incluidas
+    public LocalDateTime[] inicios(LocalDate desde, LocalDate hasta) {
+        LocalDateTime[] inicios = new LocalDateTime[(int) ChronoUnit.DAYS.between(desde, hasta) + 1];
+        for (int i = 0; i < inicios.length; i++) {
+            inicios[i] = inicioDe(desde.plusDays(i));
+        }
+        return inicios;
+    }
+
+    public LocalDateTime inicioDe(LocalDate fecha) {
+        return fecha.atTime(horaCierre, 0).atZone(zona)
+                .withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+}
@@ -0,0 +1,19 @@
+package com.inventario.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca las lecturas que pueden ir a la réplica (reportes, listados, exportaciones): admiten
+ * ver los datos con el retraso de replicación. Solo tiene efecto en transacciones de solo
+ * lectura y con app.datasource.replica.habilitada=true; el resto de lecturas, como las
+ * búsquedas por id o por código de barras, van siempre a la primaria.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LecturaReplica {
+}
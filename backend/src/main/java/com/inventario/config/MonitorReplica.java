@@ -0,0 +1,75 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Comprueba periódicamente el retraso de replicación. Si la réplica no responde o va
+ * más atrasada que app.datasource.replica.retraso-maximo-segundos, las lecturas
+ * vuelven a la primaria hasta la siguiente comprobación correcta.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.habilitada", havingValue = "true")
+public class MonitorReplica {
+
+    // 0 si la réplica ya aplicó todo lo recibido (o no es un standby); si no, segundos desde la última transacción aplicada
+    private static final String SQL_RETRASO =
+            "SELECT COALESCE(CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END, 0)";
+
+    private final JdbcTemplate jdbcReplica;
+    private final double retrasoMaximoSegundos;
+
+    private volatile double retrasoSegundos;
+    private volatile boolean utilizable;
+
+    public MonitorReplica(@Qualifier("dataSourceReplica") DataSource dataSourceReplica,
+                          @Value("${app.datasource.replica.retraso-maximo-segundos:10}") double retrasoMaximoSegundos,
+                          MeterRegistry registry) {
+        this.jdbcReplica = new JdbcTemplate(dataSourceReplica);
+        this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+
+        Gauge.builder("inventario.replica.retraso", this, m -> m.retrasoSegundos)
+                .description("Retraso de replicación")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("inventario.replica.utilizable", this, m -> m.utilizable ? 1 : 0)
+                .description("1 si las lecturas se envían a la réplica")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.intervalo-verificacion-ms:5000}")
+    public void verificar() {
+        boolean anterior = utilizable;
+        try {
+            Double retraso = jdbcReplica.queryForObject(SQL_RETRASO, Double.class);
+            retrasoSegundos = retraso != null ? retraso : 0;
+            utilizable = retrasoSegundos <= retrasoMaximoSegundos;
+        } catch (Exception e) {
+            utilizable = false;
+            log.debug("No se pudo consultar la réplica", e);
+        }
+
+        if (anterior != utilizable) {
+            if (utilizable) {
+                log.info("Réplica disponible (retraso {} s): las lecturas vuelven a la réplica", retrasoSegundos);
+            } else {
+                log.warn("Réplica no disponible o retrasada ({} s): las lecturas van a la primaria", retrasoSegundos);
+            }
+        }
+    }
+
+    public boolean isUtilizable() {
+        return utilizable;
+    }
+}
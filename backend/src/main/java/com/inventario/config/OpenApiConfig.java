@@ -0,0 +1,29 @@
+package com.inventario.config;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Contact;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.info.License;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OpenApiConfig {
+
+    @Bean
+    public OpenAPI customOpenAPI() {
+        return new OpenAPI()
+                .info(new Info()
+                        .title("API Sistema de Inventario - Repuestos de Motos")
+                        .version("1.0.0")
+                        .description("API REST para la gestión de inventario de repuestos de motocicletas. " +
+                                "Permite administrar productos, ventas, proveedores, categorías y reportes.")
+                        .contact(new Contact()
+                                .name("Soporte Técnico")
+                                .email("soporte@inventariomotos.com"))
+                        .license(new License()
+                                .name("Uso Privado")
+                                .url("#")));
+    }
+}
+
@@ -0,0 +1,32 @@
+package com.inventario.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Presupuesto de sentencias SQL por petición (prefijo app.consultas).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.consultas")
+public class PropiedadesConsultas {
+
+    private boolean habilitado = true;
+
+    /** Máximo de sentencias para endpoints sin presupuesto propio */
+    private int presupuestoDefecto = 10;
+
+    /** Ejecuciones de la misma sentencia a partir de las cuales se avisa de un posible N+1 */
+    private int umbralRepeticiones = 5;
+
+    /** Presupuestos por patrón de ruta, por ejemplo presupuestos[/api/reportes/dashboard]=20 */
+    private Map<String, Integer> presupuestos = new HashMap<>();
+
+    public int presupuestoPara(String ruta) {
+        return presupuestos.getOrDefault(ruta, presupuestoDefecto);
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventario.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Con app.datasource.replica.habilitada=true sustituye el DataSource de Spring Boot por
+ * dos pools (primaria con spring.datasource.*, réplica con app.datasource.replica.*)
+ * detrás de DataSourceEnrutado. Sin la propiedad no se crea nada y todo va a la primaria.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.habilitada", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades) {
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(DataSourceProperties propiedades,
+                                              Environment entorno) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(propiedades.determineDriverClassName())
+                .url(entorno.getRequiredProperty("app.datasource.replica.url"))
+                .username(entorno.getProperty("app.datasource.replica.username", propiedades.determineUsername()))
+                .password(entorno.getProperty("app.datasource.replica.password", propiedades.determinePassword()))
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSourceEnrutado(@Qualifier("dataSourcePrimaria") DataSource primaria,
+                                         @Qualifier("dataSourceReplica") DataSource replica,
+                                         MonitorReplica monitorReplica) {
+        DataSourceEnrutado enrutado = new DataSourceEnrutado(monitorReplica);
+        enrutado.setTargetDataSources(Map.of(
+                DataSourceEnrutado.PRIMARIA, primaria,
+                DataSourceEnrutado.REPLICA, replica));
+        enrutado.setDefaultTargetDataSource(primaria);
+        enrutado.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutado);
+    }
+}
@@ -0,0 +1,12 @@
+package com.inventario.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas @Scheduled (cálculos nocturnos y tareas periódicas).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,30 @@
+package com.inventario.config;
+
+import com.inventario.dto.TrazaDTO;
+import com.inventario.util.ExportadorTrazas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/trazas?limite=20 en el puerto de gestión: trazas recientes más lentas
+ * con el desglose de sus spans (controlador, servicio, consultas JDBC, PDF...).
+ */
+@Component
+@Endpoint(id = "trazas")
+@RequiredArgsConstructor
+public class TrazasEndpoint {
+
+    private static final int LIMITE_DEFECTO = 20;
+
+    private final ExportadorTrazas exportadorTrazas;
+
+    @ReadOperation
+    public List<TrazaDTO> masLentas(@Nullable Integer limite) {
+        return exportadorTrazas.obtenerMasLentas(limite != null ? limite : LIMITE_DEFECTO);
+    }
+}
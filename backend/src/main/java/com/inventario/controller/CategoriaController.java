@@ -2,6 +2,8 @@ package com.inventario.controller;
 
 import com.inventario.dto.CategoriaDTO;
 import com.inventario.service.CategoriaService;
+import com.inventario.util.RespuestaCondicional;
+import com.inventario.util.VersionCatalogo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,11 +22,14 @@ import java.util.List;
 public class CategoriaController {
 
     private final CategoriaService categoriaService;
+    private final VersionCatalogo versionCatalogo;
+    private final RespuestaCondicional respuestaCondicional;
 
     @GetMapping
     @Operation(summary = "Listar todas las categorías activas")
-    public ResponseEntity<List<CategoriaDTO>> listarTodas() {
-        return ResponseEntity.ok(categoriaService.listarTodas());
+    public ResponseEntity<List<CategoriaDTO>> listarTodas(WebRequest request) {
+        String etag = versionCatalogo.etag("categorias", VersionCatalogo.Seccion.CATEGORIAS);
+        return respuestaCondicional.listado(request, etag, categoriaService::listarTodas);
     }
 
     @GetMapping("/{id}")
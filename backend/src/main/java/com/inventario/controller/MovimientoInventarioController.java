@@ -1,12 +1,12 @@
 package com.inventario.controller;
 
 import com.inventario.dto.MovimientoInventarioDTO;
+import com.inventario.dto.PaginaDTO;
 import com.inventario.entity.MovimientoInventario;
 import com.inventario.service.MovimientoInventarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,10 +24,10 @@ public class MovimientoInventarioController {
 
     @GetMapping
     @Operation(summary = "Listar todos los movimientos con paginación")
-    public ResponseEntity<Page<MovimientoInventarioDTO>> listarTodos(
+    public ResponseEntity<PaginaDTO<MovimientoInventarioDTO>> listarTodos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(movimientoService.listarTodos(page, size));
+        return ResponseEntity.ok(PaginaDTO.de(movimientoService.listarTodos(page, size)));
     }
 
     @GetMapping("/producto/{codigoBarras}")
@@ -38,11 +38,11 @@ public class MovimientoInventarioController {
 
     @GetMapping("/producto/{codigoBarras}/paginado")
     @Operation(summary = "Listar movimientos de un producto con paginación")
-    public ResponseEntity<Page<MovimientoInventarioDTO>> listarPorProductoPaginado(
+    public ResponseEntity<PaginaDTO<MovimientoInventarioDTO>> listarPorProductoPaginado(
             @PathVariable String codigoBarras,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(movimientoService.listarPorProductoPaginado(codigoBarras, page, size));
+        return ResponseEntity.ok(PaginaDTO.de(movimientoService.listarPorProductoPaginado(codigoBarras, page, size)));
     }
 
     @GetMapping("/por-fecha")
@@ -2,18 +2,22 @@ package com.inventario.controller;
 
 import com.inventario.dto.DetalleOrdenCompraDTO;
 import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.PaginaDTO;
+import com.inventario.dto.RecepcionOrdenDTO;
 import com.inventario.entity.OrdenCompra;
 import com.inventario.service.OrdenCompraService;
+import com.inventario.service.ReposicionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/ordenes-compra")
@@ -22,13 +26,14 @@ import java.util.List;
 public class OrdenCompraController {
 
     private final OrdenCompraService ordenCompraService;
+    private final ReposicionService reposicionService;
 
     @GetMapping
     @Operation(summary = "Listar todas las órdenes de compra con paginación")
-    public ResponseEntity<Page<OrdenCompraDTO>> listarTodas(
+    public ResponseEntity<PaginaDTO<OrdenCompraDTO>> listarTodas(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(ordenCompraService.listarTodas(page, size));
+        return ResponseEntity.ok(PaginaDTO.de(ordenCompraService.listarTodas(page, size)));
     }
 
     @GetMapping("/{id}")
@@ -71,6 +76,13 @@ public class OrdenCompraController {
         return ResponseEntity.ok(ordenCompraService.recibirOrden(id, detallesRecibidos));
     }
 
+    @PostMapping("/recibir")
+    @Operation(summary = "Registrar recepción de mercancía de varias órdenes a la vez")
+    public ResponseEntity<List<OrdenCompraDTO>> recibirOrdenes(
+            @RequestBody List<RecepcionOrdenDTO> recepciones) {
+        return ResponseEntity.ok(ordenCompraService.recibirOrdenes(recepciones));
+    }
+
     @PostMapping("/{id}/cancelar")
     @Operation(summary = "Cancelar una orden de compra")
     public ResponseEntity<OrdenCompraDTO> cancelar(@PathVariable Long id) {
@@ -78,11 +90,20 @@ public class OrdenCompraController {
     }
 
     @GetMapping("/sugerida/{proveedorId}")
-    @Operation(summary = "Generar orden de compra sugerida basada en stock bajo")
+    @Operation(summary = "Generar orden de compra sugerida según la demanda y el stock actual")
     public ResponseEntity<OrdenCompraDTO> generarOrdenSugerida(@PathVariable Long proveedorId) {
         return ResponseEntity.ok(ordenCompraService.generarOrdenSugerida(proveedorId));
     }
 
+    @PostMapping("/sugeridas/recalcular")
+    @Operation(summary = "Recalcular las sugerencias de reposición de todos los proveedores")
+    public ResponseEntity<Map<String, Integer>> recalcularSugerencias(
+            @RequestParam(defaultValue = "false") boolean completo) {
+        Map<String, Integer> response = new HashMap<>();
+        response.put("productosCalculados", reposicionService.recalcular(completo));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/estadisticas/pendientes")
     @Operation(summary = "Contar órdenes pendientes")
     public ResponseEntity<Long> contarPendientes() {
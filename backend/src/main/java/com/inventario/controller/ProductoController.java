@@ -1,20 +1,25 @@
 package com.inventario.controller;
 
+import com.inventario.dto.PaginaDTO;
 import com.inventario.dto.ProductoBusquedaDTO;
 import com.inventario.dto.ProductoDTO;
 import com.inventario.service.ProductoService;
+import com.inventario.util.RespuestaCondicional;
+import com.inventario.util.VersionCatalogo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -23,21 +28,35 @@ import java.util.Map;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final VersionCatalogo versionCatalogo;
+    private final RespuestaCondicional respuestaCondicional;
 
     @GetMapping
-    @Operation(summary = "Listar todos los productos con paginación")
-    public ResponseEntity<Page<ProductoDTO>> listarTodos(
+    @Operation(summary = "Listar todos los productos con paginación",
+            description = "fields=codigoBarras,nombre,stockActual devuelve solo esos campos y limita el SELECT a sus columnas")
+    public ResponseEntity<PaginaDTO<?>> listarTodos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
-            @RequestParam(defaultValue = "ASC") String sortDirection) {
-        return ResponseEntity.ok(productoService.listarTodos(page, size, sortBy, sortDirection));
+            @RequestParam(defaultValue = "ASC") String sortDirection,
+            @RequestParam(required = false) String fields) {
+        if (fields != null && !fields.isBlank()) {
+            List<String> campos = Arrays.stream(fields.split(","))
+                    .map(String::trim)
+                    .filter(campo -> !campo.isEmpty())
+                    .distinct()
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(PaginaDTO.de(productoService.listarCampos(campos, page, size, sortBy, sortDirection)));
+        }
+        return ResponseEntity.ok(PaginaDTO.de(productoService.listarTodos(page, size, sortBy, sortDirection)));
     }
 
     @GetMapping("/{codigoBarras}")
     @Operation(summary = "Obtener un producto por código de barras")
-    public ResponseEntity<ProductoDTO> obtenerPorCodigoBarras(@PathVariable String codigoBarras) {
-        return ResponseEntity.ok(productoService.obtenerPorCodigoBarras(codigoBarras));
+    public ResponseEntity<ProductoDTO> obtenerPorCodigoBarras(@PathVariable String codigoBarras,
+                                                              WebRequest request) {
+        return respuestaCondicional.revalidando(request, productoService.etagProducto(codigoBarras),
+                () -> productoService.obtenerPorCodigoBarras(codigoBarras));
     }
 
     @PostMapping
@@ -63,8 +82,8 @@ public class ProductoController {
 
     @PostMapping("/busqueda-avanzada")
     @Operation(summary = "Búsqueda avanzada de productos con múltiples filtros")
-    public ResponseEntity<Page<ProductoDTO>> busquedaAvanzada(@RequestBody ProductoBusquedaDTO filtros) {
-        return ResponseEntity.ok(productoService.busquedaAvanzada(filtros));
+    public ResponseEntity<PaginaDTO<ProductoDTO>> busquedaAvanzada(@RequestBody ProductoBusquedaDTO filtros) {
+        return ResponseEntity.ok(PaginaDTO.de(productoService.busquedaAvanzada(filtros)));
     }
 
     @GetMapping("/buscar")
@@ -138,11 +157,14 @@ public class ProductoController {
 
     @GetMapping("/estadisticas")
     @Operation(summary = "Obtener estadísticas de productos")
-    public ResponseEntity<Map<String, Long>> obtenerEstadisticas() {
-        Map<String, Long> stats = new HashMap<>();
-        stats.put("stockBajo", productoService.contarProductosStockBajo());
-        stats.put("agotados", productoService.contarProductosAgotados());
-        return ResponseEntity.ok(stats);
+    public ResponseEntity<Map<String, Long>> obtenerEstadisticas(WebRequest request) {
+        String etag = versionCatalogo.etag("estadisticas", VersionCatalogo.Seccion.PRODUCTOS);
+        return respuestaCondicional.revalidando(request, etag, () -> {
+            Map<String, Long> stats = new HashMap<>();
+            stats.put("stockBajo", productoService.contarProductosStockBajo());
+            stats.put("agotados", productoService.contarProductosAgotados());
+            return stats;
+        });
     }
 }
 
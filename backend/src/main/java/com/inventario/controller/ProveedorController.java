@@ -2,6 +2,8 @@ package com.inventario.controller;
 
 import com.inventario.dto.ProveedorDTO;
 import com.inventario.service.ProveedorService;
+import com.inventario.util.RespuestaCondicional;
+import com.inventario.util.VersionCatalogo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,11 +22,14 @@ import java.util.List;
 public class ProveedorController {
 
     private final ProveedorService proveedorService;
+    private final VersionCatalogo versionCatalogo;
+    private final RespuestaCondicional respuestaCondicional;
 
     @GetMapping
     @Operation(summary = "Listar todos los proveedores activos")
-    public ResponseEntity<List<ProveedorDTO>> listarTodos() {
-        return ResponseEntity.ok(proveedorService.listarTodos());
+    public ResponseEntity<List<ProveedorDTO>> listarTodos(WebRequest request) {
+        String etag = versionCatalogo.etag("proveedores", VersionCatalogo.Seccion.PROVEEDORES);
+        return respuestaCondicional.listado(request, etag, proveedorService::listarTodos);
     }
 
     @GetMapping("/{id}")
@@ -1,13 +1,15 @@
 package com.inventario.controller;
 
+import com.inventario.dto.PaginaDTO;
 import com.inventario.dto.VentaDTO;
+import com.inventario.service.IngestaVentas;
 import com.inventario.service.ReporteService;
 import com.inventario.service.VentaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -30,13 +32,15 @@ public class VentaController {
 
     private final VentaService ventaService;
     private final ReporteService reporteService;
+    // Solo existe con app.ventas.ingesta.habilitada=true
+    private final ObjectProvider<IngestaVentas> ingestaVentas;
 
     @GetMapping
     @Operation(summary = "Listar todas las ventas con paginación")
-    public ResponseEntity<Page<VentaDTO>> listarTodas(
+    public ResponseEntity<PaginaDTO<VentaDTO>> listarTodas(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(ventaService.listarTodas(page, size));
+        return ResponseEntity.ok(PaginaDTO.de(ventaService.listarTodas(page, size)));
     }
 
     @GetMapping("/{id}")
@@ -62,11 +66,25 @@ public class VentaController {
     @PostMapping
     @Operation(summary = "Crear una nueva venta")
     public ResponseEntity<VentaDTO> crearVenta(@Valid @RequestBody VentaDTO dto) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(ventaService.crearVenta(dto));
+        IngestaVentas ingesta = ingestaVentas.getIfAvailable();
+        VentaDTO venta = ingesta != null ? ingesta.registrarYEsperar(dto) : ventaService.crearVenta(dto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(venta);
+    }
+
+    @PostMapping("/reservas")
+    @Operation(summary = "Crear una venta pendiente (carrito o presupuesto) que retiene stock hasta vencer")
+    public ResponseEntity<VentaDTO> crearReserva(@Valid @RequestBody VentaDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(ventaService.crearReserva(dto));
+    }
+
+    @PostMapping("/{id}/confirmar")
+    @Operation(summary = "Confirmar una venta pendiente y descontar su stock")
+    public ResponseEntity<VentaDTO> confirmarReserva(@PathVariable Long id) {
+        return ResponseEntity.ok(ventaService.confirmarReserva(id));
     }
 
     @PostMapping("/{id}/cancelar")
-    @Operation(summary = "Cancelar una venta y devolver stock")
+    @Operation(summary = "Cancelar una venta y devolver stock (o liberar el retenido si está pendiente)")
     public ResponseEntity<VentaDTO> cancelarVenta(@PathVariable Long id) {
         return ResponseEntity.ok(ventaService.cancelarVenta(id));
     }
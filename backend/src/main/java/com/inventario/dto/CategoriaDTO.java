@@ -0,0 +1,26 @@
+package com.inventario.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoriaDTO {
+
+    private Long id;
+
+    @NotBlank(message = "El nombre de la categoría es obligatorio")
+    @Size(max = 100, message = "El nombre no puede exceder 100 caracteres")
+    private String nombre;
+
+    @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
+    private String descripcion;
+
+    private Boolean activo;
+
+    private Long cantidadProductos;
+}
+
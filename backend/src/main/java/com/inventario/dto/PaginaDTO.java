@@ -0,0 +1,34 @@
+package com.inventario.dto;
+
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Envoltorio de página estable para las respuestas paginadas. Sustituye a la serialización
+ * de PageImpl (pageable, sort, first, last...) y conserva los nombres content y totalElements
+ * que ya usa el frontend.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDTO<T> {
+
+    private List<T> content;
+    private Long totalElements;
+    private Integer totalPages;
+    private Integer page;
+    private Integer size;
+
+    public static <T> PaginaDTO<T> de(Page<T> pagina) {
+        return PaginaDTO.<T>builder()
+                .content(pagina.getContent())
+                .totalElements(pagina.getTotalElements())
+                .totalPages(pagina.getTotalPages())
+                .page(pagina.getNumber())
+                .size(pagina.getSize())
+                .build();
+    }
+}
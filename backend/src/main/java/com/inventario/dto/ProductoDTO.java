@@ -60,6 +60,8 @@ public class ProductoDTO {
     private Boolean activo;
 
     // Campos calculados
+    // Stock actual menos el retenido por ventas pendientes
+    private Integer stockDisponible;
     private Boolean stockBajo;
     private Boolean agotado;
 
@@ -0,0 +1,21 @@
+package com.inventario.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecepcionOrdenDTO {
+
+    @NotNull(message = "La orden de compra es obligatoria")
+    private Long ordenId;
+
+    @NotEmpty(message = "La recepción debe tener al menos un producto")
+    @Builder.Default
+    private List<DetalleOrdenCompraDTO> detalles = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpanTrazaDTO {
+
+    private String spanId;
+
+    private String padreId;
+
+    private String nombre;
+
+    private long inicioOffsetMs;
+
+    private double duracionMs;
+
+    private boolean error;
+
+    private Map<String, String> atributos;
+}
@@ -0,0 +1,28 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrazaDTO {
+
+    private String traceId;
+
+    private String operacion;
+
+    private Instant inicio;
+
+    private double duracionMs;
+
+    @Builder.Default
+    private List<SpanTrazaDTO> spans = new ArrayList<>();
+}
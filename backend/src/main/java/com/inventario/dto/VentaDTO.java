@@ -25,6 +25,12 @@ public class VentaDTO {
     @Size(max = 500, message = "Las observaciones no pueden exceder 500 caracteres")
     private String observaciones;
 
+    // Ventas pendientes (carritos y presupuestos): minutos pedidos al reservar y vencimiento
+    @Min(value = 1, message = "La reserva debe durar al menos 1 minuto")
+    private Integer minutosReserva;
+
+    private LocalDateTime fechaExpiracion;
+
     @NotEmpty(message = "La venta debe tener al menos un producto")
     @Builder.Default
     private List<DetalleVentaDTO> detalles = new ArrayList<>();
@@ -4,12 +4,16 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "categorias")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categorias")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
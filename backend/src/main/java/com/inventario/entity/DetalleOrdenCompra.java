@@ -3,6 +3,9 @@ package com.inventario.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 
@@ -15,7 +18,9 @@ import java.math.BigDecimal;
 public class DetalleOrdenCompra {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "detalle_orden_compra_seq")
+    @GenericGenerator(name = "detalle_orden_compra_seq", type = SecuenciaAgrupadaGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "detalle_ordenes_compra_id_seq"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,16 +46,3 @@ public class DetalleOrdenCompra {
     @Column(nullable = false, precision = 12, scale = 2)
     private BigDecimal precioCompra;
 }
-package com.inventario;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class InventarioMotosApplication {
-
-    public static void main(String[] args) {
-        SpringApplication.run(InventarioMotosApplication.class, args);
-    }
-}
-
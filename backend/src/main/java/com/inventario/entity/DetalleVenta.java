@@ -1,8 +1,12 @@
 package com.inventario.entity;
 
+import com.inventario.util.Dinero;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 
@@ -15,7 +19,9 @@ import java.math.BigDecimal;
 public class DetalleVenta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "detalle_venta_seq")
+    @GenericGenerator(name = "detalle_venta_seq", type = SecuenciaAgrupadaGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "detalle_ventas_id_seq"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -46,7 +52,7 @@ public class DetalleVenta {
     @PreUpdate
     public void calcularSubtotal() {
         if (this.cantidad != null && this.precioUnitario != null) {
-            this.subtotal = this.precioUnitario.multiply(BigDecimal.valueOf(this.cantidad));
+            this.subtotal = Dinero.aBigDecimal(Dinero.subtotal(Dinero.centimos(this.precioUnitario), this.cantidad));
         }
     }
 }
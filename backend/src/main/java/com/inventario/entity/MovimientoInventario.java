@@ -3,6 +3,9 @@ package com.inventario.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 
@@ -18,7 +21,9 @@ import java.time.LocalDateTime;
 public class MovimientoInventario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "movimiento_seq")
+    @GenericGenerator(name = "movimiento_seq", type = SecuenciaAgrupadaGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "movimientos_inventario_id_seq"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
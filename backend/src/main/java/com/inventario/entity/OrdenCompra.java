@@ -1,8 +1,12 @@
 package com.inventario.entity;
 
+import com.inventario.util.Dinero;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -13,7 +17,8 @@ import java.util.List;
 @Entity
 @Table(name = "ordenes_compra", indexes = {
     @Index(name = "idx_orden_fecha", columnList = "fechaOrden"),
-    @Index(name = "idx_orden_estado", columnList = "estado")
+    // Órdenes pendientes ya ordenadas por fecha
+    @Index(name = "idx_orden_estado_fecha", columnList = "estado, fechaOrden")
 })
 @Data
 @NoArgsConstructor
@@ -22,7 +27,9 @@ import java.util.List;
 public class OrdenCompra {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "orden_compra_seq")
+    @GenericGenerator(name = "orden_compra_seq", type = SecuenciaAgrupadaGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ordenes_compra_id_seq"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +43,10 @@ public class OrdenCompra {
     @Column
     private LocalDate fechaEntregaEstimada;
 
+    // Fecha en que se completó la recepción de todos los productos
+    @Column
+    private LocalDateTime fechaRecepcion;
+
     @NotNull(message = "El estado es obligatorio")
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
@@ -69,9 +80,12 @@ public class OrdenCompra {
 
     // Método para calcular el total
     public void calcularTotal() {
-        this.total = detalles.stream()
-            .map(d -> d.getPrecioCompra().multiply(BigDecimal.valueOf(d.getCantidadSolicitada())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long centimos = 0;
+        for (DetalleOrdenCompra detalle : detalles) {
+            centimos = Math.addExact(centimos,
+                    Dinero.subtotal(Dinero.centimos(detalle.getPrecioCompra()), detalle.getCantidadSolicitada()));
+        }
+        this.total = Dinero.aBigDecimal(centimos);
     }
 
     public enum EstadoOrden {
@@ -3,6 +3,7 @@ package com.inventario.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,6 +19,9 @@ import java.util.List;
     @Index(name = "idx_producto_modelo", columnList = "modeloCompatible"),
     @Index(name = "idx_producto_stock", columnList = "stockActual")
 })
+// El UPDATE solo incluye las columnas modificadas: editar un producto no reescribe stock_actual
+// con el valor leído, que con el motor de stock en memoria puede ir por detrás del real
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
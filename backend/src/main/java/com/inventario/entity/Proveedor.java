@@ -3,12 +3,16 @@ package com.inventario.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "proveedores")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "proveedores")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,33 @@
+package com.inventario.entity;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Generador de ids por secuencia con optimizador pooled-lo.
+ * Cada llamada a nextval reserva un bloque de ids en memoria, de modo que los
+ * INSERT no necesitan ejecutarse de inmediato y pueden agruparse en lotes JDBC.
+ * El tamaño del bloque se configura con "spring.jpa.properties.inventario.id.tamano_asignacion"
+ * y debe coincidir con el INCREMENT BY de las secuencias en la base de datos.
+ */
+public class SecuenciaAgrupadaGenerator extends SequenceStyleGenerator {
+
+    public static final String TAMANO_ASIGNACION = "inventario.id.tamano_asignacion";
+    public static final int TAMANO_ASIGNACION_DEFECTO = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        int tamanoAsignacion = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(TAMANO_ASIGNACION, StandardConverters.INTEGER, TAMANO_ASIGNACION_DEFECTO);
+
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(tamanoAsignacion));
+        parameters.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.inventario.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sugerencias_reposicion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SugerenciaReposicion {
+
+    @Id
+    @Column(name = "producto_codigo", length = 50)
+    private String productoCodigo;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "producto_codigo")
+    private Producto producto;
+
+    // Unidades vendidas por día en la ventana de análisis
+    @Column(nullable = false, precision = 12, scale = 4)
+    private BigDecimal ventaDiaria;
+
+    @Column(nullable = false, precision = 12, scale = 4)
+    private BigDecimal desviacionDiaria;
+
+    // Días promedio entre la orden y su recepción completa
+    @Column(nullable = false, precision = 8, scale = 2)
+    private BigDecimal plazoEntregaDias;
+
+    @Column(nullable = false)
+    private Integer stockSeguridad;
+
+    // Se sugiere reponer cuando el stock actual llega a este nivel
+    @Column(nullable = false)
+    private Integer puntoReorden;
+
+    // Nivel de stock que debe alcanzarse con la reposición
+    @Column(nullable = false)
+    private Integer stockObjetivo;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal precioCompra;
+
+    // true si no hay compras previas y el precio es una estimación
+    @Column(nullable = false)
+    private Boolean precioEstimado;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCalculo;
+
+    // Cantidad a pedir según el stock actual del producto
+    public int calcularCantidadSugerida() {
+        return Math.max(0, stockObjetivo - producto.getStockActual());
+    }
+}
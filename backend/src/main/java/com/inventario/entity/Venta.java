@@ -1,8 +1,12 @@
 package com.inventario.entity;
 
+import com.inventario.util.Dinero;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -12,7 +16,8 @@ import java.util.List;
 @Entity
 @Table(name = "ventas", indexes = {
     @Index(name = "idx_venta_fecha", columnList = "fechaHora"),
-    @Index(name = "idx_venta_estado", columnList = "estado")
+    // Ventas completadas de un rango: igualdad en estado y rango en fecha_hora sobre el mismo índice
+    @Index(name = "idx_venta_estado_fecha", columnList = "estado, fechaHora")
 })
 @Data
 @NoArgsConstructor
@@ -21,7 +26,9 @@ import java.util.List;
 public class Venta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "venta_seq")
+    @GenericGenerator(name = "venta_seq", type = SecuenciaAgrupadaGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ventas_id_seq"))
     private Long id;
 
     @Column(nullable = false)
@@ -44,6 +51,10 @@ public class Venta {
     @Column(length = 500)
     private String observaciones;
 
+    // Solo en las ventas PENDIENTE (carritos y presupuestos): hasta cuándo retienen su stock
+    @Column
+    private LocalDateTime fechaExpiracion;
+
     @OneToMany(mappedBy = "venta", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<DetalleVenta> detalles = new ArrayList<>();
@@ -62,9 +73,11 @@ public class Venta {
 
     // Método para calcular el total
     public void calcularTotal() {
-        this.total = detalles.stream()
-            .map(DetalleVenta::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long centimos = 0;
+        for (DetalleVenta detalle : detalles) {
+            centimos = Math.addExact(centimos, Dinero.centimos(detalle.getSubtotal()));
+        }
+        this.total = Dinero.aBigDecimal(centimos);
     }
 
     public enum EstadoVenta {
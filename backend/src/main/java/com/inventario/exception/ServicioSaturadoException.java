@@ -0,0 +1,12 @@
+package com.inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServicioSaturadoException extends RuntimeException {
+
+    public ServicioSaturadoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventario.repository;
+
+import com.inventario.entity.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+
+    // Resultado en la caché de consultas; se invalida al escribir en la tabla
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas.referencia")
+    })
+    List<Categoria> findByActivoTrue();
+
+    Optional<Categoria> findByNombreIgnoreCase(String nombre);
+
+    @Query("SELECT c FROM Categoria c WHERE c.activo = true AND LOWER(c.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
+    List<Categoria> buscarPorNombre(@Param("nombre") String nombre);
+
+    boolean existsByNombreIgnoreCase(String nombre);
+}
+
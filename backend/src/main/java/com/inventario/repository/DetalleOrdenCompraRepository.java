@@ -2,6 +2,8 @@ package com.inventario.repository;
 
 import com.inventario.entity.DetalleOrdenCompra;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,28 +14,11 @@ public interface DetalleOrdenCompraRepository extends JpaRepository<DetalleOrden
     List<DetalleOrdenCompra> findByOrdenCompraId(Long ordenId);
 
     List<DetalleOrdenCompra> findByProductoCodigoBarras(String codigoBarras);
-}
-package com.inventario.repository;
-
-import com.inventario.entity.Categoria;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Optional;
-
-@Repository
-public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
-
-    List<Categoria> findByActivoTrue();
-
-    Optional<Categoria> findByNombreIgnoreCase(String nombre);
-
-    @Query("SELECT c FROM Categoria c WHERE c.activo = true AND LOWER(c.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
-    List<Categoria> buscarPorNombre(@Param("nombre") String nombre);
-
-    boolean existsByNombreIgnoreCase(String nombre);
+    // Último precio de compra de cada producto de un proveedor
+    @Query("SELECT d.producto.codigoBarras, d.precioCompra FROM DetalleOrdenCompra d " +
+           "WHERE d.producto.proveedor.id = :proveedorId AND d.ordenCompra.estado <> 'CANCELADA' " +
+           "AND d.ordenCompra.fechaOrden = (SELECT MAX(d2.ordenCompra.fechaOrden) FROM DetalleOrdenCompra d2 " +
+           "WHERE d2.producto = d.producto AND d2.ordenCompra.estado <> 'CANCELADA')")
+    List<Object[]> findUltimosPreciosCompraPorProveedor(@Param("proveedorId") Long proveedorId);
 }
-
@@ -23,22 +23,30 @@ public interface DetalleVentaRepository extends JpaRepository<DetalleVenta, Long
            "ORDER BY totalVendido DESC")
     List<Object[]> findProductosMasVendidos();
 
-    // Productos más vendidos por período
+    // Productos más vendidos por período [inicio, fin)
     @Query("SELECT d.producto.codigoBarras, d.producto.nombre, SUM(d.cantidad) as totalVendido " +
            "FROM DetalleVenta d WHERE d.venta.estado = 'COMPLETADA' " +
-           "AND d.venta.fechaHora BETWEEN :inicio AND :fin " +
+           "AND d.venta.fechaHora >= :inicio AND d.venta.fechaHora < :fin " +
            "GROUP BY d.producto.codigoBarras, d.producto.nombre " +
            "ORDER BY totalVendido DESC")
     List<Object[]> findProductosMasVendidosPorPeriodo(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
+    // Unidades vendidas por producto y día para los productos de un proveedor
+    @Query("SELECT d.producto.codigoBarras, CAST(d.venta.fechaHora AS date), SUM(d.cantidad) " +
+           "FROM DetalleVenta d WHERE d.venta.estado = 'COMPLETADA' " +
+           "AND d.producto.proveedor.id = :proveedorId AND d.venta.fechaHora >= :desde " +
+           "GROUP BY d.producto.codigoBarras, CAST(d.venta.fechaHora AS date)")
+    List<Object[]> findVentasDiariasPorProveedor(@Param("proveedorId") Long proveedorId,
+                                                 @Param("desde") LocalDateTime desde);
+
     // Total vendido de un producto
     @Query("SELECT COALESCE(SUM(d.cantidad), 0) FROM DetalleVenta d " +
            "WHERE d.producto.codigoBarras = :codigo AND d.venta.estado = 'COMPLETADA'")
     Integer sumCantidadVendidaByProducto(@Param("codigo") String codigo);
 
-    // Ventas de un producto por período
+    // Ventas de un producto por período [inicio, fin)
     @Query("SELECT d FROM DetalleVenta d WHERE d.producto.codigoBarras = :codigo " +
-           "AND d.venta.estado = 'COMPLETADA' AND d.venta.fechaHora BETWEEN :inicio AND :fin")
+           "AND d.venta.estado = 'COMPLETADA' AND d.venta.fechaHora >= :inicio AND d.venta.fechaHora < :fin")
     List<DetalleVenta> findVentasProductoPorPeriodo(
         @Param("codigo") String codigo,
         @Param("inicio") LocalDateTime inicio,
@@ -3,6 +3,7 @@ package com.inventario.repository;
 import com.inventario.entity.MovimientoInventario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,21 +15,28 @@ import java.util.List;
 @Repository
 public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
 
+    // Listado paginado con el producto en la misma consulta
+    @Override
+    @EntityGraph(attributePaths = "producto")
+    Page<MovimientoInventario> findAll(Pageable pageable);
+
     // Movimientos por producto
     List<MovimientoInventario> findByProductoCodigoBarrasOrderByFechaHoraDesc(String codigoBarras);
 
     Page<MovimientoInventario> findByProductoCodigoBarrasOrderByFechaHoraDesc(String codigoBarras, Pageable pageable);
 
     // Movimientos por tipo
+    @EntityGraph(attributePaths = "producto")
     List<MovimientoInventario> findByTipoMovimientoOrderByFechaHoraDesc(MovimientoInventario.TipoMovimiento tipo);
 
-    // Movimientos por rango de fechas
-    @Query("SELECT m FROM MovimientoInventario m WHERE m.fechaHora BETWEEN :inicio AND :fin ORDER BY m.fechaHora DESC")
-    List<MovimientoInventario> findByFechaHoraBetween(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    // Movimientos por rango de fechas [inicio, fin)
+    @EntityGraph(attributePaths = "producto")
+    @Query("SELECT m FROM MovimientoInventario m WHERE m.fechaHora >= :inicio AND m.fechaHora < :fin ORDER BY m.fechaHora DESC")
+    List<MovimientoInventario> findEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
-    // Movimientos de un producto por rango de fechas
+    // Movimientos de un producto por rango de fechas [inicio, fin)
     @Query("SELECT m FROM MovimientoInventario m WHERE m.producto.codigoBarras = :codigo " +
-           "AND m.fechaHora BETWEEN :inicio AND :fin ORDER BY m.fechaHora DESC")
+           "AND m.fechaHora >= :inicio AND m.fechaHora < :fin ORDER BY m.fechaHora DESC")
     List<MovimientoInventario> findByProductoAndFecha(
         @Param("codigo") String codigo,
         @Param("inicio") LocalDateTime inicio,
@@ -36,9 +44,16 @@ public interface MovimientoInventarioRepository extends JpaRepository<Movimiento
     );
 
     // Últimos movimientos
+    @EntityGraph(attributePaths = "producto")
     @Query("SELECT m FROM MovimientoInventario m ORDER BY m.fechaHora DESC")
     List<MovimientoInventario> findUltimosMovimientos(Pageable pageable);
 
+    // Productos de un proveedor con movimientos desde una fecha
+    @Query("SELECT DISTINCT m.producto.codigoBarras FROM MovimientoInventario m " +
+           "WHERE m.producto.proveedor.id = :proveedorId AND m.fechaHora >= :desde")
+    List<String> findCodigosConMovimientosPorProveedor(@Param("proveedorId") Long proveedorId,
+                                                      @Param("desde") LocalDateTime desde);
+
     // Contar entradas por producto
     @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoInventario m " +
            "WHERE m.producto.codigoBarras = :codigo AND m.tipoMovimiento = 'ENTRADA'")
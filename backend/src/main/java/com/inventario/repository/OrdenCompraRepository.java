@@ -3,33 +3,52 @@ package com.inventario.repository;
 import com.inventario.entity.OrdenCompra;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrdenCompraRepository extends JpaRepository<OrdenCompra, Long> {
 
+    // Listado paginado con el proveedor; los detalles se cargan por lotes (default_batch_fetch_size)
+    @Override
+    @EntityGraph(attributePaths = "proveedor")
+    Page<OrdenCompra> findAll(Pageable pageable);
+
     // Órdenes por estado
     List<OrdenCompra> findByEstadoOrderByFechaOrdenDesc(OrdenCompra.EstadoOrden estado);
 
     Page<OrdenCompra> findByEstadoOrderByFechaOrdenDesc(OrdenCompra.EstadoOrden estado, Pageable pageable);
 
     // Órdenes por proveedor
+    @EntityGraph(attributePaths = {"proveedor", "detalles", "detalles.producto"})
     List<OrdenCompra> findByProveedorIdOrderByFechaOrdenDesc(Long proveedorId);
 
-    // Órdenes por rango de fechas
-    @Query("SELECT o FROM OrdenCompra o WHERE o.fechaOrden BETWEEN :inicio AND :fin ORDER BY o.fechaOrden DESC")
-    List<OrdenCompra> findByFechaOrdenBetween(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    // Órdenes por rango de fechas [inicio, fin)
+    @Query("SELECT o FROM OrdenCompra o WHERE o.fechaOrden >= :inicio AND o.fechaOrden < :fin ORDER BY o.fechaOrden DESC")
+    List<OrdenCompra> findEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
     // Órdenes pendientes
+    @EntityGraph(attributePaths = {"proveedor", "detalles", "detalles.producto"})
     @Query("SELECT o FROM OrdenCompra o WHERE o.estado IN ('PENDIENTE', 'ENVIADA') ORDER BY o.fechaOrden DESC")
     List<OrdenCompra> findOrdenesPendientes();
 
+    // Órdenes con sus detalles y productos en una sola consulta
+    @Query("SELECT DISTINCT o FROM OrdenCompra o LEFT JOIN FETCH o.detalles d LEFT JOIN FETCH d.producto " +
+           "WHERE o.id IN :ids")
+    List<OrdenCompra> findAllConDetallesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Últimas órdenes recibidas de un proveedor (para estimar el plazo de entrega)
+    List<OrdenCompra> findTop10ByProveedorIdAndFechaRecepcionIsNotNullOrderByFechaRecepcionDesc(Long proveedorId);
+
+    boolean existsByProveedorIdAndFechaRecepcionAfter(Long proveedorId, LocalDateTime fecha);
+
     // Contar órdenes pendientes
     @Query("SELECT COUNT(o) FROM OrdenCompra o WHERE o.estado IN ('PENDIENTE', 'ENVIADA')")
     Long countOrdenesPendientes();
@@ -1,20 +1,29 @@
 package com.inventario.repository;
 
 import com.inventario.entity.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, String>, JpaSpecificationExecutor<Producto> {
+public interface ProductoRepository extends JpaRepository<Producto, String>, JpaSpecificationExecutor<Producto>,
+        ProductoRepositoryCustom {
 
     // Búsquedas básicas
     List<Producto> findByActivoTrue();
@@ -100,6 +109,40 @@ public interface ProductoRepository extends JpaRepository<Producto, String>, Jpa
     @Query("UPDATE Producto p SET p.stockActual = p.stockActual + :cantidad WHERE p.codigoBarras = :codigo")
     void actualizarStock(@Param("codigo") String codigo, @Param("cantidad") Integer cantidad);
 
+    // Bloquear productos antes de modificar su stock (orden fijo para evitar interbloqueos)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.codigoBarras IN :codigos ORDER BY p.codigoBarras")
+    List<Producto> findAllParaActualizar(@Param("codigos") Collection<String> codigos);
+
+    // Incrementar el stock de varios productos en una sola sentencia (codigos[i] recibe cantidades[i]).
+    // Como en fijarStock, se declara la tabla afectada para no vaciar la caché de categorías y proveedores
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "productos"))
+    @Query(value = "UPDATE productos p SET stock_actual = p.stock_actual + r.cantidad, fecha_actualizacion = :fecha " +
+                   "FROM unnest(CAST(:codigos AS varchar[]), CAST(:cantidades AS integer[])) AS r(codigo, cantidad) " +
+                   "WHERE p.codigo_barras = r.codigo", nativeQuery = true)
+    int incrementarStock(@Param("codigos") String[] codigos,
+                         @Param("cantidades") Integer[] cantidades,
+                         @Param("fecha") LocalDateTime fecha);
+
+    // Datos de todos los productos (código, stock, precio de venta, stock mínimo, activo), para cargar el motor de stock
+    @Query("SELECT p.codigoBarras, p.stockActual, p.precioVenta, p.stockMinimo, p.activo FROM Producto p")
+    List<Object[]> findFichasStock();
+
+    // Fijar el stock de varios productos en una sola sentencia (codigos[i] pasa a stocks[i]); la
+    // fecha de última venta solo avanza. Se declara la tabla afectada para que Hibernate no vacíe
+    // la caché de segundo nivel de categorías y proveedores en cada volcado
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "productos"))
+    @Query(value = "UPDATE productos p SET stock_actual = r.stock, " +
+                   "fecha_ultima_venta = GREATEST(p.fecha_ultima_venta, r.fecha), fecha_actualizacion = :fecha " +
+                   "FROM unnest(CAST(:codigos AS varchar[]), CAST(:stocks AS integer[]), CAST(:fechas AS timestamp[])) " +
+                   "AS r(codigo, stock, fecha) WHERE p.codigo_barras = r.codigo", nativeQuery = true)
+    int fijarStock(@Param("codigos") String[] codigos,
+                   @Param("stocks") Integer[] stocks,
+                   @Param("fechas") LocalDateTime[] fechas,
+                   @Param("fecha") LocalDateTime fecha);
+
     // Contar productos con stock bajo
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.activo = true AND p.stockActual <= p.stockMinimo")
     Long countProductosStockBajo();
@@ -108,6 +151,22 @@ public interface ProductoRepository extends JpaRepository<Producto, String>, Jpa
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.activo = true AND p.stockActual = 0")
     Long countProductosAgotados();
 
+    // Valor del inventario activo (precio de venta x stock) sumado en la base de datos
+    @Query("SELECT COALESCE(SUM(p.precioVenta * p.stockActual), 0) FROM Producto p WHERE p.activo = true")
+    BigDecimal sumValorInventario();
+
+    // Cantidad de productos por categoría (id, total)
+    @Query("SELECT p.categoria.id, COUNT(p) FROM Producto p WHERE p.categoria IS NOT NULL GROUP BY p.categoria.id")
+    List<Object[]> contarPorCategoria();
+
+    // Cantidad de productos por proveedor (id, total)
+    @Query("SELECT p.proveedor.id, COUNT(p) FROM Producto p WHERE p.proveedor IS NOT NULL GROUP BY p.proveedor.id")
+    List<Object[]> contarPorProveedor();
+
+    // Última modificación del producto, para el ETag del detalle sin cargar la entidad
+    @Query("SELECT COALESCE(p.fechaActualizacion, p.fechaCreacion) FROM Producto p WHERE p.codigoBarras = :codigo")
+    Optional<LocalDateTime> findFechaModificacion(@Param("codigo") String codigo);
+
     // Verificar si existe código de barras
     boolean existsByCodigoBarras(String codigoBarras);
 
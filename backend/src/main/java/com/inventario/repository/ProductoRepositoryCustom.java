@@ -0,0 +1,21 @@
+package com.inventario.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProductoRepositoryCustom {
+
+    // Campos de ProductoDTO que admiten proyección parcial (?fields=)
+    Set<String> CAMPOS_PROYECTABLES = Set.of(
+            "codigoBarras", "codigoInterno", "nombre", "descripcion", "marca", "modeloCompatible",
+            "categoriaId", "categoriaNombre", "precioVenta", "stockActual", "stockMinimo",
+            "proveedorId", "proveedorNombre", "fechaIngreso", "fechaUltimaVenta", "ubicacion",
+            "imagenUrl", "activo", "stockBajo", "agotado", "fechaCreacion", "fechaActualizacion");
+
+    // Productos activos paginados seleccionando solo las columnas de los campos indicados
+    Page<Map<String, Object>> findCamposActivos(List<String> campos, Pageable pageable);
+}
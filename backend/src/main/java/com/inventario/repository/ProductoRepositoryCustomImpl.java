@@ -0,0 +1,93 @@
+package com.inventario.repository;
+
+import com.inventario.entity.Categoria;
+import com.inventario.entity.Producto;
+import com.inventario.entity.Proveedor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proyección dinámica con Criteria: el SELECT solo incluye las columnas pedidas y los
+ * JOIN a categorías y proveedores solo se añaden si se pide su nombre.
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Map<String, Object>> findCamposActivos(List<String> campos, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Producto> producto = query.from(Producto.class);
+        Join<Producto, Categoria> categoria = null;
+        Join<Producto, Proveedor> proveedor = null;
+
+        List<Selection<?>> selecciones = new ArrayList<>(campos.size());
+        for (String campo : campos) {
+            Expression<?> expresion = switch (campo) {
+                case "categoriaId" -> producto.get("categoria").get("id");
+                case "proveedorId" -> producto.get("proveedor").get("id");
+                case "categoriaNombre" -> {
+                    if (categoria == null) {
+                        categoria = producto.join("categoria", JoinType.LEFT);
+                    }
+                    yield categoria.get("nombre");
+                }
+                case "proveedorNombre" -> {
+                    if (proveedor == null) {
+                        proveedor = producto.join("proveedor", JoinType.LEFT);
+                    }
+                    yield proveedor.get("nombre");
+                }
+                case "stockBajo" -> cb.<Boolean>selectCase()
+                        .when(cb.le(producto.get("stockActual"), producto.get("stockMinimo")), true)
+                        .otherwise(false);
+                case "agotado" -> cb.<Boolean>selectCase()
+                        .when(cb.equal(producto.get("stockActual"), 0), true)
+                        .otherwise(false);
+                default -> producto.get(campo);
+            };
+            selecciones.add(expresion.alias(campo));
+        }
+
+        query.multiselect(selecciones)
+                .where(cb.isTrue(producto.get("activo")))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), producto, cb));
+
+        TypedQuery<Tuple> consulta = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            consulta.setFirstResult((int) pageable.getOffset());
+            consulta.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Map<String, Object>> filas = new ArrayList<>();
+        for (Tuple tupla : consulta.getResultList()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (String campo : campos) {
+                fila.put(campo, tupla.get(campo));
+            }
+            filas.add(fila);
+        }
+
+        CriteriaQuery<Long> conteo = cb.createQuery(Long.class);
+        Root<Producto> productoConteo = conteo.from(Producto.class);
+        conteo.select(cb.count(productoConteo)).where(cb.isTrue(productoConteo.get("activo")));
+        long total = entityManager.createQuery(conteo).getSingleResult();
+
+        return new PageImpl<>(filas, pageable, total);
+    }
+}
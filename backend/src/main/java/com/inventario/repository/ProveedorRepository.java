@@ -1,8 +1,11 @@
 package com.inventario.repository;
 
 import com.inventario.entity.Proveedor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +15,11 @@ import java.util.Optional;
 @Repository
 public interface ProveedorRepository extends JpaRepository<Proveedor, Long> {
 
+    // Resultado en la caché de consultas; se invalida al escribir en la tabla
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas.referencia")
+    })
     List<Proveedor> findByActivoTrue();
 
     Optional<Proveedor> findByRuc(String ruc);
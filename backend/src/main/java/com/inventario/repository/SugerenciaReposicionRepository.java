@@ -0,0 +1,23 @@
+package com.inventario.repository;
+
+import com.inventario.entity.SugerenciaReposicion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SugerenciaReposicionRepository extends JpaRepository<SugerenciaReposicion, String> {
+
+    // Sugerencias calculadas para los productos de un proveedor
+    @Query("SELECT s FROM SugerenciaReposicion s WHERE s.producto.proveedor.id = :proveedorId")
+    List<SugerenciaReposicion> findByProveedorId(@Param("proveedorId") Long proveedorId);
+
+    // Productos del proveedor que alcanzaron su punto de reorden
+    @Query("SELECT s FROM SugerenciaReposicion s JOIN FETCH s.producto p " +
+           "WHERE p.proveedor.id = :proveedorId AND p.activo = true AND p.stockActual <= s.puntoReorden " +
+           "ORDER BY p.nombre")
+    List<SugerenciaReposicion> findPendientesByProveedorId(@Param("proveedorId") Long proveedorId);
+}
@@ -1,16 +1,22 @@
 package com.inventario.repository;
 
 import com.inventario.entity.Venta;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface VentaRepository extends JpaRepository<Venta, Long> {
@@ -18,30 +24,59 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
     // Ventas por estado
     List<Venta> findByEstado(Venta.EstadoVenta estado);
 
+    // Los rangos de fechas son semiabiertos [inicio, fin) y los calcula JornadaComercial;
+    // la columna se compara sin funciones para que se usen idx_venta_fecha e idx_venta_estado_fecha
+
     // Ventas por rango de fechas
-    @Query("SELECT v FROM Venta v WHERE v.fechaHora BETWEEN :inicio AND :fin ORDER BY v.fechaHora DESC")
-    List<Venta> findByFechaHoraBetween(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    @EntityGraph(attributePaths = {"detalles", "detalles.producto"})
+    @Query("SELECT v FROM Venta v WHERE v.fechaHora >= :inicio AND v.fechaHora < :fin ORDER BY v.fechaHora DESC")
+    List<Venta> findEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    // Ventas completadas por rango de fechas (ventas del día)
+    @EntityGraph(attributePaths = {"detalles", "detalles.producto"})
+    @Query("SELECT v FROM Venta v WHERE v.estado = 'COMPLETADA' AND v.fechaHora >= :inicio AND v.fechaHora < :fin " +
+           "ORDER BY v.fechaHora DESC")
+    List<Venta> findCompletadasEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    // Contar ventas por rango de fechas
+    @Query("SELECT COUNT(v) FROM Venta v WHERE v.fechaHora >= :inicio AND v.fechaHora < :fin")
+    long countEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
-    // Ventas del día
-    @Query("SELECT v FROM Venta v WHERE DATE(v.fechaHora) = CURRENT_DATE AND v.estado = 'COMPLETADA' ORDER BY v.fechaHora DESC")
-    List<Venta> findVentasHoy();
+    // Contar ventas completadas por rango de fechas
+    @Query("SELECT COUNT(v) FROM Venta v WHERE v.estado = 'COMPLETADA' AND v.fechaHora >= :inicio AND v.fechaHora < :fin")
+    long countCompletadasEnRango(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
     // Total ventas por rango de fechas
-    @Query("SELECT COALESCE(SUM(v.total), 0) FROM Venta v WHERE v.estado = 'COMPLETADA' AND v.fechaHora BETWEEN :inicio AND :fin")
+    @Query("SELECT COALESCE(SUM(v.total), 0) FROM Venta v WHERE v.estado = 'COMPLETADA' " +
+           "AND v.fechaHora >= :inicio AND v.fechaHora < :fin")
     BigDecimal sumTotalVentasByFecha(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
-    // Ventas paginadas
-    Page<Venta> findByEstado(Venta.EstadoVenta estado, Pageable pageable);
+    // Líneas de las ventas pendientes (id, vencimiento, código, cantidad), para recuperar las retenciones de stock
+    @Query("SELECT v.id, v.fechaExpiracion, d.producto.codigoBarras, d.cantidad FROM Venta v JOIN v.detalles d " +
+           "WHERE v.estado = 'PENDIENTE'")
+    List<Object[]> findLineasPendientes();
 
-    // Contar ventas completadas del día
-    @Query("SELECT COUNT(v) FROM Venta v WHERE DATE(v.fechaHora) = CURRENT_DATE AND v.estado = 'COMPLETADA'")
-    Long countVentasHoy();
+    // Bloquear una venta antes de cambiar su estado (confirmar o cancelar)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Venta v WHERE v.id = :id")
+    Optional<Venta> findByIdParaActualizar(@Param("id") Long id);
 
-    // Total de ventas del día
-    @Query("SELECT COALESCE(SUM(v.total), 0) FROM Venta v WHERE DATE(v.fechaHora) = CURRENT_DATE AND v.estado = 'COMPLETADA'")
-    BigDecimal sumTotalVentasHoy();
+    // Bloquear las ventas indicadas que sigan pendientes; las confirmadas o canceladas mientras
+    // se esperaba el bloqueo quedan fuera (orden fijo para evitar interbloqueos)
+    @Query(value = "SELECT id FROM ventas WHERE id IN (:ids) AND estado = 'PENDIENTE' ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> findIdsPendientesParaActualizar(@Param("ids") Collection<Long> ids);
+
+    // Cancelar las ventas pendientes indicadas que sigan pendientes
+    @Modifying
+    @Query("UPDATE Venta v SET v.estado = 'CANCELADA' WHERE v.id IN :ids AND v.estado = 'PENDIENTE'")
+    int cancelarPendientes(@Param("ids") Collection<Long> ids);
+
+    // Ventas paginadas
+    Page<Venta> findByEstado(Venta.EstadoVenta estado, Pageable pageable);
 
     // Ventas por producto
+    @EntityGraph(attributePaths = {"detalles", "detalles.producto"})
     @Query("SELECT v FROM Venta v JOIN v.detalles d WHERE d.producto.codigoBarras = :codigoProducto ORDER BY v.fechaHora DESC")
     List<Venta> findVentasByProducto(@Param("codigoProducto") String codigoProducto);
 
@@ -51,10 +86,15 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
            "GROUP BY FUNCTION('DATE_TRUNC', 'month', v.fechaHora) ORDER BY mes")
     List<Object[]> getVentasMensuales(@Param("desde") LocalDateTime desde);
 
-    // Estadísticas de ventas diarias
-    @Query("SELECT CAST(v.fechaHora AS date) as dia, SUM(v.total) as total " +
-           "FROM Venta v WHERE v.estado = 'COMPLETADA' AND v.fechaHora BETWEEN :inicio AND :fin " +
-           "GROUP BY CAST(v.fechaHora AS date) ORDER BY dia")
-    List<Object[]> getVentasDiarias(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    // Estadísticas de ventas por jornada (número de jornada desde 1, total, ventas). Con hora de
+    // cierre la jornada no coincide con la fecha de calendario: limites son los inicios de cada
+    // jornada en orden y width_bucket da la posición del último que no supera la fecha de la venta
+    @Query(value = "SELECT width_bucket(v.fecha_hora, CAST(:limites AS timestamp[])) AS jornada, " +
+                   "SUM(v.total) AS total, COUNT(*) AS ventas FROM ventas v " +
+                   "WHERE v.estado = 'COMPLETADA' AND v.fecha_hora >= :inicio AND v.fecha_hora < :fin " +
+                   "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> getVentasDiarias(@Param("limites") LocalDateTime[] limites,
+                                    @Param("inicio") LocalDateTime inicio,
+                                    @Param("fin") LocalDateTime fin);
 }
 
@@ -0,0 +1,181 @@
+package com.inventario.service;
+
+import com.inventario.entity.OrdenCompra;
+import com.inventario.entity.Producto;
+import com.inventario.entity.SugerenciaReposicion;
+import com.inventario.repository.*;
+import com.inventario.util.Dinero;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Calcula las sugerencias de reposición de los productos de un proveedor a partir
+ * de la velocidad de venta, el plazo de entrega real y un stock de seguridad.
+ * Cada proveedor se procesa en su propia transacción sobre el ejecutor de @Async.
+ */
+@Component
+@RequiredArgsConstructor
+public class CalculadoraReposicion {
+
+    // Sin compras previas, el precio de compra se estima en el 70 % del precio de venta
+    private static final int PORCENTAJE_PRECIO_ESTIMADO = 70;
+
+    private final ProductoRepository productoRepository;
+    private final DetalleVentaRepository detalleVentaRepository;
+    private final DetalleOrdenCompraRepository detalleOrdenRepository;
+    private final OrdenCompraRepository ordenCompraRepository;
+    private final MovimientoInventarioRepository movimientoRepository;
+    private final SugerenciaReposicionRepository sugerenciaRepository;
+
+    @Value("${app.reposicion.ventana-dias:90}")
+    private int ventanaDias;
+
+    @Value("${app.reposicion.dias-cobertura:14}")
+    private int diasCobertura;
+
+    @Value("${app.reposicion.plazo-entrega-defecto:7}")
+    private double plazoEntregaDefecto;
+
+    @Value("${app.reposicion.nivel-servicio-z:1.65}")
+    private double nivelServicioZ;
+
+    @Value("${app.reposicion.vigencia-dias:7}")
+    private int vigenciaDias;
+
+    @Async
+    @Transactional
+    public CompletableFuture<Integer> recalcularProveedor(Long proveedorId, boolean completo) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        List<Producto> productos = productoRepository.findByProveedorIdAndActivoTrue(proveedorId);
+        Map<String, SugerenciaReposicion> existentes = sugerenciaRepository.findByProveedorId(proveedorId).stream()
+                .collect(Collectors.toMap(SugerenciaReposicion::getProductoCodigo, Function.identity()));
+
+        List<Producto> pendientes = seleccionarPendientes(proveedorId, productos, existentes, completo, ahora);
+        if (pendientes.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        Map<String, double[]> demanda = calcularDemanda(proveedorId, ahora);
+        double plazoEntrega = calcularPlazoEntrega(proveedorId);
+        Map<String, BigDecimal> ultimosPrecios = new HashMap<>();
+        for (Object[] fila : detalleOrdenRepository.findUltimosPreciosCompraPorProveedor(proveedorId)) {
+            ultimosPrecios.putIfAbsent((String) fila[0], (BigDecimal) fila[1]);
+        }
+
+        List<SugerenciaReposicion> calculadas = new ArrayList<>(pendientes.size());
+        for (Producto producto : pendientes) {
+            double[] estadistica = demanda.getOrDefault(producto.getCodigoBarras(), new double[2]);
+            double ventaDiaria = estadistica[0];
+            double desviacion = estadistica[1];
+
+            // Stock de seguridad para cubrir la variabilidad de la demanda durante el plazo de entrega
+            int stockSeguridad = (int) Math.ceil(nivelServicioZ * desviacion * Math.sqrt(plazoEntrega));
+            int puntoReorden = Math.max((int) Math.ceil(ventaDiaria * plazoEntrega) + stockSeguridad,
+                    producto.getStockMinimo());
+            int stockObjetivo = Math.max((int) Math.ceil(ventaDiaria * (plazoEntrega + diasCobertura)) + stockSeguridad,
+                    producto.getStockMinimo() * 2);
+
+            BigDecimal precioCompra = ultimosPrecios.get(producto.getCodigoBarras());
+            boolean precioEstimado = precioCompra == null;
+            if (precioEstimado) {
+                precioCompra = Dinero.aBigDecimal(Dinero.fraccion(
+                        Dinero.centimos(producto.getPrecioVenta()), PORCENTAJE_PRECIO_ESTIMADO, 100));
+            }
+
+            SugerenciaReposicion sugerencia = existentes.get(producto.getCodigoBarras());
+            if (sugerencia == null) {
+                sugerencia = SugerenciaReposicion.builder().producto(producto).build();
+            }
+            sugerencia.setVentaDiaria(BigDecimal.valueOf(ventaDiaria).setScale(4, RoundingMode.HALF_UP));
+            sugerencia.setDesviacionDiaria(BigDecimal.valueOf(desviacion).setScale(4, RoundingMode.HALF_UP));
+            sugerencia.setPlazoEntregaDias(BigDecimal.valueOf(plazoEntrega).setScale(2, RoundingMode.HALF_UP));
+            sugerencia.setStockSeguridad(stockSeguridad);
+            sugerencia.setPuntoReorden(puntoReorden);
+            sugerencia.setStockObjetivo(stockObjetivo);
+            sugerencia.setPrecioCompra(precioCompra);
+            sugerencia.setPrecioEstimado(precioEstimado);
+            sugerencia.setFechaCalculo(ahora);
+            calculadas.add(sugerencia);
+        }
+
+        sugerenciaRepository.saveAll(calculadas);
+        return CompletableFuture.completedFuture(calculadas.size());
+    }
+
+    // En modo incremental solo se recalculan productos con movimientos desde el último cálculo,
+    // sin sugerencia previa, modificados después de calcularla (otro proveedor, otro stock
+    // mínimo) o con una sugerencia más antigua que la vigencia configurada
+    private List<Producto> seleccionarPendientes(Long proveedorId, List<Producto> productos,
+                                                 Map<String, SugerenciaReposicion> existentes,
+                                                 boolean completo, LocalDateTime ahora) {
+        Optional<LocalDateTime> ultimoCalculo = existentes.values().stream()
+                .map(SugerenciaReposicion::getFechaCalculo)
+                .max(Comparator.naturalOrder());
+
+        // Una recepción nueva cambia el plazo de entrega de todo el proveedor
+        if (completo || ultimoCalculo.isEmpty()
+                || ordenCompraRepository.existsByProveedorIdAndFechaRecepcionAfter(proveedorId, ultimoCalculo.get())) {
+            return productos;
+        }
+
+        Set<String> conMovimientos = new HashSet<>(
+                movimientoRepository.findCodigosConMovimientosPorProveedor(proveedorId, ultimoCalculo.get()));
+        LocalDateTime limiteVigencia = ahora.minusDays(vigenciaDias);
+
+        return productos.stream()
+                .filter(p -> {
+                    SugerenciaReposicion existente = existentes.get(p.getCodigoBarras());
+                    return existente == null
+                            || existente.getFechaCalculo().isBefore(limiteVigencia)
+                            || (p.getFechaActualizacion() != null && p.getFechaActualizacion().isAfter(existente.getFechaCalculo()))
+                            || conMovimientos.contains(p.getCodigoBarras());
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Media y desviación estándar de las unidades vendidas por día (los días sin ventas cuentan como cero)
+    private Map<String, double[]> calcularDemanda(Long proveedorId, LocalDateTime ahora) {
+        Map<String, double[]> acumulados = new HashMap<>();
+        for (Object[] fila : detalleVentaRepository.findVentasDiariasPorProveedor(proveedorId,
+                ahora.minusDays(ventanaDias))) {
+            double cantidad = ((Number) fila[2]).doubleValue();
+            double[] acumulado = acumulados.computeIfAbsent((String) fila[0], k -> new double[2]);
+            acumulado[0] += cantidad;
+            acumulado[1] += cantidad * cantidad;
+        }
+
+        Map<String, double[]> demanda = new HashMap<>();
+        acumulados.forEach((codigo, acumulado) -> {
+            double media = acumulado[0] / ventanaDias;
+            double varianza = Math.max(0, acumulado[1] / ventanaDias - media * media);
+            demanda.put(codigo, new double[]{media, Math.sqrt(varianza)});
+        });
+        return demanda;
+    }
+
+    // Plazo promedio de las últimas recepciones completas del proveedor
+    private double calcularPlazoEntrega(Long proveedorId) {
+        List<OrdenCompra> recibidas = ordenCompraRepository
+                .findTop10ByProveedorIdAndFechaRecepcionIsNotNullOrderByFechaRecepcionDesc(proveedorId);
+        if (recibidas.isEmpty()) {
+            return plazoEntregaDefecto;
+        }
+        return recibidas.stream()
+                .mapToDouble(o -> Duration.between(o.getFechaOrden(), o.getFechaRecepcion()).toMinutes() / 1440.0)
+                .average()
+                .orElse(plazoEntregaDefecto);
+    }
+}
@@ -0,0 +1,119 @@
+package com.inventario.service;
+
+import com.inventario.dto.CategoriaDTO;
+import com.inventario.entity.Categoria;
+import com.inventario.exception.DuplicateResourceException;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.repository.CategoriaRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.ValorVersionado;
+import com.inventario.util.VersionCatalogo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CategoriaService {
+
+    private final CategoriaRepository categoriaRepository;
+    private final ProductoRepository productoRepository;
+    private final VersionCatalogo versionCatalogo;
+
+    // Productos por categoría (id, cantidad); la versión de CATEGORIAS cambia al crear, borrar o reasignar un producto
+    private final ValorVersionado<Map<Long, Long>> cantidadesProductos = new ValorVersionado<>();
+
+    @Transactional(readOnly = true)
+    public List<CategoriaDTO> listarTodas() {
+        return convertirListaADTO(categoriaRepository.findByActivoTrue());
+    }
+
+    @Transactional(readOnly = true)
+    public CategoriaDTO obtenerPorId(Long id) {
+        Categoria categoria = categoriaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
+        return convertirADTO(categoria);
+    }
+
+    public CategoriaDTO crear(CategoriaDTO dto) {
+        if (categoriaRepository.existsByNombreIgnoreCase(dto.getNombre())) {
+            throw new DuplicateResourceException("Categoría", "nombre", dto.getNombre());
+        }
+
+        Categoria categoria = Categoria.builder()
+                .nombre(dto.getNombre())
+                .descripcion(dto.getDescripcion())
+                .activo(true)
+                .build();
+
+        categoria = categoriaRepository.save(categoria);
+        return convertirADTO(categoria);
+    }
+
+    public CategoriaDTO actualizar(Long id, CategoriaDTO dto) {
+        Categoria categoria = categoriaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
+
+        // Verificar si ya existe otra categoría con el mismo nombre
+        categoriaRepository.findByNombreIgnoreCase(dto.getNombre())
+                .ifPresent(c -> {
+                    if (!c.getId().equals(id)) {
+                        throw new DuplicateResourceException("Categoría", "nombre", dto.getNombre());
+                    }
+                });
+
+        categoria.setNombre(dto.getNombre());
+        categoria.setDescripcion(dto.getDescripcion());
+
+        categoria = categoriaRepository.save(categoria);
+        return convertirADTO(categoria);
+    }
+
+    public void eliminar(Long id) {
+        Categoria categoria = categoriaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
+
+        // Eliminación lógica
+        categoria.setActivo(false);
+        categoriaRepository.save(categoria);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoriaDTO> buscarPorNombre(String nombre) {
+        return convertirListaADTO(categoriaRepository.buscarPorNombre(nombre));
+    }
+
+    private List<CategoriaDTO> convertirListaADTO(List<Categoria> categorias) {
+        Map<Long, Long> cantidades = cantidadesProductos();
+        return categorias.stream()
+                .map(c -> convertirADTO(c, cantidades.getOrDefault(c.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private CategoriaDTO convertirADTO(Categoria categoria) {
+        return convertirADTO(categoria, cantidadesProductos().getOrDefault(categoria.getId(), 0L));
+    }
+
+    // Una sola consulta agrupada, repetida solo cuando cambian los productos de alguna categoría
+    private Map<Long, Long> cantidadesProductos() {
+        return cantidadesProductos.obtener(versionCatalogo.version(VersionCatalogo.Seccion.CATEGORIAS), () ->
+                productoRepository.contarPorCategoria().stream()
+                        .collect(Collectors.toMap(fila -> (Long) fila[0], fila -> (Long) fila[1])));
+    }
+
+    private CategoriaDTO convertirADTO(Categoria categoria, long cantidadProductos) {
+        return CategoriaDTO.builder()
+                .id(categoria.getId())
+                .nombre(categoria.getNombre())
+                .descripcion(categoria.getDescripcion())
+                .activo(categoria.getActivo())
+                .cantidadProductos(cantidadProductos)
+                .build();
+    }
+}
+
@@ -0,0 +1,164 @@
+package com.inventario.service;
+
+import com.inventario.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos en memoria por producto, repartidos en franjas según el hash del código de barras.
+ * Las operaciones que modifican el stock de varios productos (ventas, cancelaciones, recepción
+ * de órdenes, ajustes) toman las franjas de sus productos en orden creciente antes de leer o
+ * bloquear filas en PostgreSQL. Dos transacciones con productos en común se ordenan aquí, de
+ * modo que no llegan a esperarse en sentidos opuestos en la base de datos.
+ *
+ * Las franjas se liberan al terminar la transacción (tras el commit o el rollback). Si la misma
+ * transacción pide más productos después, las franjas nuevas pueden quedar fuera de orden: por
+ * eso cada espera tiene un límite (app.stock.cerrojos.espera-maxima-ms) tras el cual la
+ * operación se rechaza con 503 en lugar de quedarse bloqueada.
+ *
+ * Solo ordena las transacciones de este proceso; con varias instancias del backend el orden de
+ * los SELECT ... FOR UPDATE sigue siendo el que evita los interbloqueos. Con el motor de stock
+ * no se usan: el stock no se modifica en la base de datos dentro de la transacción y el motor
+ * comprueba las ventas y las retenciones de las ventas pendientes en el hilo de cada partición.
+ */
+@Service
+public class CerrojosStock {
+
+    private final ReentrantLock[] franjas;
+    private final boolean habilitado;
+    private final long esperaMaximaNanos;
+    private final MeterRegistry registry;
+    private final Timer espera;
+
+    // Tiempo de espera de cada franja, registrado la primera vez que la franja tiene que esperar
+    private final AtomicReferenceArray<Timer> esperaPorFranja;
+
+    public CerrojosStock(@Value("${app.stock.cerrojos.habilitado:true}") boolean habilitado,
+                         @Value("${app.stock.cerrojos.franjas:256}") int franjas,
+                         @Value("${app.stock.cerrojos.espera-maxima-ms:5000}") long esperaMaximaMs,
+                         MeterRegistry registry) {
+        this.habilitado = habilitado;
+        this.franjas = new ReentrantLock[franjas];
+        for (int i = 0; i < franjas; i++) {
+            this.franjas[i] = new ReentrantLock();
+        }
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.registry = registry;
+        this.espera = Timer.builder("inventario.stock.cerrojos.espera")
+                .description("Espera para tomar los cerrojos de stock de una operación")
+                .register(registry);
+        this.esperaPorFranja = new AtomicReferenceArray<>(franjas);
+    }
+
+    /**
+     * Toma las franjas de los productos indicados hasta el final de la transacción en curso.
+     * Las que la transacción ya tenía no se vuelven a tomar.
+     */
+    public void bloquear(Collection<String> codigos) {
+        if (!habilitado || codigos.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los cerrojos de stock requieren una transacción");
+        }
+
+        int[] pedidas = new int[codigos.size()];
+        int numero = 0;
+        for (String codigo : codigos) {
+            pedidas[numero++] = franja(codigo);
+        }
+        Arrays.sort(pedidas);
+
+        Tenencia tenencia = tenenciaEnCurso();
+        long inicio = System.nanoTime();
+        int anterior = -1;
+        for (int franja : pedidas) {
+            if (franja != anterior && !tenencia.franjas.get(franja)) {
+                tomar(franja);
+                tenencia.franjas.set(franja);
+            }
+            anterior = franja;
+        }
+        espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    // Franja del producto
+    int franja(String codigo) {
+        return Math.floorMod(codigo.hashCode(), franjas.length);
+    }
+
+    private void tomar(int franja) {
+        ReentrantLock cerrojo = franjas[franja];
+        if (cerrojo.tryLock()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean tomado;
+        try {
+            tomado = cerrojo.tryLock(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando un cerrojo de stock", e);
+        }
+        timerFranja(franja).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        if (!tomado) {
+            throw new ServicioSaturadoException("Productos ocupados por otra operación, reintente en unos segundos");
+        }
+    }
+
+    private Timer timerFranja(int franja) {
+        Timer timer = esperaPorFranja.get(franja);
+        if (timer == null) {
+            timer = Timer.builder("inventario.stock.cerrojos.espera.franja")
+                    .description("Espera por una franja de cerrojos de stock ocupada")
+                    .tag("franja", String.valueOf(franja))
+                    .register(registry);
+            esperaPorFranja.compareAndSet(franja, null, timer);
+        }
+        return timer;
+    }
+
+    // Una sola tenencia por transacción, aunque bloquee varias veces
+    private Tenencia tenenciaEnCurso() {
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Tenencia tenencia && tenencia.cerrojos() == this) {
+                return tenencia;
+            }
+        }
+        Tenencia tenencia = new Tenencia();
+        TransactionSynchronizationManager.registerSynchronization(tenencia);
+        return tenencia;
+    }
+
+    /**
+     * Franjas tomadas por una transacción; se liberan en afterCompletion, que se ejecuta en el
+     * mismo hilo que las tomó.
+     */
+    private final class Tenencia implements TransactionSynchronization {
+
+        private final BitSet franjas = new BitSet();
+
+        CerrojosStock cerrojos() {
+            return CerrojosStock.this;
+        }
+
+        @Override
+        public void afterCompletion(int estado) {
+            for (int franja = franjas.nextSetBit(0); franja >= 0; franja = franjas.nextSetBit(franja + 1)) {
+                CerrojosStock.this.franjas[franja].unlock();
+            }
+            franjas.clear();
+        }
+    }
+}
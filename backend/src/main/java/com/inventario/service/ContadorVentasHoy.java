@@ -0,0 +1,194 @@
+package com.inventario.service;
+
+import com.inventario.config.JornadaComercial;
+import com.inventario.repository.VentaRepository;
+import com.inventario.util.Dinero;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Número e importe de las ventas completadas de la jornada en curso, mantenidos en memoria para
+ * que la cabecera del punto de venta y el dashboard no repitan el COUNT/SUM en cada consulta.
+ * Los acumuladores son LongAdder (repartidos en celdas bajo contención) y el importe se lleva en
+ * céntimos, así que leerlos no bloquea ni reserva memoria.
+ *
+ * Las ventas y cancelaciones se aplican tras el commit. El contador se reconstruye desde la base
+ * de datos al arrancar, empieza en cero al cambiar de jornada y se concilia periódicamente con
+ * la base de datos.
+ */
+@Slf4j
+@Service
+public class ContadorVentasHoy {
+
+    private final VentaRepository ventaRepository;
+    private final JornadaComercial jornada;
+    private final TransactionTemplate lecturaPrimaria;
+
+    private final AtomicReference<Acumulado> actual = new AtomicReference<>();
+
+    // Transacciones con ventas entre beforeCommit y afterCompletion; mientras haya alguna, lo
+    // que devuelve la base de datos puede incluir cambios que el contador aún no ha aplicado
+    private final LongAdder confirmando = new LongAdder();
+    // Cambios aplicados desde el arranque, para detectar ventas confirmadas durante una conciliación
+    private final LongAdder cambios = new LongAdder();
+
+    public ContadorVentasHoy(VentaRepository ventaRepository, JornadaComercial jornada,
+                             PlatformTransactionManager transactionManager) {
+        this.ventaRepository = ventaRepository;
+        this.jornada = jornada;
+        // Sin readOnly para leer de la primaria y no de una réplica retrasada; el COUNT y el SUM
+        // se leen en la misma instantánea
+        this.lecturaPrimaria = new TransactionTemplate(transactionManager);
+        this.lecturaPrimaria.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @PostConstruct
+    void reconstruir() {
+        Acumulado acumulado = new Acumulado(jornada.fechaActual());
+        long[] guardado = consultar(acumulado);
+        acumulado.ventas.add(guardado[0]);
+        acumulado.centimos.add(guardado[1]);
+        actual.set(acumulado);
+        log.info("Ventas de la jornada {} cargadas: {} ventas, {} céntimos", acumulado.fecha, guardado[0], guardado[1]);
+    }
+
+    public long ventas() {
+        return acumulado().ventas.sum();
+    }
+
+    public long centimos() {
+        return acumulado().centimos.sum();
+    }
+
+    public BigDecimal total() {
+        return Dinero.aBigDecimal(centimos());
+    }
+
+    public void ventaRegistrada(LocalDateTime fechaHora, BigDecimal total) {
+        aplicarTrasCommit(fechaHora, 1, Dinero.centimos(total));
+    }
+
+    // Solo para ventas que estaban completadas
+    public void ventaCancelada(LocalDateTime fechaHora, BigDecimal total) {
+        aplicarTrasCommit(fechaHora, -1, -Dinero.centimos(total));
+    }
+
+    /**
+     * Compara el contador con la base de datos y corrige la diferencia. Si alguna venta se
+     * confirma mientras tanto la conciliación se deja para la siguiente ejecución.
+     */
+    @Scheduled(fixedDelayString = "${app.ventas-hoy.intervalo-conciliacion-ms:60000}",
+            initialDelayString = "${app.ventas-hoy.intervalo-conciliacion-ms:60000}")
+    public void conciliar() {
+        Acumulado acumulado = acumulado();
+        long cambiosAntes = cambios.sum();
+        if (confirmando.sum() != 0) {
+            return;
+        }
+        long ventas = acumulado.ventas.sum();
+        long centimos = acumulado.centimos.sum();
+
+        long[] guardado = consultar(acumulado);
+
+        if (confirmando.sum() != 0 || cambios.sum() != cambiosAntes || actual.get() != acumulado) {
+            log.debug("Conciliación de ventas de la jornada aplazada: hubo ventas durante la consulta");
+            return;
+        }
+        long diferenciaVentas = guardado[0] - ventas;
+        long diferenciaCentimos = guardado[1] - centimos;
+        if (diferenciaVentas != 0 || diferenciaCentimos != 0) {
+            // Se suma la diferencia en lugar de reemplazar el valor para no perder ventas posteriores
+            acumulado.ventas.add(diferenciaVentas);
+            acumulado.centimos.add(diferenciaCentimos);
+            log.warn("Contador de ventas de la jornada corregido: {} ventas, {} céntimos de diferencia",
+                    diferenciaVentas, diferenciaCentimos);
+        }
+    }
+
+    private void aplicarTrasCommit(LocalDateTime fechaHora, long ventas, long centimos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicar(fechaHora, ventas, centimos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean enCommit;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                enCommit = true;
+                confirmando.increment();
+            }
+
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado == STATUS_COMMITTED) {
+                    aplicar(fechaHora, ventas, centimos);
+                }
+                if (enCommit) {
+                    confirmando.decrement();
+                }
+            }
+        });
+    }
+
+    // Las ventas de otra jornada (cancelaciones de días anteriores) no afectan al contador
+    private void aplicar(LocalDateTime fechaHora, long ventas, long centimos) {
+        Acumulado acumulado = acumulado();
+        if (!fechaHora.isBefore(acumulado.inicio) && fechaHora.isBefore(acumulado.fin)) {
+            acumulado.ventas.add(ventas);
+            acumulado.centimos.add(centimos);
+        }
+        cambios.increment();
+    }
+
+    // Cambia de jornada al pasar la hora de cierre; solo entonces se reserva memoria
+    private Acumulado acumulado() {
+        Acumulado acumulado = actual.get();
+        while (System.currentTimeMillis() >= acumulado.finEpochMilli) {
+            Acumulado siguiente = new Acumulado(jornada.fechaActual());
+            if (actual.compareAndSet(acumulado, siguiente)) {
+                log.info("Nueva jornada {}: contador de ventas reiniciado", siguiente.fecha);
+                return siguiente;
+            }
+            acumulado = actual.get();
+        }
+        return acumulado;
+    }
+
+    private long[] consultar(Acumulado acumulado) {
+        return lecturaPrimaria.execute(estado -> new long[] {
+                ventaRepository.countCompletadasEnRango(acumulado.inicio, acumulado.fin),
+                Dinero.centimos(ventaRepository.sumTotalVentasByFecha(acumulado.inicio, acumulado.fin))
+        });
+    }
+
+    private final class Acumulado {
+        final LocalDate fecha;
+        final LocalDateTime inicio;
+        final LocalDateTime fin;
+        final long finEpochMilli;
+        final LongAdder ventas = new LongAdder();
+        final LongAdder centimos = new LongAdder();
+
+        Acumulado(LocalDate fecha) {
+            this.fecha = fecha;
+            this.inicio = jornada.inicioDe(fecha);
+            this.fin = jornada.inicioDe(fecha.plusDays(1));
+            this.finEpochMilli = fin.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+}
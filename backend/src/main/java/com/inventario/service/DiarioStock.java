@@ -0,0 +1,174 @@
+package com.inventario.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de solo escritura de una partición de MotorStock. Cada anotación guarda el stock
+ * confirmado de un producto tras un cambio (valor absoluto, no la diferencia), de modo que al
+ * repetir los segmentos en orden el último valor de cada producto es el bueno.
+ *
+ * El diario se divide en segmentos stock-{partición}-{número}.diario: al volcar el stock a la
+ * base de datos se cierra el segmento en curso y, una vez confirmado el volcado, se borra. Cada
+ * registro es [longitud][código UTF-8][stock][CRC32]; un registro incompleto o con CRC erróneo
+ * (escritura cortada por una caída) marca el final del segmento.
+ *
+ * Solo lo usa el hilo de su partición.
+ */
+@Slf4j
+final class DiarioStock implements Closeable {
+
+    private static final Pattern NOMBRE_SEGMENTO = Pattern.compile("stock-(\\d+)-(\\d+)\\.diario");
+
+    // Segmento del diario en disco
+    record Segmento(Path ruta, int particion, long numero) {
+    }
+
+    private final Path directorio;
+    private final int particion;
+    private final boolean sincronizar;
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private Segmento segmento;
+    private FileChannel canal;
+    private boolean vacio = true;
+
+    private DiarioStock(Path directorio, int particion, long numero, boolean sincronizar) throws IOException {
+        this.directorio = directorio;
+        this.particion = particion;
+        this.sincronizar = sincronizar;
+        abrirSegmento(numero);
+    }
+
+    /**
+     * Abre un segmento nuevo para la partición. Con sincronizar cada {@link #sincronizar()}
+     * espera a que el sistema operativo lleve los datos al disco.
+     */
+    static DiarioStock abrir(Path directorio, int particion, long numero, boolean sincronizar) throws IOException {
+        return new DiarioStock(directorio, particion, numero, sincronizar);
+    }
+
+    // Segmentos existentes de todas las particiones, en orden de número
+    static List<Segmento> segmentos(Path directorio) throws IOException {
+        List<Segmento> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.forEach(ruta -> {
+                Matcher nombre = NOMBRE_SEGMENTO.matcher(ruta.getFileName().toString());
+                if (nombre.matches()) {
+                    segmentos.add(new Segmento(ruta, Integer.parseInt(nombre.group(1)), Long.parseLong(nombre.group(2))));
+                }
+            });
+        }
+        segmentos.sort((a, b) -> Long.compare(a.numero(), b.numero()));
+        return segmentos;
+    }
+
+    // Recorre las anotaciones válidas del segmento y devuelve cuántas había
+    static int leer(Segmento segmento, ObjIntConsumer<String> anotacion) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(segmento.ruta()));
+        CRC32 crc = new CRC32();
+        int leidas = 0;
+        while (datos.remaining() >= Integer.BYTES) {
+            int longitud = datos.getInt();
+            if (longitud < 0 || datos.remaining() < longitud + 2 * Integer.BYTES) {
+                log.warn("Diario de stock {}: registro incompleto tras {} anotaciones", segmento.ruta(), leidas);
+                break;
+            }
+            byte[] codigo = new byte[longitud];
+            datos.get(codigo);
+            int stock = datos.getInt();
+            if (suma(crc, codigo, stock) != datos.getInt()) {
+                log.warn("Diario de stock {}: registro dañado tras {} anotaciones", segmento.ruta(), leidas);
+                break;
+            }
+            anotacion.accept(new String(codigo, StandardCharsets.UTF_8), stock);
+            leidas++;
+        }
+        return leidas;
+    }
+
+    // Añade la anotación al búfer; llega al archivo en el siguiente sincronizar()
+    void anotar(String codigo, int stock) {
+        byte[] bytes = codigo.getBytes(StandardCharsets.UTF_8);
+        int tamano = bytes.length + 3 * Integer.BYTES;
+        if (buffer.remaining() < tamano) {
+            ByteBuffer mayor = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + tamano));
+            buffer.flip();
+            mayor.put(buffer);
+            buffer = mayor;
+        }
+        buffer.putInt(bytes.length).put(bytes).putInt(stock).putInt(suma(crc, bytes, stock));
+    }
+
+    // Escribe las anotaciones pendientes y, si está configurado, fuerza su paso a disco
+    void sincronizar() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+        vacio = false;
+        if (sincronizar) {
+            canal.force(false);
+        }
+    }
+
+    /**
+     * Cierra el segmento en curso y abre el siguiente. Devuelve el segmento cerrado, o null si
+     * no tenía anotaciones (en ese caso se sigue escribiendo en él).
+     */
+    Segmento rotar() throws IOException {
+        sincronizar();
+        if (vacio) {
+            return null;
+        }
+        Segmento cerrado = segmento;
+        canal.close();
+        abrirSegmento(cerrado.numero() + 1);
+        return cerrado;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizar();
+        canal.close();
+        if (vacio) {
+            Files.deleteIfExists(segmento.ruta());
+        }
+    }
+
+    private static int suma(CRC32 crc, byte[] codigo, int stock) {
+        crc.reset();
+        crc.update(codigo);
+        for (int desplazamiento = 24; desplazamiento >= 0; desplazamiento -= 8) {
+            crc.update(stock >>> desplazamiento);
+        }
+        return (int) crc.getValue();
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        Path ruta = directorio.resolve("stock-" + particion + "-" + numero + ".diario");
+        segmento = new Segmento(ruta, particion, numero);
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        vacio = true;
+    }
+}
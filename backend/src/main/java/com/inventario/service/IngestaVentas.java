@@ -0,0 +1,210 @@
+package com.inventario.service;
+
+import com.inventario.dto.VentaDTO;
+import com.inventario.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ingesta de ventas con commit agrupado (app.ventas.ingesta.habilitada). Las ventas ya validadas
+ * entran en una cola acotada y un único hilo escritor las registra por lotes: desde la primera
+ * venta del lote espera como mucho app.ventas.ingesta.espera-maxima-ms (o hasta reunir
+ * lote-maximo ventas) y las confirma en una sola transacción, con un commit y los INSERT
+ * agrupados en lugar de uno por terminal.
+ *
+ * Con la cola llena la venta se rechaza con 503 en lugar de acumular latencia. Si el lote falla
+ * antes del commit (la transacción se deshace entera), sus ventas se repiten una a una por el
+ * camino directo. Si falla el propio commit no se sabe si las ventas quedaron guardadas: no se
+ * repiten, para no registrarlas dos veces, y cada una termina con el error.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.ventas.ingesta.habilitada", havingValue = "true")
+public class IngestaVentas {
+
+    private record Solicitud(VentaDTO venta, long encolada, CompletableFuture<VentaDTO> resultado) {
+    }
+
+    private final VentaService ventaService;
+    private final PlatformTransactionManager transactionManager;
+    private final BlockingQueue<Solicitud> cola;
+    private final int loteMaximo;
+    private final long esperaMaximaNanos;
+    private final long esperaResultadoMs;
+    private final DistributionSummary tamanoLote;
+    private final Thread escritor;
+
+    private volatile boolean activa = true;
+
+    public IngestaVentas(VentaService ventaService, PlatformTransactionManager transactionManager,
+                         @Value("${app.ventas.ingesta.capacidad:1000}") int capacidad,
+                         @Value("${app.ventas.ingesta.lote-maximo:100}") int loteMaximo,
+                         @Value("${app.ventas.ingesta.espera-maxima-ms:2}") long esperaMaximaMs,
+                         @Value("${app.ventas.ingesta.espera-resultado-ms:30000}") long esperaResultadoMs,
+                         MeterRegistry registry) {
+        this.ventaService = ventaService;
+        this.transactionManager = transactionManager;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.loteMaximo = loteMaximo;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.esperaResultadoMs = esperaResultadoMs;
+        this.escritor = new Thread(this::escribir, "ingesta-ventas");
+
+        this.tamanoLote = DistributionSummary.builder("inventario.ventas.ingesta.lote")
+                .description("Ventas confirmadas por commit agrupado")
+                .register(registry);
+        Gauge.builder("inventario.ventas.ingesta.cola", cola, BlockingQueue::size)
+                .description("Ventas en cola esperando al escritor")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        escritor.start();
+    }
+
+    // Deja de aceptar ventas y confirma las que ya estaban en cola; las que no dé tiempo a
+    // confirmar (o lleguen tras parar el escritor) se rechazan sin haberse intentado
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activa = false;
+        escritor.join(TimeUnit.SECONDS.toMillis(30));
+        List<Solicitud> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            log.warn("{} ventas en cola sin confirmar al detener la ingesta", restantes.size());
+            ServicioSaturadoException error = new ServicioSaturadoException("El servidor se está deteniendo, reintente la venta");
+            restantes.forEach(solicitud -> solicitud.resultado().completeExceptionally(error));
+        }
+    }
+
+    /**
+     * Encola la venta. El resultado se completa con la venta registrada cuando su lote se ha
+     * confirmado, o con la excepción de negocio que la rechazó.
+     */
+    public CompletableFuture<VentaDTO> registrar(VentaDTO venta) {
+        Solicitud solicitud = new Solicitud(venta, System.nanoTime(), new CompletableFuture<>());
+        if (!activa || !cola.offer(solicitud)) {
+            throw new ServicioSaturadoException("Demasiadas ventas en cola, reintente en unos segundos");
+        }
+        return solicitud.resultado();
+    }
+
+    /**
+     * Espera al commit del lote en el hilo de la petición (como mucho
+     * app.ventas.ingesta.espera-resultado-ms) y relanza la excepción de negocio tal cual.
+     */
+    public VentaDTO registrarYEsperar(VentaDTO venta) {
+        try {
+            return registrar(venta).orTimeout(esperaResultadoMs, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof TimeoutException) {
+                // La venta puede confirmarse aún con su lote: no se puede reintentar a ciegas
+                throw new IllegalStateException("La venta no se confirmó a tiempo; compruebe si quedó registrada antes de repetirla", e);
+            }
+            throw e;
+        }
+    }
+
+    private void escribir() {
+        List<Solicitud> lote = new ArrayList<>(loteMaximo);
+        while (activa || !cola.isEmpty()) {
+            try {
+                Solicitud primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                long limite = primera.encolada() + esperaMaximaNanos;
+                while (lote.size() < loteMaximo) {
+                    cola.drainTo(lote, loteMaximo - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= loteMaximo || restante <= 0) {
+                        break;
+                    }
+                    Solicitud siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                confirmar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el escritor de ventas", e);
+                lote.forEach(s -> s.resultado().completeExceptionally(e));
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void confirmar(List<Solicitud> lote) {
+        tamanoLote.record(lote.size());
+        List<VentaDTO> ventas = new ArrayList<>(lote.size());
+        for (Solicitud solicitud : lote) {
+            ventas.add(solicitud.venta());
+        }
+
+        // La transacción se abre aquí para separar los fallos anteriores al commit, que la deshacen
+        // entera, de los del propio commit
+        TransactionStatus transaccion = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        List<VentaService.ResultadoLote> resultados;
+        try {
+            resultados = ventaService.crearVentasEnLote(ventas);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(transaccion);
+            log.warn("No se pudo registrar un lote de {} ventas; se registran una a una", lote.size(), e);
+            for (Solicitud solicitud : lote) {
+                try {
+                    solicitud.resultado().complete(ventaService.crearVenta(solicitud.venta()));
+                } catch (RuntimeException error) {
+                    solicitud.resultado().completeExceptionally(error);
+                }
+            }
+            return;
+        }
+        try {
+            transactionManager.commit(transaccion);
+        } catch (RuntimeException e) {
+            log.error("Commit de resultado desconocido en un lote de {} ventas; no se repiten", lote.size(), e);
+            IllegalStateException error = new IllegalStateException(
+                    "No se sabe si la venta quedó registrada; compruébelo antes de repetirla", e);
+            lote.forEach(solicitud -> solicitud.resultado().completeExceptionally(error));
+            return;
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            VentaService.ResultadoLote resultado = resultados.get(i);
+            if (resultado.error() != null) {
+                lote.get(i).resultado().completeExceptionally(resultado.error());
+            } else {
+                lote.get(i).resultado().complete(resultado.venta());
+            }
+        }
+    }
+}
@@ -0,0 +1,973 @@
+package com.inventario.service;
+
+import com.inventario.entity.Producto;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.exception.ServicioSaturadoException;
+import com.inventario.exception.StockInsuficienteException;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.Dinero;
+import com.inventario.util.IndiceSku;
+import com.inventario.util.VersionCatalogo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Motor de stock en memoria (app.stock.motor.habilitado). El stock de cada producto vive en una
+ * de N particiones según el hash de su código de barras, y cada partición tiene un único hilo
+ * que la modifica: las comprobaciones y descuentos de stock no bloquean filas en PostgreSQL ni
+ * usan locks en memoria. Dentro de la partición los productos se localizan con un IndiceSku y sus
+ * datos (stock, precio en céntimos, stock mínimo, marcas) viven en arrays primitivos paralelos,
+ * de modo que los recuentos del dashboard recorren arrays sin crear objetos.
+ *
+ * Cada cambio se hace en dos pasos ligados a la transacción del servicio que lo pide:
+ * <ul>
+ *   <li>Al pedirlo se reservan las salidas: se comprueba y descuenta el stock disponible, de
+ *   modo que dos ventas simultáneas no pueden vender la misma unidad.</li>
+ *   <li>Antes del commit las salidas se confirman: pasan al stock confirmado y se anotan en el
+ *   diario de la partición (DiarioStock), que se fuerza a disco antes de seguir. Si la
+ *   transacción no llega a confirmarse, la reserva se libera o la confirmación se revierte.</li>
+ *   <li>Las entradas (recepciones, devoluciones, ajustes positivos) no se aplican hasta después
+ *   del commit: solo entonces se suman al stock disponible y al confirmado y se anotan en el
+ *   diario. Antes nadie puede vender esas unidades.</li>
+ * </ul>
+ * Las ventas pendientes (ReservasStock) retienen stock en el motor: la retención se descuenta del
+ * disponible al pedirla, sin tocar el confirmado ni el diario, de modo que las ventas directas ya
+ * no pueden venderlo. Al confirmar la venta sus líneas pasan al confirmado sin volver a
+ * comprobarse; al cancelarla o vencer se devuelven al disponible. Al arrancar, ReservasStock
+ * vuelve a retener las ventas que siguen pendientes.
+ *
+ * El stock confirmado se vuelca a productos.stock_actual cada
+ * app.stock.motor.intervalo-persistencia-ms, en una sola sentencia y desde un hilo propio (no el
+ * de las tareas @Scheduled, que una tarea larga como el recálculo nocturno puede ocupar), y tras
+ * el volcado se borran los segmentos del diario que cubre. Al arrancar se carga el stock de la base de datos y se
+ * repiten encima los segmentos que no llegaron a volcarse.
+ *
+ * Supone que este proceso es el único que modifica stock_actual: no sirve con varias instancias
+ * del backend. Las consultas que leen el stock en la base de datos (listados filtrados por
+ * stock, reportes) lo ven con el retraso del volcado. Una caída entre el commit y la anotación de
+ * una entrada, o entre la anotación de una salida y el commit, deja el stock por debajo del real,
+ * nunca por encima.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.stock.motor.habilitado", havingValue = "true")
+public class MotorStock {
+
+    /**
+     * Stock de un producto antes y después de un cambio. Con reservas de otras transacciones
+     * aún abiertas, "antes" es el stock disponible en ese momento.
+     */
+    public record Cambio(int anterior, int nuevo) {
+    }
+
+    /**
+     * Recuento de los productos activos: con stock bajo (stock <= mínimo), agotados y valor del
+     * inventario (precio de venta x stock) en céntimos.
+     */
+    public record Resumen(long stockBajo, long agotados, long valorCentimos) {
+
+        public BigDecimal valorInventario() {
+            return Dinero.aBigDecimal(valorCentimos);
+        }
+    }
+
+    // Datos del producto que guarda el motor; el stock solo se usa si aún no lo conocía
+    private record Ficha(int stock, long precioCentimos, int stockMinimo, boolean activo) {
+
+        static Ficha de(Producto producto) {
+            return new Ficha(producto.getStockActual(), Dinero.centimos(producto.getPrecioVenta()),
+                    producto.getStockMinimo(), Boolean.TRUE.equals(producto.getActivo()));
+        }
+    }
+
+    // Cambio pedido para un producto; una salida retenida ya se descontó del disponible al retenerla
+    private record Linea(String codigo, String nombre, Ficha ficha, int cantidad,
+                         boolean hastaCero, boolean retenida, LocalDateTime fechaVenta) {
+    }
+
+    // Cambio ya reservado en su partición, con la cantidad efectiva (con signo)
+    private record Reserva(String codigo, int posicion, int anterior, int cantidad, boolean retenida,
+                           LocalDateTime fechaVenta) {
+    }
+
+    private record Tarea<T>(Function<Particion, T> accion, CompletableFuture<T> resultado) {
+
+        @SuppressWarnings("unchecked")
+        void completar(Object valor) {
+            resultado.complete((T) valor);
+        }
+    }
+
+    private static final VarHandle CONFIRMADO = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final byte ACTIVO = 1;
+    private static final byte PENDIENTE = 2;
+
+    // Stock confirmado pendiente de volcar de una partición y segmento del diario que lo cubre
+    private record Volcado(Particion particion, List<String> codigos, List<Integer> stocks,
+                           List<LocalDateTime> fechas, DiarioStock.Segmento segmento) {
+    }
+
+    private final ProductoRepository productoRepository;
+    private final VersionCatalogo versionCatalogo;
+    private final TransactionTemplate transaccion;
+    private final Path directorio;
+    private final boolean sincronizarDiario;
+    private final long intervaloPersistenciaMs;
+    private final Particion[] particiones;
+    private final ScheduledExecutorService volcador;
+
+    // Segmentos de volcados que fallaron; se borran con el siguiente volcado correcto
+    private final List<DiarioStock.Segmento> segmentosRetenidos = new ArrayList<>();
+
+    private volatile boolean activo = true;
+
+    public MotorStock(ProductoRepository productoRepository, VersionCatalogo versionCatalogo,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${app.stock.motor.particiones:0}") int particiones,
+                      @Value("${app.stock.motor.capacidad-cola:4096}") int capacidadCola,
+                      @Value("${app.stock.motor.directorio-diario:./diario-stock}") String directorio,
+                      @Value("${app.stock.motor.sincronizar-diario:true}") boolean sincronizarDiario,
+                      @Value("${app.stock.motor.intervalo-persistencia-ms:100}") long intervaloPersistenciaMs,
+                      MeterRegistry registry) {
+        this.productoRepository = productoRepository;
+        this.versionCatalogo = versionCatalogo;
+        // Sin readOnly: la carga y los volcados van siempre a la primaria
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.directorio = Paths.get(directorio);
+        this.sincronizarDiario = sincronizarDiario;
+        this.intervaloPersistenciaMs = intervaloPersistenciaMs;
+        this.volcador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "motor-stock-volcado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        int numero = particiones > 0 ? particiones : Runtime.getRuntime().availableProcessors();
+        this.particiones = new Particion[numero];
+        for (int i = 0; i < numero; i++) {
+            this.particiones[i] = new Particion(i, capacidadCola);
+        }
+
+        Gauge.builder("inventario.stock.motor.cola", this, MotorStock::tareasEnCola)
+                .description("Tareas en cola en las particiones del motor de stock")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        Files.createDirectories(directorio);
+
+        List<Object[]> guardado = transaccion.execute(estado -> productoRepository.findFichasStock());
+        for (Object[] fila : guardado) {
+            String codigo = (String) fila[0];
+            particion(codigo).posicion(codigo, new Ficha((Integer) fila[1], Dinero.centimos((BigDecimal) fila[2]),
+                    (Integer) fila[3], Boolean.TRUE.equals(fila[4])));
+        }
+
+        // Cambios confirmados que no llegaron a volcarse antes de parar o caer
+        long siguienteSegmento = 0;
+        int repetidas = 0;
+        for (DiarioStock.Segmento segmento : DiarioStock.segmentos(directorio)) {
+            repetidas += DiarioStock.leer(segmento, (codigo, stock) -> particion(codigo).fijarConfirmado(codigo, stock));
+            segmentosRetenidos.add(segmento);
+            siguienteSegmento = Math.max(siguienteSegmento, segmento.numero() + 1);
+        }
+
+        for (Particion particion : particiones) {
+            particion.diario = DiarioStock.abrir(directorio, particion.numero, siguienteSegmento, sincronizarDiario);
+            particion.hilo.start();
+        }
+        log.info("Motor de stock iniciado: {} productos en {} particiones, {} anotaciones del diario repetidas",
+                guardado.size(), particiones.length, repetidas);
+
+        if (!segmentosRetenidos.isEmpty()) {
+            persistir();
+        }
+        volcador.scheduleWithFixedDelay(this::volcarPeriodicamente, intervaloPersistenciaMs, intervaloPersistenciaMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Deja de aceptar reservas, vuelca lo pendiente y detiene las particiones; lo que se
+    // confirme después queda en el diario para el siguiente arranque
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activo = false;
+        volcador.shutdown();
+        volcador.awaitTermination(30, TimeUnit.SECONDS);
+        persistir();
+        for (Particion particion : particiones) {
+            particion.enviar(Particion::detener, true);
+        }
+        for (Particion particion : particiones) {
+            particion.hilo.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    // Stock confirmado del producto, o el indicado si el motor aún no lo conoce; no pasa por la cola
+    public int stockActual(String codigo, int porDefecto) {
+        return particion(codigo).leerConfirmado(codigo, porDefecto);
+    }
+
+    // Recorre todas las particiones en paralelo, cada una en su hilo
+    public Resumen resumen() {
+        List<CompletableFuture<long[]>> parciales = new ArrayList<>(particiones.length);
+        for (Particion particion : particiones) {
+            parciales.add(particion.enviar(Particion::resumir, true));
+        }
+        long stockBajo = 0;
+        long agotados = 0;
+        long valor = 0;
+        for (CompletableFuture<long[]> parcial : parciales) {
+            long[] cifras = esperar(parcial);
+            stockBajo += cifras[0];
+            agotados += cifras[1];
+            valor = Math.addExact(valor, cifras[2]);
+        }
+        return new Resumen(stockBajo, agotados, valor);
+    }
+
+    /**
+     * Registra un producto nuevo o los cambios de precio, stock mínimo o estado de uno existente
+     * (no su stock). Dentro de una transacción se aplica tras el commit.
+     */
+    public void registrarFicha(Producto producto) {
+        String codigo = producto.getCodigoBarras();
+        Ficha ficha = Ficha.de(producto);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    particion(codigo).enviar(p -> p.fijarFicha(codigo, ficha), true);
+                }
+            });
+        } else {
+            particion(codigo).enviar(p -> p.fijarFicha(codigo, ficha), true);
+        }
+    }
+
+    /**
+     * Descuenta las cantidades vendidas (código, cantidad). Si alguna no tiene stock disponible
+     * lanza StockInsuficienteException y no descuenta ninguna. La fecha de venta se vuelca como
+     * fecha_ultima_venta junto con el stock.
+     */
+    public Map<String, Cambio> descontar(Map<String, Integer> cantidades, Map<String, Producto> productos,
+                                         LocalDateTime fechaVenta) {
+        List<Linea> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((codigo, cantidad) -> lineas.add(linea(productos, codigo, -cantidad, false, false, fechaVenta)));
+        return aplicar(lineas);
+    }
+
+    /**
+     * Descuenta las cantidades de una venta pendiente que se confirma, ya retenidas con
+     * {@link #retener}: pasan al stock confirmado sin comprobar el disponible. Si la transacción
+     * no se confirma siguen retenidas. "Antes" es aquí el stock confirmado.
+     */
+    public Map<String, Cambio> descontarRetenido(Map<String, Integer> cantidades, Map<String, Producto> productos,
+                                                 LocalDateTime fechaVenta) {
+        List<Linea> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((codigo, cantidad) -> lineas.add(linea(productos, codigo, -cantidad, false, true, fechaVenta)));
+        return aplicar(lineas);
+    }
+
+    // Suma las cantidades (código, cantidad) recibidas o devueltas
+    public Map<String, Cambio> sumar(Map<String, Integer> cantidades, Map<String, Producto> productos) {
+        List<Linea> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((codigo, cantidad) -> lineas.add(linea(productos, codigo, cantidad, false, false, null)));
+        return aplicar(lineas);
+    }
+
+    // Retira hasta la cantidad indicada sin bajar de cero (ajustes negativos)
+    public Cambio retirar(Producto producto, int cantidad) {
+        Linea linea = new Linea(producto.getCodigoBarras(), producto.getNombre(), Ficha.de(producto),
+                -cantidad, true, false, null);
+        return aplicar(List.of(linea)).get(producto.getCodigoBarras());
+    }
+
+    /**
+     * Retiene las cantidades (código, cantidad) de una venta pendiente: se comprueban y descuentan
+     * del disponible en la misma tarea que las ventas directas, así que ninguna de las dos puede
+     * tomar unidades de la otra. Si la transacción no se confirma la retención se libera.
+     */
+    public void retener(Map<String, Integer> cantidades, Map<String, Producto> productos) {
+        List<Linea> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((codigo, cantidad) -> lineas.add(linea(productos, codigo, -cantidad, false, false, null)));
+        Map<Particion, List<Reserva>> reservadas = reservar(lineas);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    // Con un commit de resultado desconocido se mantiene: el disponible queda bajo
+                    if (estado == STATUS_ROLLED_BACK) {
+                        reservadas.forEach((particion, reservas) -> particion.enviar(p -> p.liberar(reservas), true));
+                    }
+                }
+            });
+        }
+    }
+
+    // Vuelve a retener al arrancar las ventas que siguen pendientes, sin comprobar el disponible
+    public void restaurarRetencion(Map<String, Integer> cantidades) {
+        List<Linea> lineas = new ArrayList<>(cantidades.size());
+        cantidades.forEach((codigo, cantidad) -> lineas.add(
+                new Linea(codigo, codigo, new Ficha(0, 0, 0, false), -cantidad, true, false, null)));
+        reservar(lineas);
+    }
+
+    /**
+     * Devuelve al disponible las cantidades retenidas por una venta pendiente cancelada o vencida.
+     * Se aplica en el acto: quien llama lo hace cuando la cancelación ya está confirmada.
+     */
+    public void soltar(Map<String, Integer> cantidades) {
+        Map<Particion, Map<String, Integer>> porParticion = new LinkedHashMap<>();
+        cantidades.forEach((codigo, cantidad) ->
+                porParticion.computeIfAbsent(particion(codigo), p -> new LinkedHashMap<>()).put(codigo, cantidad));
+        porParticion.forEach((particion, suyas) -> particion.enviar(p -> p.devolver(suyas), true));
+    }
+
+    /**
+     * Vuelca a la base de datos el stock confirmado desde el último volcado. Si falla, los
+     * productos quedan pendientes para el siguiente y sus segmentos del diario se conservan.
+     */
+    public synchronized void persistir() {
+        List<Volcado> volcados = new ArrayList<>(particiones.length);
+        for (Particion particion : particiones) {
+            Volcado volcado = esperar(particion.enviar(Particion::volcar, true));
+            if (volcado != null) {
+                volcados.add(volcado);
+            }
+        }
+        if (volcados.isEmpty()) {
+            return;
+        }
+
+        List<String> codigos = new ArrayList<>();
+        List<Integer> stocks = new ArrayList<>();
+        List<LocalDateTime> fechas = new ArrayList<>();
+        for (Volcado volcado : volcados) {
+            codigos.addAll(volcado.codigos());
+            stocks.addAll(volcado.stocks());
+            fechas.addAll(volcado.fechas());
+        }
+
+        try {
+            transaccion.executeWithoutResult(estado -> productoRepository.fijarStock(
+                    codigos.toArray(new String[0]),
+                    stocks.toArray(new Integer[0]),
+                    fechas.toArray(new LocalDateTime[0]),
+                    LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo volcar el stock de {} productos; se reintentará", codigos.size(), e);
+            for (Volcado volcado : volcados) {
+                esperar(volcado.particion().enviar(p -> p.marcarPendientes(volcado.codigos()), true));
+                if (volcado.segmento() != null) {
+                    segmentosRetenidos.add(volcado.segmento());
+                }
+            }
+            return;
+        }
+        // El UPDATE nativo no dispara los eventos de Hibernate
+        versionCatalogo.registrarCambio(VersionCatalogo.Seccion.PRODUCTOS);
+
+        for (Volcado volcado : volcados) {
+            if (volcado.segmento() != null) {
+                segmentosRetenidos.add(volcado.segmento());
+            }
+        }
+        for (DiarioStock.Segmento segmento : segmentosRetenidos) {
+            try {
+                Files.deleteIfExists(segmento.ruta());
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el segmento del diario {}", segmento.ruta(), e);
+            }
+        }
+        segmentosRetenidos.clear();
+    }
+
+    // Una excepción que escape cancelaría las ejecuciones siguientes del volcador
+    private void volcarPeriodicamente() {
+        try {
+            persistir();
+        } catch (RuntimeException e) {
+            log.error("Error inesperado al volcar el stock del motor; se reintentará", e);
+        }
+    }
+
+    private Linea linea(Map<String, Producto> productos, String codigo, int cantidad, boolean hastaCero,
+                        boolean retenida, LocalDateTime fechaVenta) {
+        Producto producto = productos.get(codigo);
+        if (producto == null) {
+            throw new ResourceNotFoundException("Producto", "código", codigo);
+        }
+        return new Linea(codigo, producto.getNombre(), Ficha.de(producto), cantidad, hastaCero, retenida, fechaVenta);
+    }
+
+    /**
+     * Reserva las líneas en sus particiones (en paralelo) y liga la confirmación a la
+     * transacción en curso; sin transacción se confirman y se aplican en el acto.
+     */
+    private Map<String, Cambio> aplicar(List<Linea> lineas) {
+        Map<Particion, List<Reserva>> reservadas = reservar(lineas);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            operacionEnCurso().anadir(reservadas);
+        } else {
+            Operacion operacion = new Operacion();
+            operacion.anadir(reservadas);
+            try {
+                operacion.beforeCommit(false);
+            } catch (RuntimeException e) {
+                operacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+                throw e;
+            }
+            operacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        Map<String, Cambio> cambios = new HashMap<>();
+        reservadas.values().forEach(reservas -> reservas.forEach(r ->
+                cambios.put(r.codigo(), new Cambio(r.anterior(), r.anterior() + r.cantidad()))));
+        return cambios;
+    }
+
+    // Reserva las líneas en sus particiones (en paralelo); si alguna falla se liberan todas
+    private Map<Particion, List<Reserva>> reservar(List<Linea> lineas) {
+        Map<Particion, List<Linea>> porParticion = new LinkedHashMap<>();
+        for (Linea linea : lineas) {
+            porParticion.computeIfAbsent(particion(linea.codigo()), p -> new ArrayList<>()).add(linea);
+        }
+
+        Map<Particion, CompletableFuture<List<Reserva>>> pendientes = new LinkedHashMap<>();
+        porParticion.forEach((particion, suyas) -> {
+            CompletableFuture<List<Reserva>> reservas;
+            try {
+                reservas = particion.enviar(p -> p.reservar(suyas), false);
+            } catch (RuntimeException e) {
+                reservas = CompletableFuture.failedFuture(e);
+            }
+            pendientes.put(particion, reservas);
+        });
+
+        Map<Particion, List<Reserva>> reservadas = new LinkedHashMap<>();
+        RuntimeException error = null;
+        for (Map.Entry<Particion, CompletableFuture<List<Reserva>>> pendiente : pendientes.entrySet()) {
+            try {
+                reservadas.put(pendiente.getKey(), esperar(pendiente.getValue()));
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            reservadas.forEach((particion, reservas) -> particion.enviar(p -> p.liberar(reservas), true));
+            throw error;
+        }
+        return reservadas;
+    }
+
+    // Una sola sincronización por transacción, aunque pida varios cambios
+    private Operacion operacionEnCurso() {
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Operacion operacion && operacion.motor() == this) {
+                return operacion;
+            }
+        }
+        Operacion operacion = new Operacion();
+        TransactionSynchronizationManager.registerSynchronization(operacion);
+        return operacion;
+    }
+
+    private Particion particion(String codigo) {
+        return particiones[Math.floorMod(codigo.hashCode(), particiones.length)];
+    }
+
+    private int tareasEnCola() {
+        int tareas = 0;
+        for (Particion particion : particiones) {
+            tareas += particion.cola.size();
+        }
+        return tareas;
+    }
+
+    private static <T> T esperar(CompletableFuture<T> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cambios reservados por una transacción. Las salidas se confirman en beforeCommit, antes del
+     * commit de la base de datos, y si la transacción no se confirma se liberan o se revierten.
+     * Las entradas se aplican en afterCompletion solo si hubo commit. Si no se sabe cómo terminó
+     * el commit (se perdió la conexión) las salidas confirmadas se mantienen y las entradas no se
+     * aplican: el stock puede quedar por debajo del real, pero no por encima.
+     */
+    private final class Operacion implements TransactionSynchronization {
+
+        private final Map<Particion, List<Reserva>> reservas = new LinkedHashMap<>();
+        private final Set<Particion> confirmadas = new HashSet<>();
+
+        MotorStock motor() {
+            return MotorStock.this;
+        }
+
+        void anadir(Map<Particion, List<Reserva>> nuevas) {
+            nuevas.forEach((particion, suyas) ->
+                    reservas.computeIfAbsent(particion, p -> new ArrayList<>()).addAll(suyas));
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Map<Particion, CompletableFuture<Void>> confirmaciones = new LinkedHashMap<>();
+            reservas.forEach((particion, suyas) -> {
+                if (suyas.stream().anyMatch(r -> r.cantidad() < 0)) {
+                    confirmaciones.put(particion, particion.enviar(p -> p.confirmar(suyas), true));
+                }
+            });
+            RuntimeException error = null;
+            for (Map.Entry<Particion, CompletableFuture<Void>> confirmacion : confirmaciones.entrySet()) {
+                try {
+                    esperar(confirmacion.getValue());
+                    confirmadas.add(confirmacion.getKey());
+                } catch (RuntimeException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        @Override
+        public void afterCompletion(int estado) {
+            if (estado == STATUS_COMMITTED) {
+                aplicarEntradas();
+                return;
+            }
+            reservas.forEach((particion, suyas) -> {
+                if (confirmadas.contains(particion)) {
+                    if (estado == STATUS_UNKNOWN) {
+                        log.warn("Commit de resultado desconocido: se mantiene el stock descontado de {} productos",
+                                suyas.size());
+                    } else {
+                        particion.enviar(p -> p.revertir(suyas), true);
+                    }
+                } else {
+                    particion.enviar(p -> p.liberar(suyas), true);
+                }
+            });
+        }
+
+        // Se espera a que se anoten para que la respuesta y las peticiones siguientes ya las vean;
+        // un fallo aquí no deshace el commit: la entrada se pierde del motor y el stock queda bajo
+        private void aplicarEntradas() {
+            Map<Particion, CompletableFuture<Void>> aplicaciones = new LinkedHashMap<>();
+            reservas.forEach((particion, suyas) -> {
+                if (suyas.stream().anyMatch(r -> r.cantidad() > 0)) {
+                    aplicaciones.put(particion, particion.enviar(p -> p.sumarEntradas(suyas), true));
+                }
+            });
+            aplicaciones.forEach((particion, aplicacion) -> {
+                try {
+                    esperar(aplicacion);
+                } catch (RuntimeException e) {
+                    log.error("No se pudieron anotar las entradas de stock confirmadas en la partición {}",
+                            particion.numero, e);
+                }
+            });
+        }
+    }
+
+    private final class Particion implements Runnable {
+
+        final int numero;
+        final BlockingQueue<Tarea<?>> cola;
+        final Thread hilo;
+        final IndiceSku indice = new IndiceSku(1024);
+
+        // Columnas por posición del índice. Solo las escribe el hilo de la partición; confirmado
+        // también se lee desde otros hilos (con CONFIRMADO.getAcquire)
+        int[] disponible = new int[1024];
+        volatile int[] confirmado = new int[1024];
+        long[] precioCentimos = new long[1024];
+        int[] stockMinimo = new int[1024];
+        byte[] marcas = new byte[1024];
+        LocalDateTime[] ultimaVenta = new LocalDateTime[1024];
+
+        // Posiciones con stock confirmado sin volcar a la base de datos (marca PENDIENTE)
+        int[] pendientes = new int[256];
+        int numeroPendientes;
+
+        DiarioStock diario;
+        volatile boolean detenida;
+
+        Particion(int numero, int capacidadCola) {
+            this.numero = numero;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+            this.hilo = new Thread(this, "motor-stock-" + numero);
+        }
+
+        /**
+         * Encola la tarea para el hilo de la partición. Las reservas nuevas se rechazan con 503
+         * si la cola está llena; el resto (confirmaciones, liberaciones, volcados) espera hueco.
+         */
+        <T> CompletableFuture<T> enviar(Function<Particion, T> accion, boolean esperarHueco) {
+            Tarea<T> tarea = new Tarea<>(accion, new CompletableFuture<>());
+            if (detenida) {
+                throw new IllegalStateException("El motor de stock está detenido");
+            }
+            if (!esperarHueco) {
+                if (!activo || !cola.offer(tarea)) {
+                    throw new ServicioSaturadoException("Motor de stock saturado, reintente en unos segundos");
+                }
+                return tarea.resultado();
+            }
+            try {
+                cola.put(tarea);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido al encolar una tarea del motor de stock", e);
+            }
+            return tarea.resultado();
+        }
+
+        @Override
+        public void run() {
+            List<Tarea<?>> lote = new ArrayList<>();
+            Object[] resultados = new Object[0];
+            while (!detenida) {
+                try {
+                    Tarea<?> primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                    if (primera == null) {
+                        continue;
+                    }
+                    lote.add(primera);
+                    cola.drainTo(lote);
+                    if (resultados.length < lote.size()) {
+                        resultados = new Object[lote.size()];
+                    }
+
+                    // Todas las tareas del lote comparten una sola escritura (y un fsync) del diario
+                    for (int i = 0; i < lote.size(); i++) {
+                        try {
+                            resultados[i] = lote.get(i).accion().apply(this);
+                        } catch (RuntimeException e) {
+                            resultados[i] = e;
+                        }
+                    }
+                    RuntimeException errorDiario = null;
+                    try {
+                        diario.sincronizar();
+                    } catch (IOException e) {
+                        log.error("No se pudo escribir el diario de stock de la partición {}", numero, e);
+                        errorDiario = new UncheckedIOException(e);
+                    }
+
+                    for (int i = 0; i < lote.size(); i++) {
+                        Object resultado = resultados[i];
+                        resultados[i] = null;
+                        if (resultado instanceof RuntimeException e) {
+                            lote.get(i).resultado().completeExceptionally(e);
+                        } else if (errorDiario != null) {
+                            lote.get(i).resultado().completeExceptionally(errorDiario);
+                        } else {
+                            lote.get(i).completar(resultado);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    lote.clear();
+                }
+            }
+        }
+
+        // Desde cualquier hilo
+        int leerConfirmado(String codigo, int porDefecto) {
+            int posicion = indice.buscar(codigo);
+            return posicion >= 0 ? (int) CONFIRMADO.getAcquire(confirmado, posicion) : porDefecto;
+        }
+
+        // Posición del producto; si es nuevo se añade con los datos de la ficha
+        int posicion(String codigo, Ficha ficha) {
+            int posicion = indice.buscar(codigo);
+            if (posicion >= 0) {
+                return posicion;
+            }
+            posicion = indice.tamano();
+            if (posicion == disponible.length) {
+                crecer();
+            }
+            disponible[posicion] = ficha.stock();
+            confirmado[posicion] = ficha.stock();
+            fichar(posicion, ficha);
+            // Publica la posición a los demás hilos con los datos ya escritos
+            indice.insertar(codigo);
+            return posicion;
+        }
+
+        // Comprueba y descuenta las salidas; si una no cabe no se aplica ninguna. Las retenidas
+        // ya se descontaron al retenerlas
+        List<Reserva> reservar(List<Linea> lineas) {
+            int[] posiciones = new int[lineas.size()];
+            for (int i = 0; i < lineas.size(); i++) {
+                Linea linea = lineas.get(i);
+                int posicion = posicion(linea.codigo(), linea.ficha());
+                posiciones[i] = posicion;
+                if (linea.cantidad() < 0 && !linea.hastaCero() && !linea.retenida()
+                        && disponible[posicion] < -linea.cantidad()) {
+                    throw new StockInsuficienteException(linea.nombre(), disponible[posicion], -linea.cantidad());
+                }
+            }
+            List<Reserva> reservas = new ArrayList<>(lineas.size());
+            for (int i = 0; i < lineas.size(); i++) {
+                Linea linea = lineas.get(i);
+                int posicion = posiciones[i];
+                if (linea.retenida()) {
+                    reservas.add(new Reserva(linea.codigo(), posicion, confirmado[posicion], linea.cantidad(), true,
+                            linea.fechaVenta()));
+                    continue;
+                }
+                int cantidad = linea.cantidad() < 0 ? -Math.min(disponible[posicion], -linea.cantidad()) : linea.cantidad();
+                reservas.add(new Reserva(linea.codigo(), posicion, disponible[posicion], cantidad, false, linea.fechaVenta()));
+                if (cantidad < 0) {
+                    disponible[posicion] += cantidad;
+                }
+            }
+            return reservas;
+        }
+
+        // Pasa las salidas reservadas al stock confirmado y las anota en el diario
+        Void confirmar(List<Reserva> reservas) {
+            for (Reserva reserva : reservas) {
+                if (reserva.cantidad() >= 0) {
+                    continue;
+                }
+                int posicion = reserva.posicion();
+                LocalDateTime anterior = ultimaVenta[posicion];
+                if (reserva.fechaVenta() != null && (anterior == null || reserva.fechaVenta().isAfter(anterior))) {
+                    ultimaVenta[posicion] = reserva.fechaVenta();
+                }
+                anotar(reserva.codigo(), posicion, confirmado[posicion] + reserva.cantidad());
+            }
+            return null;
+        }
+
+        // Devuelve las salidas reservadas de una transacción que no llegó a confirmarse; las
+        // retenidas siguen retenidas
+        Void liberar(List<Reserva> reservas) {
+            for (Reserva reserva : reservas) {
+                if (reserva.cantidad() < 0 && !reserva.retenida()) {
+                    disponible[reserva.posicion()] -= reserva.cantidad();
+                }
+            }
+            return null;
+        }
+
+        // Devuelve al disponible las unidades de una retención que ya no se va a vender
+        Void devolver(Map<String, Integer> cantidades) {
+            cantidades.forEach((codigo, cantidad) -> {
+                int posicion = indice.buscar(codigo);
+                if (posicion >= 0) {
+                    disponible[posicion] = Math.min(disponible[posicion] + cantidad, confirmado[posicion]);
+                }
+            });
+            return null;
+        }
+
+        // Suma las entradas de una transacción ya confirmada y las anota en el diario
+        Void sumarEntradas(List<Reserva> reservas) {
+            for (Reserva reserva : reservas) {
+                if (reserva.cantidad() <= 0) {
+                    continue;
+                }
+                int posicion = reserva.posicion();
+                disponible[posicion] += reserva.cantidad();
+                anotar(reserva.codigo(), posicion, confirmado[posicion] + reserva.cantidad());
+            }
+            return null;
+        }
+
+        // Deshace la confirmación de las salidas de una transacción que falló en el commit
+        Void revertir(List<Reserva> reservas) {
+            for (Reserva reserva : reservas) {
+                if (reserva.cantidad() >= 0) {
+                    continue;
+                }
+                int posicion = reserva.posicion();
+                if (!reserva.retenida()) {
+                    disponible[posicion] -= reserva.cantidad();
+                }
+                anotar(reserva.codigo(), posicion, confirmado[posicion] - reserva.cantidad());
+            }
+            return null;
+        }
+
+        // Stock confirmado leído del diario al arrancar
+        void fijarConfirmado(String codigo, int stock) {
+            int posicion = posicion(codigo, new Ficha(stock, 0, 0, false));
+            disponible[posicion] = stock;
+            confirmado[posicion] = stock;
+            marcarPendiente(posicion);
+        }
+
+        Void fijarFicha(String codigo, Ficha ficha) {
+            int posicion = indice.buscar(codigo);
+            if (posicion < 0) {
+                posicion(codigo, ficha);
+            } else {
+                fichar(posicion, ficha);
+            }
+            return null;
+        }
+
+        // Stock bajo, agotados y valor en céntimos de los productos activos de la partición
+        long[] resumir() {
+            int[] stock = confirmado;
+            long stockBajo = 0;
+            long agotados = 0;
+            long valor = 0;
+            for (int posicion = 0, total = indice.tamano(); posicion < total; posicion++) {
+                if ((marcas[posicion] & ACTIVO) == 0) {
+                    continue;
+                }
+                int unidades = stock[posicion];
+                if (unidades <= stockMinimo[posicion]) {
+                    stockBajo++;
+                }
+                if (unidades == 0) {
+                    agotados++;
+                }
+                valor = Math.addExact(valor, Dinero.subtotal(precioCentimos[posicion], unidades));
+            }
+            return new long[] {stockBajo, agotados, valor};
+        }
+
+        // Toma el stock pendiente de volcar y cierra el segmento del diario que lo contiene
+        Volcado volcar() {
+            if (numeroPendientes == 0) {
+                return null;
+            }
+            List<String> codigos = new ArrayList<>(numeroPendientes);
+            List<Integer> stocks = new ArrayList<>(numeroPendientes);
+            List<LocalDateTime> fechas = new ArrayList<>(numeroPendientes);
+            for (int i = 0; i < numeroPendientes; i++) {
+                int posicion = pendientes[i];
+                marcas[posicion] &= ~PENDIENTE;
+                codigos.add(indice.codigo(posicion));
+                stocks.add(confirmado[posicion]);
+                fechas.add(ultimaVenta[posicion]);
+            }
+            int volcados = numeroPendientes;
+            numeroPendientes = 0;
+            try {
+                return new Volcado(this, codigos, stocks, fechas, diario.rotar());
+            } catch (IOException e) {
+                for (int i = 0; i < volcados; i++) {
+                    marcarPendiente(pendientes[i]);
+                }
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Void marcarPendientes(Collection<String> codigos) {
+            for (String codigo : codigos) {
+                int posicion = indice.buscar(codigo);
+                if (posicion >= 0) {
+                    marcarPendiente(posicion);
+                }
+            }
+            return null;
+        }
+
+        Void detener() {
+            detenida = true;
+            try {
+                diario.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+
+        private void anotar(String codigo, int posicion, int stock) {
+            CONFIRMADO.setRelease(confirmado, posicion, stock);
+            diario.anotar(codigo, stock);
+            marcarPendiente(posicion);
+        }
+
+        private void marcarPendiente(int posicion) {
+            if ((marcas[posicion] & PENDIENTE) != 0) {
+                return;
+            }
+            marcas[posicion] |= PENDIENTE;
+            if (numeroPendientes == pendientes.length) {
+                pendientes = Arrays.copyOf(pendientes, numeroPendientes * 2);
+            }
+            pendientes[numeroPendientes++] = posicion;
+        }
+
+        private void fichar(int posicion, Ficha ficha) {
+            precioCentimos[posicion] = ficha.precioCentimos();
+            stockMinimo[posicion] = ficha.stockMinimo();
+            marcas[posicion] = (byte) (ficha.activo() ? marcas[posicion] | ACTIVO : marcas[posicion] & ~ACTIVO);
+        }
+
+        // Las columnas crecen antes de publicar la posición nueva; confirmado se reemplaza el
+        // último para que quien la encuentre en el índice lea ya el array nuevo
+        private void crecer() {
+            int capacidad = disponible.length + (disponible.length >> 1);
+            disponible = Arrays.copyOf(disponible, capacidad);
+            precioCentimos = Arrays.copyOf(precioCentimos, capacidad);
+            stockMinimo = Arrays.copyOf(stockMinimo, capacidad);
+            marcas = Arrays.copyOf(marcas, capacidad);
+            ultimaVenta = Arrays.copyOf(ultimaVenta, capacidad);
+            confirmado = Arrays.copyOf(confirmado, capacidad);
+        }
+    }
+}
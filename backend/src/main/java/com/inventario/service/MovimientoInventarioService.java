@@ -1,5 +1,7 @@
 package com.inventario.service;
 
+import com.inventario.config.JornadaComercial;
+import com.inventario.config.LecturaReplica;
 import com.inventario.dto.MovimientoInventarioDTO;
 import com.inventario.entity.MovimientoInventario;
 import com.inventario.entity.Producto;
@@ -16,8 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,12 +30,18 @@ public class MovimientoInventarioService {
 
     private final MovimientoInventarioRepository movimientoRepository;
     private final ProductoRepository productoRepository;
+    private final JornadaComercial jornada;
+    private final Optional<MotorStock> motorStock;
+    private final CerrojosStock cerrojosStock;
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<MovimientoInventarioDTO> listarTodos(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"));
         return movimientoRepository.findAll(pageable).map(this::convertirADTO);
     }
 
+    @Transactional(readOnly = true)
     public List<MovimientoInventarioDTO> listarPorProducto(String codigoBarras) {
         return movimientoRepository.findByProductoCodigoBarrasOrderByFechaHoraDesc(codigoBarras)
                 .stream()
@@ -40,21 +49,26 @@ public class MovimientoInventarioService {
                 .collect(Collectors.toList());
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<MovimientoInventarioDTO> listarPorProductoPaginado(String codigoBarras, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"));
         return movimientoRepository.findByProductoCodigoBarrasOrderByFechaHoraDesc(codigoBarras, pageable)
                 .map(this::convertirADTO);
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<MovimientoInventarioDTO> listarPorFecha(LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(LocalTime.MAX);
-        return movimientoRepository.findByFechaHoraBetween(inicio, fin)
+        JornadaComercial.Rango rango = jornada.dias(fechaInicio, fechaFin);
+        return movimientoRepository.findEnRango(rango.inicio(), rango.fin())
                 .stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<MovimientoInventarioDTO> listarPorTipo(MovimientoInventario.TipoMovimiento tipo) {
         return movimientoRepository.findByTipoMovimientoOrderByFechaHoraDesc(tipo)
                 .stream()
@@ -63,12 +77,27 @@ public class MovimientoInventarioService {
     }
 
     public MovimientoInventarioDTO registrarEntrada(String codigoBarras, Integer cantidad, String motivo) {
+        // Sin motor de stock se modifica la fila: antes se toma su cerrojo
+        if (motorStock.isEmpty()) {
+            cerrojosStock.bloquear(List.of(codigoBarras));
+        }
         Producto producto = productoRepository.findById(codigoBarras)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "código", codigoBarras));
 
-        int stockAnterior = producto.getStockActual();
-        producto.setStockActual(stockAnterior + cantidad);
-        productoRepository.save(producto);
+        int stockAnterior;
+        int stockNuevo;
+        if (motorStock.isPresent()) {
+            MotorStock.Cambio cambio = motorStock.get()
+                    .sumar(Map.of(codigoBarras, cantidad), Map.of(codigoBarras, producto))
+                    .get(codigoBarras);
+            stockAnterior = cambio.anterior();
+            stockNuevo = cambio.nuevo();
+        } else {
+            stockAnterior = producto.getStockActual();
+            producto.setStockActual(stockAnterior + cantidad);
+            productoRepository.save(producto);
+            stockNuevo = producto.getStockActual();
+        }
 
         MovimientoInventario movimiento = MovimientoInventario.builder()
                 .producto(producto)
@@ -77,7 +106,7 @@ public class MovimientoInventarioService {
                 .fechaHora(LocalDateTime.now())
                 .motivo(motivo)
                 .stockAnterior(stockAnterior)
-                .stockNuevo(producto.getStockActual())
+                .stockNuevo(stockNuevo)
                 .build();
 
         movimiento = movimientoRepository.save(movimiento);
@@ -86,13 +115,27 @@ public class MovimientoInventarioService {
 
     public MovimientoInventarioDTO registrarAjuste(String codigoBarras, Integer cantidad,
                                                     String motivo, boolean esPositivo) {
+        // Sin motor de stock se modifica la fila: antes se toma su cerrojo
+        if (motorStock.isEmpty()) {
+            cerrojosStock.bloquear(List.of(codigoBarras));
+        }
         Producto producto = productoRepository.findById(codigoBarras)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "código", codigoBarras));
 
-        int stockAnterior = producto.getStockActual();
-        int nuevoStock = esPositivo ? stockAnterior + cantidad : Math.max(0, stockAnterior - cantidad);
-        producto.setStockActual(nuevoStock);
-        productoRepository.save(producto);
+        int stockAnterior;
+        int nuevoStock;
+        if (motorStock.isPresent()) {
+            MotorStock.Cambio cambio = esPositivo
+                    ? motorStock.get().sumar(Map.of(codigoBarras, cantidad), Map.of(codigoBarras, producto)).get(codigoBarras)
+                    : motorStock.get().retirar(producto, cantidad);
+            stockAnterior = cambio.anterior();
+            nuevoStock = cambio.nuevo();
+        } else {
+            stockAnterior = producto.getStockActual();
+            nuevoStock = esPositivo ? stockAnterior + cantidad : Math.max(0, stockAnterior - cantidad);
+            producto.setStockActual(nuevoStock);
+            productoRepository.save(producto);
+        }
 
         MovimientoInventario movimiento = MovimientoInventario.builder()
                 .producto(producto)
@@ -103,13 +146,14 @@ public class MovimientoInventarioService {
                 .fechaHora(LocalDateTime.now())
                 .motivo(motivo)
                 .stockAnterior(stockAnterior)
-                .stockNuevo(producto.getStockActual())
+                .stockNuevo(nuevoStock)
                 .build();
 
         movimiento = movimientoRepository.save(movimiento);
         return convertirADTO(movimiento);
     }
 
+    @Transactional(readOnly = true)
     public List<MovimientoInventarioDTO> obtenerUltimosMovimientos(int cantidad) {
         Pageable pageable = PageRequest.of(0, cantidad);
         return movimientoRepository.findUltimosMovimientos(pageable)
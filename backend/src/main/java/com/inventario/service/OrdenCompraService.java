@@ -1,28 +1,42 @@
- package com.inventario.service;
+package com.inventario.service;
 
+import com.inventario.config.LecturaReplica;
 import com.inventario.dto.DetalleOrdenCompraDTO;
 import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.RecepcionOrdenDTO;
 import com.inventario.entity.*;
 import com.inventario.exception.BadRequestException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.repository.*;
+import com.inventario.util.Dinero;
+import com.inventario.util.VersionCatalogo;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Observed(name = "inventario.servicio")
 public class OrdenCompraService {
 
     private final OrdenCompraRepository ordenCompraRepository;
@@ -30,24 +44,34 @@ public class OrdenCompraService {
     private final ProveedorRepository proveedorRepository;
     private final ProductoRepository productoRepository;
     private final MovimientoInventarioRepository movimientoRepository;
-
+    private final SugerenciaReposicionRepository sugerenciaRepository;
+    private final CalculadoraReposicion calculadoraReposicion;
+    private final VersionCatalogo versionCatalogo;
+    private final Optional<MotorStock> motorStock;
+    private final CerrojosStock cerrojosStock;
+
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<OrdenCompraDTO> listarTodas(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaOrden"));
         return ordenCompraRepository.findAll(pageable).map(this::convertirADTO);
     }
 
+    @Transactional(readOnly = true)
     public OrdenCompraDTO obtenerPorId(Long id) {
         OrdenCompra orden = ordenCompraRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Orden de compra", "id", id));
         return convertirADTO(orden);
     }
 
+    @Transactional(readOnly = true)
     public List<OrdenCompraDTO> listarPendientes() {
         return ordenCompraRepository.findOrdenesPendientes().stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrdenCompraDTO> listarPorProveedor(Long proveedorId) {
         return ordenCompraRepository.findByProveedorIdOrderByFechaOrdenDesc(proveedorId).stream()
                 .map(this::convertirADTO)
@@ -72,7 +96,7 @@ public class OrdenCompraService {
                 .detalles(new ArrayList<>())
                 .build();
 
-        BigDecimal total = BigDecimal.ZERO;
+        long total = 0;
 
         for (DetalleOrdenCompraDTO detalleDTO : dto.getDetalles()) {
             Producto producto = productoRepository.findById(detalleDTO.getProductoCodigoBarras())
@@ -86,11 +110,11 @@ public class OrdenCompraService {
                     .build();
 
             orden.agregarDetalle(detalle);
-            total = total.add(detalleDTO.getPrecioCompra()
-                    .multiply(BigDecimal.valueOf(detalleDTO.getCantidadSolicitada())));
+            total = Math.addExact(total, Dinero.subtotal(Dinero.centimos(detalleDTO.getPrecioCompra()),
+                    detalleDTO.getCantidadSolicitada()));
         }
 
-        orden.setTotal(total);
+        orden.setTotal(Dinero.aBigDecimal(total));
         orden = ordenCompraRepository.save(orden);
 
         return convertirADTO(orden);
@@ -107,55 +131,146 @@ public class OrdenCompraService {
     }
 
     public OrdenCompraDTO recibirOrden(Long id, List<DetalleOrdenCompraDTO> detallesRecibidos) {
-        OrdenCompra orden = ordenCompraRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Orden de compra", "id", id));
+        RecepcionOrdenDTO recepcion = RecepcionOrdenDTO.builder()
+                .ordenId(id)
+                .detalles(detallesRecibidos)
+                .build();
+        return recibirOrdenes(List.of(recepcion)).get(0);
+    }
 
-        if (orden.getEstado() == OrdenCompra.EstadoOrden.RECIBIDA ||
-            orden.getEstado() == OrdenCompra.EstadoOrden.CANCELADA) {
-            throw new BadRequestException("No se puede recibir una orden " + orden.getEstado().name().toLowerCase());
+    // Recepción de mercancía de una o varias órdenes en una sola transacción
+    public List<OrdenCompraDTO> recibirOrdenes(List<RecepcionOrdenDTO> recepciones) {
+        if (recepciones == null || recepciones.isEmpty()) {
+            throw new BadRequestException("Debe indicar al menos una orden a recibir");
+        }
+        validarRecepciones(recepciones);
+
+        // Bloquear los productos recibidos antes de leer su stock; con el motor de stock no hace
+        // falta, el stock se suma en memoria
+        Set<String> codigos = recepciones.stream()
+                .flatMap(r -> r.getDetalles().stream())
+                .map(DetalleOrdenCompraDTO::getProductoCodigoBarras)
+                .collect(Collectors.toSet());
+        if (motorStock.isEmpty()) {
+            cerrojosStock.bloquear(codigos);
+        }
+        Map<String, Producto> productos = new HashMap<>();
+        Map<String, Integer> stockCorriente = new HashMap<>();
+        for (Producto producto : motorStock.isPresent()
+                ? productoRepository.findAllById(codigos)
+                : productoRepository.findAllParaActualizar(codigos)) {
+            productos.put(producto.getCodigoBarras(), producto);
+            stockCorriente.put(producto.getCodigoBarras(), stockActual(producto));
         }
 
-        boolean todoRecibido = true;
-
-        for (DetalleOrdenCompraDTO detalleDTO : detallesRecibidos) {
-            DetalleOrdenCompra detalle = orden.getDetalles().stream()
-                    .filter(d -> d.getProducto().getCodigoBarras().equals(detalleDTO.getProductoCodigoBarras()))
-                    .findFirst()
-                    .orElseThrow(() -> new BadRequestException("Producto no encontrado en la orden"));
-
-            int cantidadARecibir = detalleDTO.getCantidadRecibida();
-            if (cantidadARecibir > 0) {
-                detalle.setCantidadRecibida(detalle.getCantidadRecibida() + cantidadARecibir);
-
-                // Actualizar stock del producto
-                Producto producto = detalle.getProducto();
-                int stockAnterior = producto.getStockActual();
-                producto.setStockActual(stockAnterior + cantidadARecibir);
-                productoRepository.save(producto);
-
-                // Registrar movimiento
-                MovimientoInventario movimiento = MovimientoInventario.builder()
-                        .producto(producto)
-                        .tipoMovimiento(MovimientoInventario.TipoMovimiento.ENTRADA)
-                        .cantidad(cantidadARecibir)
-                        .fechaHora(LocalDateTime.now())
-                        .motivo("Recepción de orden de compra #" + id)
-                        .stockAnterior(stockAnterior)
-                        .stockNuevo(producto.getStockActual())
-                        .referencia("OC-" + id)
-                        .build();
-                movimientoRepository.save(movimiento);
+        // Cargar todas las órdenes con sus detalles en una sola consulta
+        Set<Long> ids = recepciones.stream()
+                .map(RecepcionOrdenDTO::getOrdenId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, OrdenCompra> ordenes = ordenCompraRepository.findAllConDetallesByIdIn(ids).stream()
+                .collect(Collectors.toMap(OrdenCompra::getId, Function.identity()));
+
+        Map<String, Integer> incrementos = new LinkedHashMap<>();
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        for (RecepcionOrdenDTO recepcion : recepciones) {
+            Long id = recepcion.getOrdenId();
+            OrdenCompra orden = ordenes.get(id);
+            if (orden == null) {
+                throw new ResourceNotFoundException("Orden de compra", "id", id);
+            }
+
+            if (orden.getEstado() == OrdenCompra.EstadoOrden.RECIBIDA ||
+                orden.getEstado() == OrdenCompra.EstadoOrden.CANCELADA) {
+                throw new BadRequestException("No se puede recibir una orden " + orden.getEstado().name().toLowerCase());
             }
 
-            if (detalle.getCantidadRecibida() < detalle.getCantidadSolicitada()) {
-                todoRecibido = false;
+            // Indexar las líneas de la orden por código de barras una sola vez
+            Map<String, DetalleOrdenCompra> detallesPorCodigo = orden.getDetalles().stream()
+                    .collect(Collectors.toMap(d -> d.getProducto().getCodigoBarras(), Function.identity(),
+                            (primero, segundo) -> primero));
+
+            for (DetalleOrdenCompraDTO detalleDTO : recepcion.getDetalles()) {
+                DetalleOrdenCompra detalle = detallesPorCodigo.get(detalleDTO.getProductoCodigoBarras());
+                if (detalle == null) {
+                    throw new BadRequestException("Producto no encontrado en la orden");
+                }
+
+                int cantidadARecibir = detalleDTO.getCantidadRecibida();
+                if (cantidadARecibir > 0) {
+                    detalle.setCantidadRecibida(detalle.getCantidadRecibida() + cantidadARecibir);
+
+                    String codigo = detalle.getProducto().getCodigoBarras();
+                    int stockAnterior = stockCorriente.get(codigo);
+                    stockCorriente.put(codigo, stockAnterior + cantidadARecibir);
+                    incrementos.merge(codigo, cantidadARecibir, Integer::sum);
+
+                    movimientos.add(MovimientoInventario.builder()
+                            .producto(detalle.getProducto())
+                            .tipoMovimiento(MovimientoInventario.TipoMovimiento.ENTRADA)
+                            .cantidad(cantidadARecibir)
+                            .fechaHora(ahora)
+                            .motivo("Recepción de orden de compra #" + id)
+                            .stockAnterior(stockAnterior)
+                            .stockNuevo(stockAnterior + cantidadARecibir)
+                            .referencia("OC-" + id)
+                            .build());
+                }
+            }
+
+            boolean todoRecibido = orden.getDetalles().stream()
+                    .allMatch(d -> d.getCantidadRecibida() >= d.getCantidadSolicitada());
+            orden.setEstado(todoRecibido ? OrdenCompra.EstadoOrden.RECIBIDA : OrdenCompra.EstadoOrden.RECIBIDA_PARCIAL);
+            if (todoRecibido) {
+                orden.setFechaRecepcion(ahora);
             }
         }
 
-        orden.setEstado(todoRecibido ? OrdenCompra.EstadoOrden.RECIBIDA : OrdenCompra.EstadoOrden.RECIBIDA_PARCIAL);
-        orden = ordenCompraRepository.save(orden);
+        movimientoRepository.saveAll(movimientos);
+
+        if (!incrementos.isEmpty() && motorStock.isPresent()) {
+            // El motor suma el stock en memoria y lo vuelca a productos tras el commit
+            motorStock.get().sumar(incrementos, productos);
+        } else if (!incrementos.isEmpty()) {
+            // Un único UPDATE para todo el stock recibido; antes se vuelcan los detalles,
+            // estados y movimientos pendientes como lotes JDBC
+            productoRepository.incrementarStock(
+                    incrementos.keySet().toArray(new String[0]),
+                    incrementos.values().toArray(new Integer[0]),
+                    ahora);
+            // El UPDATE nativo no dispara los eventos de Hibernate
+            versionCatalogo.registrarCambio(VersionCatalogo.Seccion.PRODUCTOS);
+        }
 
-        return convertirADTO(orden);
+        // El UPDATE masivo limpia el contexto de persistencia: recargar para devolver el stock actualizado
+        Map<Long, OrdenCompra> recibidas = ordenCompraRepository.findAllConDetallesByIdIn(ids).stream()
+                .collect(Collectors.toMap(OrdenCompra::getId, Function.identity()));
+        return ids.stream()
+                .map(recibidas::get)
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+    }
+
+    // Las recepciones llegan como lista sin @Valid en cascada: se comprueban aquí antes de bloquear nada
+    private void validarRecepciones(List<RecepcionOrdenDTO> recepciones) {
+        for (RecepcionOrdenDTO recepcion : recepciones) {
+            if (recepcion == null || recepcion.getOrdenId() == null) {
+                throw new BadRequestException("La orden de compra es obligatoria");
+            }
+            if (recepcion.getDetalles() == null || recepcion.getDetalles().isEmpty()) {
+                throw new BadRequestException("La recepción debe tener al menos un producto");
+            }
+            for (DetalleOrdenCompraDTO detalle : recepcion.getDetalles()) {
+                if (detalle == null || detalle.getProductoCodigoBarras() == null
+                        || detalle.getProductoCodigoBarras().isBlank()) {
+                    throw new BadRequestException("El código del producto es obligatorio");
+                }
+                if (detalle.getCantidadRecibida() == null || detalle.getCantidadRecibida() < 0) {
+                    throw new BadRequestException("La cantidad recibida es obligatoria y no puede ser negativa");
+                }
+            }
+        }
     }
 
     public OrdenCompraDTO cancelar(Long id) {
@@ -172,30 +287,34 @@ public class OrdenCompraService {
         return convertirADTO(orden);
     }
 
-    // Generar orden sugerida basada en productos con stock bajo
+    /**
+     * Genera una orden sugerida a partir de las sugerencias de reposición. Antes se calculan en
+     * modo incremental las que faltan o han quedado viejas (base de datos recién creada, productos
+     * nuevos o cambiados de proveedor desde el cálculo nocturno). Sin transacción propia: no se
+     * retiene una conexión mientras se espera al cálculo, que usa la suya.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrdenCompraDTO generarOrdenSugerida(Long proveedorId) {
         Proveedor proveedor = proveedorRepository.findById(proveedorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Proveedor", "id", proveedorId));
-
-        List<Producto> productosStockBajo = productoRepository.findProductosStockBajo().stream()
-                .filter(p -> p.getProveedor() != null && p.getProveedor().getId().equals(proveedorId))
+        calculadoraReposicion.recalcularProveedor(proveedorId, false).join();
+
+        List<DetalleOrdenCompraDTO> detalles = sugerenciaRepository.findPendientesByProveedorId(proveedorId).stream()
+                .filter(s -> s.calcularCantidadSugerida() > 0)
+                .map(s -> DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(s.getProducto().getCodigoBarras())
+                        .productoNombre(s.getProducto().getNombre())
+                        .cantidadSolicitada(s.calcularCantidadSugerida())
+                        .stockActual(stockActual(s.getProducto()))
+                        .stockMinimo(s.getProducto().getStockMinimo())
+                        .precioCompra(s.getPrecioCompra())
+                        .build())
                 .collect(Collectors.toList());
 
-        if (productosStockBajo.isEmpty()) {
+        if (detalles.isEmpty()) {
             throw new BadRequestException("No hay productos con stock bajo para este proveedor");
         }
 
-        List<DetalleOrdenCompraDTO> detalles = productosStockBajo.stream()
-                .map(p -> DetalleOrdenCompraDTO.builder()
-                        .productoCodigoBarras(p.getCodigoBarras())
-                        .productoNombre(p.getNombre())
-                        .cantidadSolicitada(p.getStockMinimo() * 2 - p.getStockActual()) // Sugerencia: completar al doble del mínimo
-                        .stockActual(p.getStockActual())
-                        .stockMinimo(p.getStockMinimo())
-                        .precioCompra(p.getPrecioVenta().multiply(BigDecimal.valueOf(0.7))) // Estimación: 70% del precio de venta
-                        .build())
-                .collect(Collectors.toList());
-
         return OrdenCompraDTO.builder()
                 .proveedorId(proveedorId)
                 .proveedorNombre(proveedor.getNombre())
@@ -203,10 +322,17 @@ public class OrdenCompraService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public Long contarPendientes() {
         return ordenCompraRepository.countOrdenesPendientes();
     }
 
+    // Con el motor de stock el valor en memoria va por delante del volcado a la base de datos
+    private int stockActual(Producto producto) {
+        return motorStock.map(motor -> motor.stockActual(producto.getCodigoBarras(), producto.getStockActual()))
+                .orElse(producto.getStockActual());
+    }
+
     private OrdenCompraDTO convertirADTO(OrdenCompra orden) {
         List<DetalleOrdenCompraDTO> detalles = orden.getDetalles().stream()
                 .map(d -> DetalleOrdenCompraDTO.builder()
@@ -216,7 +342,7 @@ public class OrdenCompraService {
                         .cantidadSolicitada(d.getCantidadSolicitada())
                         .cantidadRecibida(d.getCantidadRecibida())
                         .precioCompra(d.getPrecioCompra())
-                        .stockActual(d.getProducto().getStockActual())
+                        .stockActual(stockActual(d.getProducto()))
                         .stockMinimo(d.getProducto().getStockMinimo())
                         .build())
                 .collect(Collectors.toList());
@@ -234,96 +360,3 @@ public class OrdenCompraService {
                 .build();
     }
 }
-package com.inventario.service;
-
-import com.inventario.dto.CategoriaDTO;
-import com.inventario.entity.Categoria;
-import com.inventario.exception.DuplicateResourceException;
-import com.inventario.exception.ResourceNotFoundException;
-import com.inventario.repository.CategoriaRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
-import java.util.stream.Collectors;
-
-@Service
-@RequiredArgsConstructor
-@Transactional
-public class CategoriaService {
-
-    private final CategoriaRepository categoriaRepository;
-
-    public List<CategoriaDTO> listarTodas() {
-        return categoriaRepository.findByActivoTrue().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
-    }
-
-    public CategoriaDTO obtenerPorId(Long id) {
-        Categoria categoria = categoriaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
-        return convertirADTO(categoria);
-    }
-
-    public CategoriaDTO crear(CategoriaDTO dto) {
-        if (categoriaRepository.existsByNombreIgnoreCase(dto.getNombre())) {
-            throw new DuplicateResourceException("Categoría", "nombre", dto.getNombre());
-        }
-
-        Categoria categoria = Categoria.builder()
-                .nombre(dto.getNombre())
-                .descripcion(dto.getDescripcion())
-                .activo(true)
-                .build();
-
-        categoria = categoriaRepository.save(categoria);
-        return convertirADTO(categoria);
-    }
-
-    public CategoriaDTO actualizar(Long id, CategoriaDTO dto) {
-        Categoria categoria = categoriaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
-
-        // Verificar si ya existe otra categoría con el mismo nombre
-        categoriaRepository.findByNombreIgnoreCase(dto.getNombre())
-                .ifPresent(c -> {
-                    if (!c.getId().equals(id)) {
-                        throw new DuplicateResourceException("Categoría", "nombre", dto.getNombre());
-                    }
-                });
-
-        categoria.setNombre(dto.getNombre());
-        categoria.setDescripcion(dto.getDescripcion());
-
-        categoria = categoriaRepository.save(categoria);
-        return convertirADTO(categoria);
-    }
-
-    public void eliminar(Long id) {
-        Categoria categoria = categoriaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
-
-        // Eliminación lógica
-        categoria.setActivo(false);
-        categoriaRepository.save(categoria);
-    }
-
-    public List<CategoriaDTO> buscarPorNombre(String nombre) {
-        return categoriaRepository.buscarPorNombre(nombre).stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
-    }
-
-    private CategoriaDTO convertirADTO(Categoria categoria) {
-        return CategoriaDTO.builder()
-                .id(categoria.getId())
-                .nombre(categoria.getNombre())
-                .descripcion(categoria.getDescripcion())
-                .activo(categoria.getActivo())
-                .cantidadProductos((long) categoria.getProductos().size())
-                .build();
-    }
-}
-
@@ -1,34 +1,44 @@
 package com.inventario.service;
 
+import com.inventario.config.LecturaReplica;
 import com.inventario.dto.ProductoBusquedaDTO;
 import com.inventario.dto.ProductoDTO;
 import com.inventario.entity.Categoria;
 import com.inventario.entity.MovimientoInventario;
 import com.inventario.entity.Producto;
 import com.inventario.entity.Proveedor;
+import com.inventario.exception.BadRequestException;
 import com.inventario.exception.DuplicateResourceException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.repository.CategoriaRepository;
 import com.inventario.repository.MovimientoInventarioRepository;
 import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ProductoRepositoryCustom;
 import com.inventario.repository.ProveedorRepository;
 import com.inventario.util.BarcodeGenerator;
+import com.inventario.util.VersionCatalogo;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Observed(name = "inventario.servicio")
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
@@ -36,19 +46,52 @@ public class ProductoService {
     private final ProveedorRepository proveedorRepository;
     private final MovimientoInventarioRepository movimientoRepository;
     private final BarcodeGenerator barcodeGenerator;
+    private final VersionCatalogo versionCatalogo;
+    private final Optional<MotorStock> motorStock;
+    private final CerrojosStock cerrojosStock;
+    private final ReservasStock reservasStock;
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<ProductoDTO> listarTodos(int page, int size, String sortBy, String sortDirection) {
         Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         return productoRepository.findByActivoTrue(pageable).map(this::convertirADTO);
     }
 
+    // Listado con proyección parcial (?fields=): el SELECT solo lee las columnas de los campos pedidos
+    @LecturaReplica
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> listarCampos(List<String> campos, int page, int size,
+                                                  String sortBy, String sortDirection) {
+        List<String> desconocidos = campos.stream()
+                .filter(campo -> !ProductoRepositoryCustom.CAMPOS_PROYECTABLES.contains(campo))
+                .collect(Collectors.toList());
+        if (!desconocidos.isEmpty()) {
+            throw new BadRequestException("Campos no válidos en fields: " + String.join(", ", desconocidos));
+        }
+        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
+        return productoRepository.findCamposActivos(campos, PageRequest.of(page, size, sort));
+    }
+
+    @Transactional(readOnly = true)
     public ProductoDTO obtenerPorCodigoBarras(String codigoBarras) {
         Producto producto = productoRepository.findById(codigoBarras)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "código de barras", codigoBarras));
         return convertirADTO(producto);
     }
 
+    // ETag del detalle: fecha de modificación del producto y stock retenido (stockDisponible) más
+    // las versiones de categorías y proveedores, cuyos nombres forman parte del DTO
+    @Transactional(readOnly = true)
+    public String etagProducto(String codigoBarras) {
+        LocalDateTime modificado = productoRepository.findFechaModificacion(codigoBarras)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto", "código de barras", codigoBarras));
+        long micros = modificado.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + modificado.getNano() / 1_000;
+        return versionCatalogo.etag("producto-" + Long.toString(micros, 36) + "-" + reservasStock.retenido(codigoBarras),
+                VersionCatalogo.Seccion.CATEGORIAS, VersionCatalogo.Seccion.PROVEEDORES);
+    }
+
     public ProductoDTO crear(ProductoDTO dto) {
         // Si no tiene código de barras, generar uno automáticamente
         String codigoBarras = dto.getCodigoBarras();
@@ -92,11 +135,14 @@ public class ProductoService {
         }
 
         producto = productoRepository.save(producto);
+        if (motorStock.isPresent()) {
+            motorStock.get().registrarFicha(producto);
+        }
 
         // Registrar movimiento de entrada inicial si hay stock
         if (producto.getStockActual() > 0) {
             registrarMovimiento(producto, MovimientoInventario.TipoMovimiento.ENTRADA,
-                    producto.getStockActual(), "Stock inicial al crear producto", null);
+                    producto.getStockActual(), 0, producto.getStockActual(), "Stock inicial al crear producto", null);
         }
 
         return convertirADTO(producto);
@@ -135,6 +181,9 @@ public class ProductoService {
         }
 
         producto = productoRepository.save(producto);
+        if (motorStock.isPresent()) {
+            motorStock.get().registrarFicha(producto);
+        }
         return convertirADTO(producto);
     }
 
@@ -144,33 +193,44 @@ public class ProductoService {
 
         producto.setActivo(false);
         productoRepository.save(producto);
+        motorStock.ifPresent(motor -> motor.registrarFicha(producto));
     }
 
     public ProductoDTO ajustarStock(String codigoBarras, Integer cantidad, String motivo, boolean esEntrada) {
+        // Sin motor de stock se modifica la fila: antes se toma su cerrojo
+        if (motorStock.isEmpty()) {
+            cerrojosStock.bloquear(List.of(codigoBarras));
+        }
         Producto producto = productoRepository.findById(codigoBarras)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "código de barras", codigoBarras));
 
-        int stockAnterior = producto.getStockActual();
+        MovimientoInventario.TipoMovimiento tipo = esEntrada
+                ? MovimientoInventario.TipoMovimiento.ENTRADA
+                : MovimientoInventario.TipoMovimiento.AJUSTE_NEGATIVO;
+        int stockAnterior;
         int nuevoStock;
-        MovimientoInventario.TipoMovimiento tipo;
 
-        if (esEntrada) {
-            nuevoStock = stockAnterior + cantidad;
-            tipo = MovimientoInventario.TipoMovimiento.ENTRADA;
+        if (motorStock.isPresent()) {
+            MotorStock.Cambio cambio = esEntrada
+                    ? motorStock.get().sumar(Map.of(codigoBarras, cantidad), Map.of(codigoBarras, producto)).get(codigoBarras)
+                    : motorStock.get().retirar(producto, cantidad);
+            stockAnterior = cambio.anterior();
+            nuevoStock = cambio.nuevo();
         } else {
-            nuevoStock = Math.max(0, stockAnterior - cantidad);
-            tipo = MovimientoInventario.TipoMovimiento.AJUSTE_NEGATIVO;
+            stockAnterior = producto.getStockActual();
+            nuevoStock = esEntrada ? stockAnterior + cantidad : Math.max(0, stockAnterior - cantidad);
+            producto.setStockActual(nuevoStock);
+            producto = productoRepository.save(producto);
         }
 
-        producto.setStockActual(nuevoStock);
-        producto = productoRepository.save(producto);
-
-        registrarMovimiento(producto, tipo, cantidad, motivo, null);
+        registrarMovimiento(producto, tipo, cantidad, stockAnterior, nuevoStock, motivo, null);
 
         return convertirADTO(producto);
     }
 
     // Búsqueda avanzada
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<ProductoDTO> busquedaAvanzada(ProductoBusquedaDTO filtros) {
         Sort.Direction direction = Sort.Direction.fromString(filtros.getSortDirection());
         Pageable pageable = PageRequest.of(filtros.getPage(), filtros.getSize(),
@@ -199,6 +259,8 @@ public class ProductoService {
     }
 
     // Búsqueda general para autocompletado
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<ProductoDTO> busquedaGeneral(String texto) {
         Pageable pageable = PageRequest.of(0, 10);
         return productoRepository.busquedaGeneral(texto, pageable).stream()
@@ -207,6 +269,8 @@ public class ProductoService {
     }
 
     // Productos con stock bajo
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<ProductoDTO> obtenerProductosStockBajo() {
         return productoRepository.findProductosStockBajo().stream()
                 .map(this::convertirADTO)
@@ -214,6 +278,8 @@ public class ProductoService {
     }
 
     // Productos agotados
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<ProductoDTO> obtenerProductosAgotados() {
         return productoRepository.findProductosAgotados().stream()
                 .map(this::convertirADTO)
@@ -221,6 +287,8 @@ public class ProductoService {
     }
 
     // Autocompletado de marcas
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<String> autocompletarMarcas(String texto) {
         return productoRepository.findMarcasAutocomplete(texto).stream()
                 .limit(10)
@@ -228,6 +296,8 @@ public class ProductoService {
     }
 
     // Autocompletado de modelos
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<String> autocompletarModelos(String texto) {
         return productoRepository.findModelosAutocomplete(texto).stream()
                 .limit(10)
@@ -235,6 +305,7 @@ public class ProductoService {
     }
 
     // Generar código de barras
+    @Transactional(readOnly = true)
     public String generarCodigoBarras() {
         String codigo;
         do {
@@ -243,31 +314,36 @@ public class ProductoService {
         return codigo;
     }
 
-    // Generar imagen de código de barras
+    // Generar imagen de código de barras (no accede a la base de datos)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String generarImagenCodigoBarras(String codigo) {
         return barcodeGenerator.generarImagenCodigoBarras(codigo);
     }
 
     // Contadores
+    @Transactional(readOnly = true)
     public Long contarProductosStockBajo() {
-        return productoRepository.countProductosStockBajo();
+        return motorStock.map(motor -> motor.resumen().stockBajo())
+                .orElseGet(productoRepository::countProductosStockBajo);
     }
 
+    @Transactional(readOnly = true)
     public Long contarProductosAgotados() {
-        return productoRepository.countProductosAgotados();
+        return motorStock.map(motor -> motor.resumen().agotados())
+                .orElseGet(productoRepository::countProductosAgotados);
     }
 
     // Método auxiliar para registrar movimientos
-    private void registrarMovimiento(Producto producto, MovimientoInventario.TipoMovimiento tipo,
-                                     Integer cantidad, String motivo, String referencia) {
+    private void registrarMovimiento(Producto producto, MovimientoInventario.TipoMovimiento tipo, Integer cantidad,
+                                     int stockAnterior, int stockNuevo, String motivo, String referencia) {
         MovimientoInventario movimiento = MovimientoInventario.builder()
                 .producto(producto)
                 .tipoMovimiento(tipo)
                 .cantidad(cantidad)
                 .fechaHora(LocalDateTime.now())
                 .motivo(motivo)
-                .stockAnterior(producto.getStockActual() - (tipo == MovimientoInventario.TipoMovimiento.ENTRADA ? cantidad : -cantidad))
-                .stockNuevo(producto.getStockActual())
+                .stockAnterior(stockAnterior)
+                .stockNuevo(stockNuevo)
                 .referencia(referencia)
                 .build();
 
@@ -275,6 +351,11 @@ public class ProductoService {
     }
 
     private ProductoDTO convertirADTO(Producto producto) {
+        // Con el motor de stock el valor en memoria va por delante del volcado a la base de datos
+        int stockActual = motorStock
+                .map(motor -> motor.stockActual(producto.getCodigoBarras(), producto.getStockActual()))
+                .orElse(producto.getStockActual());
+
         ProductoDTO dto = ProductoDTO.builder()
                 .codigoBarras(producto.getCodigoBarras())
                 .codigoInterno(producto.getCodigoInterno())
@@ -283,15 +364,16 @@ public class ProductoService {
                 .marca(producto.getMarca())
                 .modeloCompatible(producto.getModeloCompatible())
                 .precioVenta(producto.getPrecioVenta())
-                .stockActual(producto.getStockActual())
+                .stockActual(stockActual)
+                .stockDisponible(Math.max(0, stockActual - reservasStock.retenido(producto.getCodigoBarras())))
                 .stockMinimo(producto.getStockMinimo())
                 .fechaIngreso(producto.getFechaIngreso())
                 .fechaUltimaVenta(producto.getFechaUltimaVenta())
                 .ubicacion(producto.getUbicacion())
                 .imagenUrl(producto.getImagenUrl())
                 .activo(producto.getActivo())
-                .stockBajo(producto.isStockBajo())
-                .agotado(producto.isAgotado())
+                .stockBajo(stockActual <= producto.getStockMinimo())
+                .agotado(stockActual == 0)
                 .fechaCreacion(producto.getFechaCreacion())
                 .fechaActualizacion(producto.getFechaActualizacion())
                 .build();
@@ -5,11 +5,15 @@ import com.inventario.entity.Proveedor;
 import com.inventario.exception.DuplicateResourceException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.repository.ProveedorRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.ValorVersionado;
+import com.inventario.util.VersionCatalogo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,13 +22,18 @@ import java.util.stream.Collectors;
 public class ProveedorService {
 
     private final ProveedorRepository proveedorRepository;
+    private final ProductoRepository productoRepository;
+    private final VersionCatalogo versionCatalogo;
 
+    // Productos por proveedor (id, cantidad); la versión de PROVEEDORES cambia al crear, borrar o reasignar un producto
+    private final ValorVersionado<Map<Long, Long>> cantidadesProductos = new ValorVersionado<>();
+
+    @Transactional(readOnly = true)
     public List<ProveedorDTO> listarTodos() {
-        return proveedorRepository.findByActivoTrue().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return convertirListaADTO(proveedorRepository.findByActivoTrue());
     }
 
+    @Transactional(readOnly = true)
     public ProveedorDTO obtenerPorId(Long id) {
         Proveedor proveedor = proveedorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Proveedor", "id", id));
@@ -86,20 +95,37 @@ public class ProveedorService {
         proveedorRepository.save(proveedor);
     }
 
+    @Transactional(readOnly = true)
     public List<ProveedorDTO> buscarPorNombre(String nombre) {
-        return proveedorRepository.buscarPorNombre(nombre).stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        return convertirListaADTO(proveedorRepository.buscarPorNombre(nombre));
     }
 
+    @Transactional(readOnly = true)
     public List<ProveedorDTO> autocompletar(String texto) {
-        return proveedorRepository.buscarPorNombreORuc(texto).stream()
+        return convertirListaADTO(proveedorRepository.buscarPorNombreORuc(texto).stream()
                 .limit(10)
-                .map(this::convertirADTO)
+                .collect(Collectors.toList()));
+    }
+
+    private List<ProveedorDTO> convertirListaADTO(List<Proveedor> proveedores) {
+        Map<Long, Long> cantidades = cantidadesProductos();
+        return proveedores.stream()
+                .map(p -> convertirADTO(p, cantidades.getOrDefault(p.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
     private ProveedorDTO convertirADTO(Proveedor proveedor) {
+        return convertirADTO(proveedor, cantidadesProductos().getOrDefault(proveedor.getId(), 0L));
+    }
+
+    // Una sola consulta agrupada, repetida solo cuando cambian los productos de algún proveedor
+    private Map<Long, Long> cantidadesProductos() {
+        return cantidadesProductos.obtener(versionCatalogo.version(VersionCatalogo.Seccion.PROVEEDORES), () ->
+                productoRepository.contarPorProveedor().stream()
+                        .collect(Collectors.toMap(fila -> (Long) fila[0], fila -> (Long) fila[1])));
+    }
+
+    private ProveedorDTO convertirADTO(Proveedor proveedor, long cantidadProductos) {
         return ProveedorDTO.builder()
                 .id(proveedor.getId())
                 .nombre(proveedor.getNombre())
@@ -110,7 +136,7 @@ public class ProveedorService {
                 .contactoPrincipal(proveedor.getContactoPrincipal())
                 .productosSuministra(proveedor.getProductosSuministra())
                 .activo(proveedor.getActivo())
-                .cantidadProductos((long) proveedor.getProductos().size())
+                .cantidadProductos(cantidadProductos)
                 .build();
     }
 }
@@ -0,0 +1,279 @@
+package com.inventario.service;
+
+import com.inventario.config.JornadaComercial;
+import com.inventario.config.LecturaReplica;
+import com.inventario.dto.*;
+import com.inventario.entity.Producto;
+import com.inventario.repository.*;
+import com.inventario.util.Dinero;
+import com.inventario.util.PdfGenerator;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@LecturaReplica
+@Observed(name = "inventario.servicio")
+public class ReporteService {
+
+    private final ProductoRepository productoRepository;
+    private final VentaRepository ventaRepository;
+    private final DetalleVentaRepository detalleVentaRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final PdfGenerator pdfGenerator;
+    private final PlatformTransactionManager transactionManager;
+    private final JornadaComercial jornada;
+    private final ContadorVentasHoy contadorVentasHoy;
+    private final Optional<MotorStock> motorStock;
+
+    public DashboardDTO obtenerDashboard() {
+        // Estadísticas de productos
+        long totalProductos = productoRepository.count();
+        // Con el motor de stock los recuentos salen de sus arrays en memoria, al día sin esperar al volcado
+        MotorStock.Resumen resumen = motorStock.map(MotorStock::resumen).orElse(null);
+        long productosStockBajo = resumen != null ? resumen.stockBajo() : productoRepository.countProductosStockBajo();
+        long productosAgotados = resumen != null ? resumen.agotados() : productoRepository.countProductosAgotados();
+
+        // Estadísticas de ventas de la jornada en curso (contador en memoria)
+        long ventasHoy = contadorVentasHoy.ventas();
+        BigDecimal totalVentasHoy = contadorVentasHoy.total();
+        LocalDate fechaHoy = jornada.fechaActual();
+
+        // Ventas de la semana
+        JornadaComercial.Rango semana = jornada.dias(fechaHoy.minusDays(7), fechaHoy);
+        BigDecimal totalVentasSemana = ventaRepository.sumTotalVentasByFecha(semana.inicio(), semana.fin());
+
+        // Ventas del mes
+        JornadaComercial.Rango mes = jornada.dias(fechaHoy.withDayOfMonth(1), fechaHoy);
+        BigDecimal totalVentasMes = ventaRepository.sumTotalVentasByFecha(mes.inicio(), mes.fin());
+
+        // Valor del inventario
+        BigDecimal valorInventario = resumen != null ? resumen.valorInventario() : productoRepository.sumValorInventario();
+
+        // Productos más vendidos (últimos 30 días)
+        LocalDateTime hace30Dias = LocalDateTime.now().minusDays(30);
+        List<Object[]> masVendidos = detalleVentaRepository.findProductosMasVendidosPorPeriodo(
+                hace30Dias, LocalDateTime.now());
+        List<ProductoMasVendidoDTO> productosMasVendidos = masVendidos.stream()
+                .limit(5)
+                .map(obj -> ProductoMasVendidoDTO.builder()
+                        .codigoBarras((String) obj[0])
+                        .nombre((String) obj[1])
+                        .cantidadVendida(((Number) obj[2]).longValue())
+                        .build())
+                .collect(Collectors.toList());
+
+        // Productos con stock crítico
+        List<ProductoDTO> productosStockCritico = productoRepository.findProductosStockBajo()
+                .stream()
+                .limit(10)
+                .map(this::convertirProductoADTO)
+                .collect(Collectors.toList());
+
+        return DashboardDTO.builder()
+                .totalProductos(totalProductos)
+                .productosStockBajo(productosStockBajo)
+                .productosAgotados(productosAgotados)
+                .ventasHoy(ventasHoy)
+                .totalVentasHoy(totalVentasHoy)
+                .totalVentasSemana(totalVentasSemana != null ? totalVentasSemana : BigDecimal.ZERO)
+                .totalVentasMes(totalVentasMes != null ? totalVentasMes : BigDecimal.ZERO)
+                .valorInventario(valorInventario)
+                .productosMasVendidos(productosMasVendidos)
+                .productosStockCritico(productosStockCritico)
+                .build();
+    }
+
+    public ReporteInventarioDTO generarReporteInventario() {
+        List<Producto> productos = productoRepository.findByActivoTrue();
+
+        long totalProductos = productos.size();
+        long productosConStock = 0;
+        long productosAgotados = 0;
+        long productosStockBajo = 0;
+        long centimosTotal = 0;
+
+        // Una sola pasada con importes en céntimos; por categoría: productos, unidades y céntimos
+        Map<Long, long[]> porCategoria = new HashMap<>();
+        for (Producto p : productos) {
+            int stock = p.getStockActual();
+            if (stock > 0) {
+                productosConStock++;
+            } else if (stock == 0) {
+                productosAgotados++;
+            }
+            if (p.isStockBajo()) {
+                productosStockBajo++;
+            }
+            long valor = Dinero.subtotal(Dinero.centimos(p.getPrecioVenta()), stock);
+            centimosTotal = Math.addExact(centimosTotal, valor);
+
+            if (p.getCategoria() != null) {
+                long[] acumulado = porCategoria.computeIfAbsent(p.getCategoria().getId(), id -> new long[3]);
+                acumulado[0]++;
+                acumulado[1] += stock;
+                acumulado[2] = Math.addExact(acumulado[2], valor);
+            }
+        }
+        BigDecimal valorTotal = Dinero.aBigDecimal(centimosTotal);
+
+        // Inventario por categoría
+        List<InventarioPorCategoriaDTO> inventarioPorCategoria = categoriaRepository.findByActivoTrue()
+                .stream()
+                .filter(cat -> porCategoria.containsKey(cat.getId()))
+                .map(cat -> {
+                    long[] acumulado = porCategoria.get(cat.getId());
+                    return InventarioPorCategoriaDTO.builder()
+                            .categoriaId(cat.getId())
+                            .categoriaNombre(cat.getNombre())
+                            .cantidadProductos(acumulado[0])
+                            .totalUnidades(acumulado[1])
+                            .valorTotal(Dinero.aBigDecimal(acumulado[2]))
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        return ReporteInventarioDTO.builder()
+                .totalProductos(totalProductos)
+                .productosConStock(productosConStock)
+                .productosAgotados(productosAgotados)
+                .productosStockBajo(productosStockBajo)
+                .valorTotalInventario(valorTotal)
+                .inventarioPorCategoria(inventarioPorCategoria)
+                .build();
+    }
+
+    public ReporteVentasDTO generarReporteVentas(LocalDate fechaInicio, LocalDate fechaFin) {
+        JornadaComercial.Rango rango = jornada.dias(fechaInicio, fechaFin);
+        LocalDateTime inicio = rango.inicio();
+        LocalDateTime fin = rango.fin();
+
+        BigDecimal totalVentas = ventaRepository.sumTotalVentasByFecha(inicio, fin);
+        if (totalVentas == null) totalVentas = BigDecimal.ZERO;
+
+        // Agrupadas por jornada comercial, la misma que delimita el rango
+        List<Object[]> ventasDiariasRaw = ventaRepository.getVentasDiarias(
+                jornada.inicios(fechaInicio, fechaFin), inicio, fin);
+        List<VentaDiariaDTO> ventasDiarias = ventasDiariasRaw.stream()
+                .map(obj -> VentaDiariaDTO.builder()
+                        .fecha(fechaInicio.plusDays(((Number) obj[0]).longValue() - 1))
+                        .total((BigDecimal) obj[1])
+                        .cantidadVentas(((Number) obj[2]).longValue())
+                        .build())
+                .collect(Collectors.toList());
+
+        long cantidadVentas = ventaRepository.countEnRango(inicio, fin);
+
+        // Productos más vendidos en el período
+        List<Object[]> masVendidos = detalleVentaRepository.findProductosMasVendidosPorPeriodo(inicio, fin);
+        List<ProductoMasVendidoDTO> productosMasVendidos = masVendidos.stream()
+                .limit(10)
+                .map(obj -> ProductoMasVendidoDTO.builder()
+                        .codigoBarras((String) obj[0])
+                        .nombre((String) obj[1])
+                        .cantidadVendida(((Number) obj[2]).longValue())
+                        .build())
+                .collect(Collectors.toList());
+
+        long cantidadProductosVendidos = productosMasVendidos.stream()
+                .mapToLong(ProductoMasVendidoDTO::getCantidadVendida)
+                .sum();
+
+        BigDecimal promedioVenta = cantidadVentas > 0
+                ? totalVentas.divide(BigDecimal.valueOf(cantidadVentas), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return ReporteVentasDTO.builder()
+                .fechaInicio(fechaInicio)
+                .fechaFin(fechaFin)
+                .totalVentas(totalVentas)
+                .cantidadVentas(cantidadVentas)
+                .cantidadProductosVendidos(cantidadProductosVendidos)
+                .promedioVenta(promedioVenta)
+                .ventasDiarias(ventasDiarias)
+                .productosMasVendidos(productosMasVendidos)
+                .build();
+    }
+
+    // Los PDF se generan sin transacción: los datos se leen antes y la conexión vuelve al pool
+    // mientras se compone el documento
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generarPdfInventario() throws IOException {
+        List<ProductoDTO> productos = enLectura(() -> productoRepository.findByActivoTrue().stream()
+                .map(this::convertirProductoADTO)
+                .collect(Collectors.toList()));
+        ReporteInventarioDTO resumen = enLectura(this::generarReporteInventario);
+        return pdfGenerator.generarReporteInventario(productos, resumen);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generarPdfVentas(LocalDate fechaInicio, LocalDate fechaFin) throws IOException {
+        ReporteVentasDTO reporte = enLectura(() -> generarReporteVentas(fechaInicio, fechaFin));
+        return pdfGenerator.generarReporteVentas(reporte);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] generarPdfTicketVenta(VentaDTO venta) throws IOException {
+        return pdfGenerator.generarTicketVenta(venta);
+    }
+
+    // Las llamadas internas no pasan por el proxy de @Transactional
+    private <T> T enLectura(Supplier<T> lectura) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(true);
+        return transaccion.execute(estado -> lectura.get());
+    }
+
+    private ProductoDTO convertirProductoADTO(Producto producto) {
+        ProductoDTO dto = ProductoDTO.builder()
+                .codigoBarras(producto.getCodigoBarras())
+                .codigoInterno(producto.getCodigoInterno())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .marca(producto.getMarca())
+                .modeloCompatible(producto.getModeloCompatible())
+                .precioVenta(producto.getPrecioVenta())
+                .stockActual(producto.getStockActual())
+                .stockMinimo(producto.getStockMinimo())
+                .fechaIngreso(producto.getFechaIngreso())
+                .fechaUltimaVenta(producto.getFechaUltimaVenta())
+                .ubicacion(producto.getUbicacion())
+                .imagenUrl(producto.getImagenUrl())
+                .activo(producto.getActivo())
+                .stockBajo(producto.isStockBajo())
+                .agotado(producto.isAgotado())
+                .build();
+
+        if (producto.getCategoria() != null) {
+            dto.setCategoriaId(producto.getCategoria().getId());
+            dto.setCategoriaNombre(producto.getCategoria().getNombre());
+        }
+
+        if (producto.getProveedor() != null) {
+            dto.setProveedorId(producto.getProveedor().getId());
+            dto.setProveedorNombre(producto.getProveedor().getNombre());
+        }
+
+        return dto;
+    }
+}
+
@@ -0,0 +1,40 @@
+package com.inventario.service;
+
+import com.inventario.entity.Proveedor;
+import com.inventario.repository.ProveedorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReposicionService {
+
+    private final ProveedorRepository proveedorRepository;
+    private final CalculadoraReposicion calculadora;
+
+    // Cálculo nocturno incremental de las sugerencias de todos los proveedores
+    @Scheduled(cron = "${app.reposicion.cron:0 30 2 * * *}")
+    public void recalcularNocturno() {
+        int calculadas = recalcular(false);
+        log.info("Sugerencias de reposición recalculadas: {}", calculadas);
+    }
+
+    // Recalcula los proveedores activos en paralelo y devuelve el número de productos procesados
+    public int recalcular(boolean completo) {
+        List<CompletableFuture<Integer>> calculos = proveedorRepository.findByActivoTrue().stream()
+                .map(Proveedor::getId)
+                .map(id -> calculadora.recalcularProveedor(id, completo))
+                .collect(Collectors.toList());
+
+        return calculos.stream()
+                .mapToInt(CompletableFuture::join)
+                .sum();
+    }
+}
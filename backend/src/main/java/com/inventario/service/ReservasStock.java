@@ -0,0 +1,232 @@
+package com.inventario.service;
+
+import com.inventario.entity.Producto;
+import com.inventario.repository.VentaRepository;
+import com.inventario.util.RuedaTemporizadora;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock retenido por las ventas PENDIENTE (carritos y presupuestos) hasta que se confirman, se
+ * cancelan o vencen. El stock disponible de un producto es su stock actual menos lo retenido, y
+ * lo retenido se lleva en un contador por producto: consultarlo no recorre las reservas.
+ *
+ * Las retenciones viven en memoria y su respaldo son las propias ventas pendientes (con su
+ * fecha_expiracion y sus detalles), que se leen al arrancar. Los vencimientos se programan en
+ * una RuedaTemporizadora que se revisa cada app.ventas.reservas.tic-ms: al vencer, la venta
+ * pasa a CANCELADA y su stock deja de estar retenido, sin buscar vencidas en la tabla.
+ *
+ * Una retención nueva cuenta desde que se pide (antes del commit) y se quita si la transacción
+ * no se confirma; la liberación al confirmar o cancelar se aplica tras el commit. Mientras tanto
+ * el disponible queda por debajo del real, nunca por encima.
+ *
+ * Con el motor de stock las retenciones se toman también en el motor (MotorStock.retener), que
+ * las comprueba contra su stock disponible junto con las ventas directas en curso; los contadores
+ * de aquí solo sirven para mostrar el disponible.
+ */
+@Slf4j
+@Service
+public class ReservasStock {
+
+    private record Retencion(Map<String, Integer> cantidades) {
+    }
+
+    private final VentaRepository ventaRepository;
+    private final Optional<MotorStock> motorStock;
+    private final TransactionTemplate transaccion;
+    private final int minutosPorDefecto;
+    private final int minutosMaximos;
+    private final long ticMillis;
+    private final RuedaTemporizadora<Long> rueda;
+    private final Counter vencidas;
+
+    private final Map<Long, Retencion> retenciones = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> retenido = new ConcurrentHashMap<>();
+
+    public ReservasStock(VentaRepository ventaRepository, Optional<MotorStock> motorStock,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.ventas.reservas.minutos:15}") int minutosPorDefecto,
+                         @Value("${app.ventas.reservas.minutos-maximos:10080}") int minutosMaximos,
+                         @Value("${app.ventas.reservas.tic-ms:1000}") long ticMillis,
+                         @Value("${app.ventas.reservas.ranuras:3600}") int ranuras,
+                         MeterRegistry registry) {
+        this.ventaRepository = ventaRepository;
+        this.motorStock = motorStock;
+        // Sin readOnly: la carga y las cancelaciones van siempre a la primaria
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.minutosPorDefecto = minutosPorDefecto;
+        this.minutosMaximos = minutosMaximos;
+        this.ticMillis = ticMillis;
+        this.rueda = new RuedaTemporizadora<>(ranuras, ticMillis, System.currentTimeMillis());
+
+        Gauge.builder("inventario.ventas.reservas.activas", retenciones, Map::size)
+                .description("Ventas pendientes con stock retenido")
+                .register(registry);
+        this.vencidas = Counter.builder("inventario.ventas.reservas.vencidas")
+                .description("Ventas pendientes canceladas al vencer su reserva")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void cargar() {
+        List<Object[]> lineas = transaccion.execute(estado -> ventaRepository.findLineasPendientes());
+        Map<Long, Map<String, Integer>> cantidades = new HashMap<>();
+        Map<Long, LocalDateTime> vencimientos = new HashMap<>();
+        for (Object[] linea : lineas) {
+            Long id = (Long) linea[0];
+            cantidades.computeIfAbsent(id, v -> new LinkedHashMap<>()).merge((String) linea[2], (Integer) linea[3], Integer::sum);
+            vencimientos.put(id, (LocalDateTime) linea[1]);
+        }
+        // Las que vencieron con el backend parado (o sin vencimiento) se cancelan en el primer tic
+        LocalDateTime ahora = LocalDateTime.now();
+        cantidades.forEach((id, suyas) -> {
+            anadir(id, suyas, vencimientos.get(id) != null ? vencimientos.get(id) : ahora);
+            motorStock.ifPresent(motor -> motor.restaurarRetencion(suyas));
+        });
+        log.info("Reservas de stock cargadas: {} ventas pendientes", cantidades.size());
+    }
+
+    // Vencimiento de una reserva nueva; sin minutos se usa app.ventas.reservas.minutos
+    public LocalDateTime vencimiento(LocalDateTime desde, Integer minutos) {
+        int duracion = minutos != null ? Math.min(minutos, minutosMaximos) : minutosPorDefecto;
+        return desde.plusMinutes(duracion);
+    }
+
+    // Unidades del producto retenidas por todas las ventas pendientes
+    public int retenido(String codigo) {
+        AtomicInteger unidades = retenido.get(codigo);
+        return unidades != null ? unidades.get() : 0;
+    }
+
+    // Unidades retenidas por las demás ventas pendientes (la indicada puede ser null)
+    public int retenido(String codigo, Long excluida) {
+        int total = retenido(codigo);
+        Retencion propia = excluida != null ? retenciones.get(excluida) : null;
+        return propia != null ? total - propia.cantidades().getOrDefault(codigo, 0) : total;
+    }
+
+    /**
+     * Retiene las cantidades (código, cantidad) para la venta pendiente hasta su vencimiento.
+     * Sin motor de stock, quien llama ha comprobado el disponible bajo los cerrojos de sus
+     * productos; con motor lo comprueba el motor y lanza StockInsuficienteException.
+     */
+    public void retener(Long ventaId, Map<String, Integer> cantidades, Map<String, Producto> productos,
+                        LocalDateTime vence) {
+        motorStock.ifPresent(motor -> motor.retener(cantidades, productos));
+        anadir(ventaId, new LinkedHashMap<>(cantidades), vence);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado != STATUS_COMMITTED) {
+                        quitar(ventaId);
+                    }
+                }
+            });
+        }
+    }
+
+    // Deja de retener el stock de una venta cancelada tras el commit: vuelve a estar disponible
+    public void liberar(Long ventaId) {
+        alConfirmar(() -> soltar(quitar(ventaId)));
+    }
+
+    // Deja de retener el stock de una venta confirmada tras el commit: ya se descontó al venderla
+    public void consumir(Long ventaId) {
+        alConfirmar(() -> quitar(ventaId));
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Cancela las ventas pendientes cuya reserva ha vencido. Si la cancelación falla se
+     * reintenta en el siguiente tic.
+     */
+    @Scheduled(fixedDelayString = "${app.ventas.reservas.tic-ms:1000}")
+    public void vencer() {
+        List<Long> ids = new ArrayList<>();
+        // Las confirmadas o canceladas antes de vencer siguen en la rueda: se ignoran aquí
+        rueda.avanzar(System.currentTimeMillis(), id -> {
+            if (retenciones.containsKey(id)) {
+                ids.add(id);
+            }
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // Solo se cancelan las que siguen pendientes tras bloquearlas: el bloqueo espera a las
+        // que se están confirmando o cancelando, que liberan su retención en su propio commit
+        List<Long> canceladas;
+        try {
+            canceladas = transaccion.execute(estado -> {
+                List<Long> pendientes = ventaRepository.findIdsPendientesParaActualizar(ids);
+                if (!pendientes.isEmpty()) {
+                    ventaRepository.cancelarPendientes(pendientes);
+                }
+                return pendientes;
+            });
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cancelar {} ventas pendientes vencidas; se reintentará", ids.size(), e);
+            long reintento = System.currentTimeMillis() + ticMillis;
+            ids.forEach(id -> rueda.programar(id, reintento));
+            return;
+        }
+        canceladas.forEach(id -> soltar(quitar(id)));
+        vencidas.increment(canceladas.size());
+    }
+
+    private void anadir(Long ventaId, Map<String, Integer> cantidades, LocalDateTime vence) {
+        retenciones.put(ventaId, new Retencion(cantidades));
+        cantidades.forEach((codigo, cantidad) ->
+                retenido.computeIfAbsent(codigo, c -> new AtomicInteger()).addAndGet(cantidad));
+        rueda.programar(ventaId, vence.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private Retencion quitar(Long ventaId) {
+        Retencion retencion = retenciones.remove(ventaId);
+        if (retencion != null) {
+            retencion.cantidades().forEach((codigo, cantidad) -> retenido.get(codigo).addAndGet(-cantidad));
+        }
+        return retencion;
+    }
+
+    // Devuelve al motor de stock lo que retenía la venta, si aún lo retenía
+    private void soltar(Retencion retencion) {
+        if (retencion != null) {
+            motorStock.ifPresent(motor -> motor.soltar(retencion.cantidades()));
+        }
+    }
+}
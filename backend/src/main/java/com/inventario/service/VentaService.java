@@ -1,5 +1,7 @@
 package com.inventario.service;
 
+import com.inventario.config.JornadaComercial;
+import com.inventario.config.LecturaReplica;
 import com.inventario.dto.DetalleVentaDTO;
 import com.inventario.dto.VentaDTO;
 import com.inventario.entity.*;
@@ -7,146 +9,398 @@ import com.inventario.exception.BadRequestException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.exception.StockInsuficienteException;
 import com.inventario.repository.*;
+import com.inventario.util.Dinero;
+import com.inventario.util.MetricasInventario;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Observed(name = "inventario.servicio")
 public class VentaService {
 
     private final VentaRepository ventaRepository;
     private final DetalleVentaRepository detalleVentaRepository;
     private final ProductoRepository productoRepository;
     private final MovimientoInventarioRepository movimientoRepository;
-
+    private final MetricasInventario metricas;
+    private final JornadaComercial jornada;
+    private final ContadorVentasHoy contadorVentasHoy;
+    private final Optional<MotorStock> motorStock;
+    private final CerrojosStock cerrojosStock;
+    private final ReservasStock reservasStock;
+
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public Page<VentaDTO> listarTodas(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "fechaHora"));
         return ventaRepository.findAll(pageable).map(this::convertirADTO);
     }
 
+    @Transactional(readOnly = true)
     public VentaDTO obtenerPorId(Long id) {
         Venta venta = ventaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Venta", "id", id));
         return convertirADTO(venta);
     }
 
+    @Transactional(readOnly = true)
     public List<VentaDTO> listarVentasHoy() {
-        return ventaRepository.findVentasHoy().stream()
+        JornadaComercial.Rango hoy = jornada.hoy();
+        return ventaRepository.findCompletadasEnRango(hoy.inicio(), hoy.fin()).stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<VentaDTO> listarVentasPorFecha(LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(LocalTime.MAX);
-        return ventaRepository.findByFechaHoraBetween(inicio, fin).stream()
+        JornadaComercial.Rango rango = jornada.dias(fechaInicio, fechaFin);
+        return ventaRepository.findEnRango(rango.inicio(), rango.fin()).stream()
                 .map(this::convertirADTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Resultado de cada venta de un lote: la venta registrada o la excepción que la rechazó.
+     */
+    public record ResultadoLote(VentaDTO venta, RuntimeException error) {
+    }
+
     public VentaDTO crearVenta(VentaDTO dto) {
+        Map<String, Integer> cantidadPorProducto = cantidadesPorProducto(dto);
+        bloquearStock(cantidadPorProducto.keySet());
+
+        // Cargar todos los productos del ticket en una sola consulta
+        Map<String, Producto> productos = productoRepository.findAllById(cantidadPorProducto.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getCodigoBarras, Function.identity()));
+
+        return registrarVenta(dto, cantidadPorProducto, productos, LocalDateTime.now());
+    }
+
+    /**
+     * Registra varias ventas en una sola transacción (ver IngestaVentas). Los productos de todo
+     * el lote se cargan y bloquean en una consulta, y cada venta se valida contra el stock que
+     * dejan las anteriores (o contra el motor de stock, si está habilitado). Una venta rechazada no modifica nada: su excepción se devuelve en
+     * la misma posición y el resto del lote sigue adelante.
+     */
+    public List<ResultadoLote> crearVentasEnLote(List<VentaDTO> dtos) {
+        Set<String> codigos = new HashSet<>();
+        for (VentaDTO dto : dtos) {
+            if (dto.getDetalles() != null) {
+                for (DetalleVentaDTO detalleDTO : dto.getDetalles()) {
+                    codigos.add(detalleDTO.getProductoCodigoBarras());
+                }
+            }
+        }
+        bloquearStock(codigos);
+        // Con el motor de stock no hace falta bloquear las filas: el stock se reserva en memoria
+        List<Producto> encontrados = motorStock.isPresent()
+                ? productoRepository.findAllById(codigos)
+                : productoRepository.findAllParaActualizar(codigos);
+        Map<String, Producto> productos = encontrados.stream()
+                .collect(Collectors.toMap(Producto::getCodigoBarras, Function.identity()));
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<ResultadoLote> resultados = new ArrayList<>(dtos.size());
+        for (VentaDTO dto : dtos) {
+            try {
+                resultados.add(new ResultadoLote(registrarVenta(dto, cantidadesPorProducto(dto), productos, ahora), null));
+            } catch (BadRequestException | ResourceNotFoundException | StockInsuficienteException e) {
+                resultados.add(new ResultadoLote(null, e));
+            }
+        }
+        // Los errores del flush (restricciones, conexión) salen aquí y no en el commit: quien
+        // llama sabe entonces que el lote no se guardó
+        ventaRepository.flush();
+        return resultados;
+    }
+
+    // Sin motor de stock el stock se modifica en la base de datos: se toman antes los cerrojos
+    private void bloquearStock(Collection<String> codigos) {
+        if (motorStock.isEmpty()) {
+            cerrojosStock.bloquear(codigos);
+        }
+    }
+
+    private Map<String, Integer> cantidadesPorProducto(VentaDTO dto) {
         if (dto.getDetalles() == null || dto.getDetalles().isEmpty()) {
             throw new BadRequestException("La venta debe tener al menos un producto");
         }
+        Map<String, Integer> cantidadPorProducto = new LinkedHashMap<>();
+        for (DetalleVentaDTO detalleDTO : dto.getDetalles()) {
+            cantidadPorProducto.merge(detalleDTO.getProductoCodigoBarras(), detalleDTO.getCantidad(), Integer::sum);
+        }
+        return cantidadPorProducto;
+    }
+
+    private VentaDTO registrarVenta(VentaDTO dto, Map<String, Integer> cantidadPorProducto,
+                                    Map<String, Producto> productos, LocalDateTime ahora) {
+        // Verificar existencia y stock de todas las líneas antes de modificar nada
+        comprobarDisponible(cantidadPorProducto, productos, null);
 
+        // Con el motor de stock su reserva es la única comprobación del disponible: se hace antes
+        // de guardar la venta, para que una rechazada en un lote no quede en el contexto de
+        // persistencia y se inserte en el flush
+        Map<String, Integer> stockCorriente = reservarStock(cantidadPorProducto, productos, ahora, false);
+
+        Venta venta = construirVenta(dto, productos, ahora, Venta.EstadoVenta.COMPLETADA);
+        // Con ids de secuencia el INSERT se difiere hasta el flush, pero el id ya está asignado
+        venta = ventaRepository.save(venta);
+        descontarStock(venta, stockCorriente, productos, ahora);
+
+        return convertirADTO(venta);
+    }
+
+    /**
+     * Crea una venta PENDIENTE (carrito o presupuesto) que retiene su stock hasta que se
+     * confirma, se cancela o vence. El stock no se descuenta: solo deja de estar disponible
+     * para las demás ventas.
+     */
+    public VentaDTO crearReserva(VentaDTO dto) {
+        Map<String, Integer> cantidadPorProducto = cantidadesPorProducto(dto);
+        // Sin motor, comprobar y retener bajo los cerrojos: dos reservas simultáneas no pueden
+        // prometer la misma unidad. Con motor la retención se comprueba en el propio motor
+        bloquearStock(cantidadPorProducto.keySet());
+        Map<String, Producto> productos = productoRepository.findAllById(cantidadPorProducto.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getCodigoBarras, Function.identity()));
+
+        LocalDateTime ahora = LocalDateTime.now();
+        comprobarDisponible(cantidadPorProducto, productos, null);
+
+        Venta venta = construirVenta(dto, productos, ahora, Venta.EstadoVenta.PENDIENTE);
+        venta.setFechaExpiracion(reservasStock.vencimiento(ahora, dto.getMinutosReserva()));
+        venta = ventaRepository.save(venta);
+        reservasStock.retener(venta.getId(), cantidadPorProducto, productos, venta.getFechaExpiracion());
+
+        return convertirADTO(venta);
+    }
+
+    /**
+     * Confirma una venta PENDIENTE no vencida: descuenta su stock con los precios de la reserva
+     * y la registra como completada en este momento.
+     */
+    public VentaDTO confirmarReserva(Long id) {
+        // Con la fila bloqueada, otra confirmación, una cancelación o el vencimiento esperan a
+        // esta transacción y ven ya su estado final
+        Venta venta = ventaRepository.findByIdParaActualizar(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Venta", "id", id));
+
+        if (venta.getEstado() != Venta.EstadoVenta.PENDIENTE) {
+            throw new BadRequestException("Solo se pueden confirmar ventas pendientes");
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        if (venta.getFechaExpiracion() != null && !venta.getFechaExpiracion().isAfter(ahora)) {
+            throw new BadRequestException("La reserva de la venta ha vencido");
+        }
+
+        // El código se lee del proxy sin cargar el producto, que se carga tras tomar los cerrojos
+        Map<String, Integer> cantidadPorProducto = new LinkedHashMap<>();
+        for (DetalleVenta detalle : venta.getDetalles()) {
+            cantidadPorProducto.merge(detalle.getProducto().getCodigoBarras(), detalle.getCantidad(), Integer::sum);
+        }
+        bloquearStock(cantidadPorProducto.keySet());
+        Map<String, Producto> productos = productoRepository.findAllById(cantidadPorProducto.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getCodigoBarras, Function.identity()));
+
+        // Su propia retención no cuenta contra ella
+        comprobarDisponible(cantidadPorProducto, productos, id);
+
+        Map<String, Integer> stockCorriente = reservarStock(cantidadPorProducto, productos, ahora, true);
+        venta.setEstado(Venta.EstadoVenta.COMPLETADA);
+        venta.setFechaHora(ahora);
+        venta.setFechaExpiracion(null);
+        descontarStock(venta, stockCorriente, productos, ahora);
+        reservasStock.consumir(id);
+
+        return convertirADTO(venta);
+    }
+
+    /**
+     * Comprueba que cada producto existe y que su stock menos lo retenido por otras ventas
+     * pendientes cubre la cantidad. Con el motor de stock el disponible (ya sin retenciones ni
+     * salidas en curso) lo comprueba el motor al descontar o retener, así que aquí solo se
+     * comprueba que los productos existen.
+     */
+    private void comprobarDisponible(Map<String, Integer> cantidadPorProducto, Map<String, Producto> productos,
+                                     Long reservaPropia) {
+        for (Map.Entry<String, Integer> linea : cantidadPorProducto.entrySet()) {
+            Producto producto = productos.get(linea.getKey());
+            if (producto == null) {
+                throw new ResourceNotFoundException("Producto", "código", linea.getKey());
+            }
+            if (motorStock.isPresent()) {
+                continue;
+            }
+            int retenido = reservasStock.retenido(linea.getKey(), reservaPropia);
+            int stock = producto.getStockActual();
+            if (stock - retenido < linea.getValue()) {
+                throw new StockInsuficienteException(producto.getNombre(), Math.max(0, stock - retenido), linea.getValue());
+            }
+        }
+    }
+
+    private Venta construirVenta(VentaDTO dto, Map<String, Producto> productos, LocalDateTime ahora,
+                                 Venta.EstadoVenta estado) {
         Venta venta = Venta.builder()
-                .fechaHora(LocalDateTime.now())
-                .estado(Venta.EstadoVenta.COMPLETADA)
+                .fechaHora(ahora)
+                .estado(estado)
                 .observaciones(dto.getObservaciones())
                 .total(BigDecimal.ZERO)
                 .detalles(new ArrayList<>())
                 .build();
 
-        BigDecimal total = BigDecimal.ZERO;
+        // Importes en céntimos; solo el subtotal de cada línea y el total se convierten a BigDecimal
+        long total = 0;
 
         for (DetalleVentaDTO detalleDTO : dto.getDetalles()) {
-            Producto producto = productoRepository.findById(detalleDTO.getProductoCodigoBarras())
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto", "código", detalleDTO.getProductoCodigoBarras()));
-
-            // Verificar stock
-            if (producto.getStockActual() < detalleDTO.getCantidad()) {
-                throw new StockInsuficienteException(producto.getNombre(),
-                        producto.getStockActual(), detalleDTO.getCantidad());
-            }
+            Producto producto = productos.get(detalleDTO.getProductoCodigoBarras());
 
             // Crear detalle
-            BigDecimal precioUnitario = producto.getPrecioVenta();
-            BigDecimal subtotal = precioUnitario.multiply(BigDecimal.valueOf(detalleDTO.getCantidad()));
+            long subtotal = Dinero.subtotal(Dinero.centimos(producto.getPrecioVenta()), detalleDTO.getCantidad());
 
             DetalleVenta detalle = DetalleVenta.builder()
                     .producto(producto)
                     .cantidad(detalleDTO.getCantidad())
-                    .precioUnitario(precioUnitario)
-                    .subtotal(subtotal)
+                    .precioUnitario(producto.getPrecioVenta())
+                    .subtotal(Dinero.aBigDecimal(subtotal))
                     .build();
 
             venta.agregarDetalle(detalle);
-            total = total.add(subtotal);
+            total = Math.addExact(total, subtotal);
+        }
 
-            // Descontar stock
-            int stockAnterior = producto.getStockActual();
-            producto.setStockActual(stockAnterior - detalleDTO.getCantidad());
-            producto.setFechaUltimaVenta(LocalDateTime.now());
-            productoRepository.save(producto);
+        venta.setTotal(Dinero.aBigDecimal(total));
+        return venta;
+    }
 
-            // Registrar movimiento
-            MovimientoInventario movimiento = MovimientoInventario.builder()
-                    .producto(producto)
-                    .tipoMovimiento(MovimientoInventario.TipoMovimiento.SALIDA)
-                    .cantidad(detalleDTO.getCantidad())
-                    .fechaHora(LocalDateTime.now())
-                    .motivo("Venta")
-                    .stockAnterior(stockAnterior)
-                    .stockNuevo(producto.getStockActual())
-                    .build();
-            movimientoRepository.save(movimiento);
+    /**
+     * Con el motor de stock comprueba y reserva todas las líneas en memoria (las de una venta
+     * pendiente ya estaban retenidas) y devuelve el stock de cada producto antes de la venta; el
+     * stock y la fecha de última venta se vuelcan a productos después, sin UPDATE en esta
+     * transacción. Sin motor devuelve null.
+     */
+    private Map<String, Integer> reservarStock(Map<String, Integer> cantidadPorProducto, Map<String, Producto> productos,
+                                               LocalDateTime ahora, boolean retenida) {
+        if (motorStock.isEmpty()) {
+            return null;
         }
+        Map<String, MotorStock.Cambio> cambios = retenida
+                ? motorStock.get().descontarRetenido(cantidadPorProducto, productos, ahora)
+                : motorStock.get().descontar(cantidadPorProducto, productos, ahora);
+        Map<String, Integer> stockCorriente = new HashMap<>();
+        for (Map.Entry<String, MotorStock.Cambio> reserva : cambios.entrySet()) {
+            stockCorriente.put(reserva.getKey(), reserva.getValue().anterior());
+        }
+        return stockCorriente;
+    }
 
-        venta.setTotal(total);
-        venta = ventaRepository.save(venta);
-
-        // Actualizar referencia de movimientos
+    // Descuenta el stock de una venta completada (o de una pendiente ya retenida) y registra sus
+    // movimientos; stockCorriente es el que devolvió reservarStock
+    private void descontarStock(Venta venta, Map<String, Integer> stockCorriente,
+                                Map<String, Producto> productos, LocalDateTime ahora) {
+        // Descontar stock y registrar movimientos; los UPDATE e INSERT se agrupan en el flush
+        List<MovimientoInventario> movimientos = new ArrayList<>(venta.getDetalles().size());
         for (DetalleVenta detalle : venta.getDetalles()) {
-            MovimientoInventario mov = movimientoRepository
-                    .findByProductoCodigoBarrasOrderByFechaHoraDesc(detalle.getProducto().getCodigoBarras())
-                    .stream().findFirst().orElse(null);
-            if (mov != null) {
-                mov.setReferencia("VENTA-" + venta.getId());
-                movimientoRepository.save(mov);
+            Producto producto = productos.get(detalle.getProducto().getCodigoBarras());
+            int stockAnterior;
+            if (stockCorriente != null) {
+                stockAnterior = stockCorriente.get(producto.getCodigoBarras());
+                stockCorriente.put(producto.getCodigoBarras(), stockAnterior - detalle.getCantidad());
+            } else {
+                stockAnterior = producto.getStockActual();
+                producto.setStockActual(stockAnterior - detalle.getCantidad());
+                producto.setFechaUltimaVenta(ahora);
             }
-        }
 
-        return convertirADTO(venta);
+            movimientos.add(MovimientoInventario.builder()
+                    .producto(producto)
+                    .tipoMovimiento(MovimientoInventario.TipoMovimiento.SALIDA)
+                    .cantidad(detalle.getCantidad())
+                    .fechaHora(ahora)
+                    .motivo("Venta")
+                    .stockAnterior(stockAnterior)
+                    .stockNuevo(stockAnterior - detalle.getCantidad())
+                    .referencia("VENTA-" + venta.getId())
+                    .build());
+        }
+        movimientoRepository.saveAll(movimientos);
+        metricas.ventaRegistrada(venta.getTotal());
+        contadorVentasHoy.ventaRegistrada(venta.getFechaHora(), venta.getTotal());
     }
 
     public VentaDTO cancelarVenta(Long id) {
-        Venta venta = ventaRepository.findById(id)
+        // Bloqueada como en confirmarReserva: dos cancelaciones no devuelven el stock dos veces
+        Venta venta = ventaRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Venta", "id", id));
 
         if (venta.getEstado() == Venta.EstadoVenta.CANCELADA) {
             throw new BadRequestException("La venta ya está cancelada");
         }
 
-        // Devolver stock
+        // Una venta pendiente no descontó stock: solo deja de retenerlo
+        if (venta.getEstado() == Venta.EstadoVenta.PENDIENTE) {
+            venta.setEstado(Venta.EstadoVenta.CANCELADA);
+            reservasStock.liberar(id);
+            return convertirADTO(ventaRepository.save(venta));
+        }
+
+        // Devolver stock; el código se lee del proxy sin cargar el producto, que se carga y
+        // bloquea después de tomar los cerrojos
+        Map<String, Integer> stockCorriente = null;
+        if (motorStock.isEmpty()) {
+            Set<String> codigos = venta.getDetalles().stream()
+                    .map(detalle -> detalle.getProducto().getCodigoBarras())
+                    .collect(Collectors.toSet());
+            cerrojosStock.bloquear(codigos);
+            productoRepository.findAllParaActualizar(codigos);
+        } else {
+            Map<String, Integer> devueltas = new LinkedHashMap<>();
+            Map<String, Producto> productos = new HashMap<>();
+            for (DetalleVenta detalle : venta.getDetalles()) {
+                devueltas.merge(detalle.getProducto().getCodigoBarras(), detalle.getCantidad(), Integer::sum);
+                productos.put(detalle.getProducto().getCodigoBarras(), detalle.getProducto());
+            }
+            stockCorriente = new HashMap<>();
+            for (Map.Entry<String, MotorStock.Cambio> cambio : motorStock.get().sumar(devueltas, productos).entrySet()) {
+                stockCorriente.put(cambio.getKey(), cambio.getValue().anterior());
+            }
+        }
+
         for (DetalleVenta detalle : venta.getDetalles()) {
             Producto producto = detalle.getProducto();
-            int stockAnterior = producto.getStockActual();
-            producto.setStockActual(stockAnterior + detalle.getCantidad());
-            productoRepository.save(producto);
+            int stockAnterior;
+            if (stockCorriente != null) {
+                stockAnterior = stockCorriente.get(producto.getCodigoBarras());
+                stockCorriente.put(producto.getCodigoBarras(), stockAnterior + detalle.getCantidad());
+            } else {
+                stockAnterior = producto.getStockActual();
+                producto.setStockActual(stockAnterior + detalle.getCantidad());
+                productoRepository.save(producto);
+            }
 
             // Registrar movimiento de devolución
             MovimientoInventario movimiento = MovimientoInventario.builder()
@@ -156,34 +410,44 @@ public class VentaService {
                     .fechaHora(LocalDateTime.now())
                     .motivo("Cancelación de venta #" + id)
                     .stockAnterior(stockAnterior)
-                    .stockNuevo(producto.getStockActual())
+                    .stockNuevo(stockAnterior + detalle.getCantidad())
                     .referencia("CANCEL-VENTA-" + id)
                     .build();
             movimientoRepository.save(movimiento);
         }
 
+        Venta.EstadoVenta estadoAnterior = venta.getEstado();
         venta.setEstado(Venta.EstadoVenta.CANCELADA);
         venta = ventaRepository.save(venta);
+        metricas.ventaCancelada();
+        if (estadoAnterior == Venta.EstadoVenta.COMPLETADA) {
+            contadorVentasHoy.ventaCancelada(venta.getFechaHora(), venta.getTotal());
+        }
 
         return convertirADTO(venta);
     }
 
+    // Las cifras del día salen del contador en memoria, sin consultar la base de datos
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BigDecimal obtenerTotalVentasHoy() {
-        BigDecimal total = ventaRepository.sumTotalVentasHoy();
-        return total != null ? total : BigDecimal.ZERO;
+        return contadorVentasHoy.total();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long contarVentasHoy() {
-        return ventaRepository.countVentasHoy();
+        return contadorVentasHoy.ventas();
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public BigDecimal obtenerTotalVentasPorPeriodo(LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicio = fechaInicio.atStartOfDay();
-        LocalDateTime fin = fechaFin.atTime(LocalTime.MAX);
-        BigDecimal total = ventaRepository.sumTotalVentasByFecha(inicio, fin);
+        JornadaComercial.Rango rango = jornada.dias(fechaInicio, fechaFin);
+        BigDecimal total = ventaRepository.sumTotalVentasByFecha(rango.inicio(), rango.fin());
         return total != null ? total : BigDecimal.ZERO;
     }
 
+    @LecturaReplica
+    @Transactional(readOnly = true)
     public List<VentaDTO> obtenerVentasPorProducto(String codigoProducto) {
         return ventaRepository.findVentasByProducto(codigoProducto).stream()
                 .map(this::convertirADTO)
@@ -208,6 +472,7 @@ public class VentaService {
                 .total(venta.getTotal())
                 .estado(venta.getEstado().name())
                 .observaciones(venta.getObservaciones())
+                .fechaExpiracion(venta.getFechaExpiracion())
                 .detalles(detalles)
                 .build();
     }
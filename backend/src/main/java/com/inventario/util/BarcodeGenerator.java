@@ -2,11 +2,11 @@ package com.inventario.util;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.oned.Code128Writer;
 import com.google.zxing.oned.EAN13Writer;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
@@ -17,6 +17,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Component
+@Observed(name = "inventario.codigo.barras")
 public class BarcodeGenerator {
 
     private static final SecureRandom random = new SecureRandom();
@@ -90,7 +91,7 @@ public class BarcodeGenerator {
             byte[] imageBytes = outputStream.toByteArray();
             return "data:image/png;base64," + Base64.getEncoder().encodeToString(imageBytes);
 
-        } catch (WriterException | IOException e) {
+        } catch (IOException e) {
             throw new RuntimeException("Error al generar imagen del código de barras: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,126 @@
+package com.inventario.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cuenta las sentencias SQL, las entidades cargadas y el tiempo con conexión JDBC retenida
+ * en el hilo actual mientras haya una medición abierta. Lo alimentan el StatementInspector,
+ * el listener PostLoad y el SessionEventListener de Hibernate (ver ConsultasConfig) y lo usa
+ * InterceptorConsultas en cada petición.
+ *
+ * También sirve como aserción en pruebas de integración:
+ * <pre>
+ * try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+ *     ventaService.crearVenta(dto);
+ *     medicion.verificarMaximoConsultas(6);
+ *     medicion.verificarSinRepeticiones(3);
+ * }
+ * </pre>
+ */
+public final class ContadorConsultas {
+
+    private static final ThreadLocal<Medicion> ACTUAL = new ThreadLocal<>();
+
+    private ContadorConsultas() {
+    }
+
+    public static Medicion iniciar() {
+        Medicion medicion = new Medicion(ACTUAL.get());
+        ACTUAL.set(medicion);
+        return medicion;
+    }
+
+    public static String registrarSentencia(String sql) {
+        for (Medicion m = ACTUAL.get(); m != null; m = m.anterior) {
+            m.consultas++;
+            m.ejecuciones.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    public static void registrarEntidadCargada() {
+        for (Medicion m = ACTUAL.get(); m != null; m = m.anterior) {
+            m.entidadesCargadas++;
+        }
+    }
+
+    public static void registrarConexion(long nanosRetenida) {
+        for (Medicion m = ACTUAL.get(); m != null; m = m.anterior) {
+            m.conexiones++;
+            m.nanosConexion += nanosRetenida;
+        }
+    }
+
+    public static final class Medicion implements AutoCloseable {
+
+        private final Medicion anterior;
+        private final Map<String, Integer> ejecuciones = new LinkedHashMap<>();
+        private int consultas;
+        private int entidadesCargadas;
+        private int conexiones;
+        private long nanosConexion;
+
+        private Medicion(Medicion anterior) {
+            this.anterior = anterior;
+        }
+
+        public int getConsultas() {
+            return consultas;
+        }
+
+        public int getEntidadesCargadas() {
+            return entidadesCargadas;
+        }
+
+        public int getConexiones() {
+            return conexiones;
+        }
+
+        // Suma del tiempo entre la obtención y la liberación de cada conexión JDBC
+        public long getNanosConexion() {
+            return nanosConexion;
+        }
+
+        /**
+         * Sentencias idénticas (mismo SQL, distintos parámetros) ejecutadas al menos
+         * {@code umbral} veces: el patrón típico de un N+1 por asociaciones lazy.
+         */
+        public Map<String, Integer> getSentenciasRepetidas(int umbral) {
+            return ejecuciones.entrySet().stream()
+                    .filter(e -> e.getValue() >= umbral)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+
+        public void verificarMaximoConsultas(int maximo) {
+            if (consultas > maximo) {
+                throw new AssertionError("Se esperaban como máximo " + maximo + " consultas y se ejecutaron "
+                        + consultas + ":\n" + describir(ejecuciones));
+            }
+        }
+
+        public void verificarSinRepeticiones(int umbral) {
+            Map<String, Integer> repetidas = getSentenciasRepetidas(umbral);
+            if (!repetidas.isEmpty()) {
+                throw new AssertionError("Sentencias repetidas " + umbral + " o más veces (posible N+1):\n"
+                        + describir(repetidas));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+
+        private static String describir(Map<String, Integer> sentencias) {
+            return sentencias.entrySet().stream()
+                    .map(e -> "  " + e.getValue() + "x " + e.getKey())
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+}
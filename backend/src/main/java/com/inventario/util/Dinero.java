@@ -0,0 +1,104 @@
+package com.inventario.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Importe monetario en céntimos (long), para los bucles que multiplican y acumulan precios
+ * línea a línea sin encadenar un BigDecimal por operación. Las entidades, las consultas y los
+ * DTO siguen usando BigDecimal (NUMERIC(12,2)); la conversión se hace solo al leer el precio
+ * y al asignar el resultado.
+ *
+ * Los métodos estáticos trabajan con los céntimos como long para que los bucles no reserven
+ * memoria. Al convertir importes con más de dos decimales y al aplicar fracciones se redondea
+ * HALF_UP, como hace PostgreSQL al guardar en NUMERIC(12,2). Los desbordamientos lanzan
+ * ArithmeticException en lugar de dar un resultado truncado.
+ */
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private static final int DECIMALES = 2;
+
+    private final long centimos;
+
+    private Dinero(long centimos) {
+        this.centimos = centimos;
+    }
+
+    public static Dinero deCentimos(long centimos) {
+        return centimos == 0 ? CERO : new Dinero(centimos);
+    }
+
+    public static Dinero de(BigDecimal importe) {
+        return deCentimos(centimos(importe));
+    }
+
+    public static long centimos(BigDecimal importe) {
+        return importe.movePointRight(DECIMALES).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal aBigDecimal(long centimos) {
+        return BigDecimal.valueOf(centimos, DECIMALES);
+    }
+
+    // Precio unitario por cantidad
+    public static long subtotal(long centimos, long cantidad) {
+        return Math.multiplyExact(centimos, cantidad);
+    }
+
+    // centimos * numerador / denominador redondeado HALF_UP, p. ej. fraccion(precio, 70, 100) es el 70 %
+    public static long fraccion(long centimos, long numerador, long denominador) {
+        long producto = Math.multiplyExact(centimos, numerador);
+        long cociente = producto / denominador;
+        long resto = Math.abs(producto % denominador);
+        if (resto >= Math.abs(denominador) - resto) {
+            cociente += Long.signum(producto) * Long.signum(denominador);
+        }
+        return cociente;
+    }
+
+    public Dinero mas(Dinero otro) {
+        return deCentimos(Math.addExact(centimos, otro.centimos));
+    }
+
+    public Dinero menos(Dinero otro) {
+        return deCentimos(Math.subtractExact(centimos, otro.centimos));
+    }
+
+    public Dinero por(long cantidad) {
+        return deCentimos(subtotal(centimos, cantidad));
+    }
+
+    public Dinero fraccion(long numerador, long denominador) {
+        return deCentimos(fraccion(centimos, numerador, denominador));
+    }
+
+    public long getCentimos() {
+        return centimos;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return aBigDecimal(centimos);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centimos, otro.centimos);
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof Dinero dinero && dinero.centimos == centimos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString();
+    }
+}
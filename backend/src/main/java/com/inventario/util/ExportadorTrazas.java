@@ -0,0 +1,176 @@
+package com.inventario.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.dto.SpanTrazaDTO;
+import com.inventario.dto.TrazaDTO;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportador de spans para uso sin colector: escribe cada span como una línea JSON en
+ * app.trazas.archivo y guarda en memoria las últimas trazas completas para el
+ * endpoint /actuator/trazas.
+ */
+@Slf4j
+@Component
+public class ExportadorTrazas implements SpanExporter {
+
+    private final int capacidad;
+    private final int maxPendientes;
+    private final BufferedWriter archivo;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Spans hijos a la espera de que termine el span raíz de su traza
+    private final Map<String, List<SpanData>> pendientes;
+    private final Deque<TrazaDTO> recientes = new ArrayDeque<>();
+
+    public ExportadorTrazas(@Value("${app.trazas.archivo:}") String rutaArchivo,
+                            @Value("${app.trazas.capacidad:200}") int capacidad) throws IOException {
+        this.capacidad = capacidad;
+        this.maxPendientes = capacidad * 10;
+        this.pendientes = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                return size() > maxPendientes;
+            }
+        };
+
+        if (rutaArchivo.isBlank()) {
+            this.archivo = null;
+        } else {
+            Path ruta = Paths.get(rutaArchivo);
+            if (ruta.getParent() != null) {
+                Files.createDirectories(ruta.getParent());
+            }
+            this.archivo = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        for (SpanData span : spans) {
+            escribir(span);
+            List<SpanData> traza = pendientes.computeIfAbsent(span.getTraceId(), k -> new ArrayList<>());
+            traza.add(span);
+            if (!span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote()) {
+                pendientes.remove(span.getTraceId());
+                recientes.addFirst(construirTraza(span, traza));
+                if (recientes.size() > capacidad) {
+                    recientes.removeLast();
+                }
+            }
+        }
+        return flush();
+    }
+
+    /**
+     * Trazas recientes ordenadas de más lenta a más rápida.
+     */
+    public synchronized List<TrazaDTO> obtenerMasLentas(int limite) {
+        return recientes.stream()
+                .sorted(Comparator.comparingDouble(TrazaDTO::getDuracionMs).reversed())
+                .limit(limite)
+                .toList();
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        if (archivo != null) {
+            try {
+                archivo.flush();
+            } catch (IOException e) {
+                log.warn("No se pudo escribir el archivo de trazas: {}", e.getMessage());
+                return CompletableResultCode.ofFailure();
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized CompletableResultCode shutdown() {
+        flush();
+        if (archivo != null) {
+            try {
+                archivo.close();
+            } catch (IOException e) {
+                return CompletableResultCode.ofFailure();
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private TrazaDTO construirTraza(SpanData raiz, List<SpanData> spans) {
+        long inicioRaiz = raiz.getStartEpochNanos();
+        List<SpanTrazaDTO> detalle = spans.stream()
+                .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .map(s -> SpanTrazaDTO.builder()
+                        .spanId(s.getSpanId())
+                        .padreId(s.getParentSpanContext().isValid() ? s.getParentSpanId() : null)
+                        .nombre(s.getName())
+                        .inicioOffsetMs(TimeUnit.NANOSECONDS.toMillis(s.getStartEpochNanos() - inicioRaiz))
+                        .duracionMs(duracionMs(s))
+                        .error(s.getStatus().getStatusCode() == StatusCode.ERROR)
+                        .atributos(atributos(s))
+                        .build())
+                .toList();
+
+        return TrazaDTO.builder()
+                .traceId(raiz.getTraceId())
+                .operacion(raiz.getName())
+                .inicio(Instant.ofEpochSecond(0, inicioRaiz))
+                .duracionMs(duracionMs(raiz))
+                .spans(new ArrayList<>(detalle))
+                .build();
+    }
+
+    private void escribir(SpanData span) {
+        if (archivo == null) {
+            return;
+        }
+        Map<String, Object> linea = new LinkedHashMap<>();
+        linea.put("traceId", span.getTraceId());
+        linea.put("spanId", span.getSpanId());
+        linea.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        linea.put("name", span.getName());
+        linea.put("kind", span.getKind().name());
+        linea.put("startTimeUnixNano", span.getStartEpochNanos());
+        linea.put("endTimeUnixNano", span.getEndEpochNanos());
+        linea.put("status", span.getStatus().getStatusCode().name());
+        linea.put("attributes", atributos(span));
+        try {
+            archivo.write(objectMapper.writeValueAsString(linea));
+            archivo.newLine();
+        } catch (IOException e) {
+            log.warn("No se pudo escribir el span {}: {}", span.getSpanId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, String> atributos(SpanData span) {
+        Map<String, String> atributos = new TreeMap<>();
+        span.getAttributes().forEach((clave, valor) -> atributos.put(clave.getKey(), String.valueOf(valor)));
+        return atributos;
+    }
+
+    private static double duracionMs(SpanData span) {
+        return (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,190 @@
+package com.inventario.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de códigos de barras a posiciones densas (0, 1, 2...), para guardar los datos de cada
+ * producto en arrays primitivos paralelos. Los códigos numéricos de hasta 18 dígitos (EAN-13,
+ * UPC, los de BarcodeGenerator) se convierten en un long y se guardan en una tabla de
+ * direccionamiento abierto con sondeo lineal: buscarlos no crea objetos ni calcula el hash del
+ * String. Los demás (Code128 con letras) van a un mapa de String aparte.
+ *
+ * La conversión conserva la longitud: "0123" y "123" son claves distintas. Con 1.000.000 de
+ * códigos la tabla ocupa unos 32 MB (24 de la tabla al 50% de carga y 8 del código por posición).
+ *
+ * Un solo hilo inserta; {@link #buscar(String)} se puede llamar desde cualquier hilo sin locks.
+ * La posición de cada clave se escribe antes que la clave (con orden release), y al crecer la
+ * tabla nueva se publica ya completa. No admite borrados: los productos se desactivan.
+ */
+public final class IndiceSku {
+
+    private static final VarHandle CLAVES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final long VACIA = -1;
+    private static final int MAX_DIGITOS = 18;
+    private static final long MEZCLA = 0x9E3779B97F4A7C15L;
+
+    // Primera clave de los códigos de cada longitud: "0".."9" van a 0..9, "00".."99" a 10..109...
+    private static final long[] BASE = new long[MAX_DIGITOS + 2];
+
+    static {
+        long potencia = 10;
+        for (int digitos = 1; digitos <= MAX_DIGITOS; digitos++) {
+            BASE[digitos + 1] = BASE[digitos] + potencia;
+            potencia = digitos < MAX_DIGITOS ? potencia * 10 : potencia;
+        }
+    }
+
+    private static final class Tabla {
+        final long[] claves;
+        final int[] posiciones;
+        final int mascara;
+        final int desplazamiento;
+        final int umbral;
+
+        Tabla(int capacidad) {
+            claves = new long[capacidad];
+            Arrays.fill(claves, VACIA);
+            posiciones = new int[capacidad];
+            mascara = capacidad - 1;
+            desplazamiento = 64 - Integer.numberOfTrailingZeros(capacidad);
+            umbral = capacidad / 2;
+        }
+
+        int inicio(long clave) {
+            return (int) ((clave * MEZCLA) >>> desplazamiento);
+        }
+    }
+
+    private volatile Tabla tabla;
+    private int numericos;
+    private int tamano;
+
+    // Clave de cada posición (VACIA para los códigos no numéricos), para reconstruir el código
+    private long[] clavePorPosicion;
+    private final Map<String, Integer> textos = new ConcurrentHashMap<>();
+    private final Map<Integer, String> textoPorPosicion = new HashMap<>();
+
+    public IndiceSku(int capacidadInicial) {
+        int capacidad = Math.max(16, Integer.highestOneBit(Math.max(1, capacidadInicial) * 2 - 1) * 2);
+        this.tabla = new Tabla(capacidad);
+        this.clavePorPosicion = new long[Math.max(16, capacidadInicial)];
+    }
+
+    // Número de códigos; el siguiente insertado recibe esta posición
+    public int tamano() {
+        return tamano;
+    }
+
+    // Posición del código, o -1 si no está
+    public int buscar(String codigo) {
+        long clave = clave(codigo);
+        if (clave == VACIA) {
+            Integer posicion = textos.get(codigo);
+            return posicion != null ? posicion : -1;
+        }
+        Tabla actual = tabla;
+        for (int i = actual.inicio(clave); ; i = (i + 1) & actual.mascara) {
+            long encontrada = (long) CLAVES.getAcquire(actual.claves, i);
+            if (encontrada == clave) {
+                return actual.posiciones[i];
+            }
+            if (encontrada == VACIA) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Añade el código si no estaba y devuelve su posición; un código nuevo recibe
+     * {@link #tamano()}. Solo desde el hilo escritor: los datos de la posición deben estar ya
+     * escritos, porque desde este momento otros hilos pueden encontrarla.
+     */
+    public int insertar(String codigo) {
+        int existente = buscar(codigo);
+        if (existente >= 0) {
+            return existente;
+        }
+        int posicion = tamano;
+        if (posicion == clavePorPosicion.length) {
+            clavePorPosicion = Arrays.copyOf(clavePorPosicion, posicion + (posicion >> 1));
+        }
+
+        long clave = clave(codigo);
+        clavePorPosicion[posicion] = clave;
+        if (clave == VACIA) {
+            textoPorPosicion.put(posicion, codigo);
+            textos.put(codigo, posicion);
+        } else {
+            if (numericos + 1 > tabla.umbral) {
+                crecer();
+            }
+            colocar(tabla, clave, posicion);
+            numericos++;
+        }
+        tamano++;
+        return posicion;
+    }
+
+    // Código de barras de la posición; solo desde el hilo escritor
+    public String codigo(int posicion) {
+        long clave = clavePorPosicion[posicion];
+        return clave == VACIA ? textoPorPosicion.get(posicion) : texto(clave);
+    }
+
+    // Clave numérica del código, o VACIA si no es un número de 1 a 18 dígitos
+    static long clave(String codigo) {
+        int digitos = codigo.length();
+        if (digitos == 0 || digitos > MAX_DIGITOS) {
+            return VACIA;
+        }
+        long valor = 0;
+        for (int i = 0; i < digitos; i++) {
+            char c = codigo.charAt(i);
+            if (c < '0' || c > '9') {
+                return VACIA;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return BASE[digitos] + valor;
+    }
+
+    static String texto(long clave) {
+        int digitos = 1;
+        while (clave >= BASE[digitos + 1]) {
+            digitos++;
+        }
+        long valor = clave - BASE[digitos];
+        char[] cifras = new char[digitos];
+        for (int i = digitos - 1; i >= 0; i--) {
+            cifras[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return new String(cifras);
+    }
+
+    private void crecer() {
+        Tabla anterior = tabla;
+        Tabla nueva = new Tabla(anterior.claves.length * 2);
+        for (int i = 0; i < anterior.claves.length; i++) {
+            if (anterior.claves[i] != VACIA) {
+                colocar(nueva, anterior.claves[i], anterior.posiciones[i]);
+            }
+        }
+        tabla = nueva;
+    }
+
+    private static void colocar(Tabla destino, long clave, int posicion) {
+        int i = destino.inicio(clave);
+        while (destino.claves[i] != VACIA) {
+            i = (i + 1) & destino.mascara;
+        }
+        destino.posiciones[i] = posicion;
+        CLAVES.setRelease(destino.claves, i, clave);
+    }
+}
@@ -0,0 +1,48 @@
+package com.inventario.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Contadores de negocio expuestos en /actuator/prometheus.
+ */
+@Component
+public class MetricasInventario {
+
+    private final Counter ventasRegistradas;
+    private final DistributionSummary importeVentas;
+    private final Counter ventasCanceladas;
+    private final Counter stockInsuficiente;
+
+    public MetricasInventario(MeterRegistry registry) {
+        this.ventasRegistradas = Counter.builder("inventario.ventas")
+                .description("Ventas registradas")
+                .register(registry);
+        this.importeVentas = DistributionSummary.builder("inventario.ventas.importe")
+                .description("Importe total por venta")
+                .register(registry);
+        this.ventasCanceladas = Counter.builder("inventario.ventas.canceladas")
+                .description("Ventas canceladas")
+                .register(registry);
+        this.stockInsuficiente = Counter.builder("inventario.stock.insuficiente")
+                .description("Operaciones rechazadas por falta de stock")
+                .register(registry);
+    }
+
+    public void ventaRegistrada(BigDecimal total) {
+        ventasRegistradas.increment();
+        importeVentas.record(total.doubleValue());
+    }
+
+    public void ventaCancelada() {
+        ventasCanceladas.increment();
+    }
+
+    public void stockInsuficiente() {
+        stockInsuficiente.increment();
+    }
+}
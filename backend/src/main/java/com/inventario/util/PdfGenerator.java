@@ -12,6 +12,7 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.*;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Component
+@Observed(name = "inventario.pdf")
 public class PdfGenerator {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
@@ -293,32 +295,3 @@ public class PdfGenerator {
                 .setBackgroundColor(ColorConstants.LIGHT_GRAY);
     }
 }
-package com.inventario.config;
-
-import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.info.Contact;
-import io.swagger.v3.oas.models.info.Info;
-import io.swagger.v3.oas.models.info.License;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-@Configuration
-public class OpenApiConfig {
-
-    @Bean
-    public OpenAPI customOpenAPI() {
-        return new OpenAPI()
-                .info(new Info()
-                        .title("API Sistema de Inventario - Repuestos de Motos")
-                        .version("1.0.0")
-                        .description("API REST para la gestión de inventario de repuestos de motocicletas. " +
-                                "Permite administrar productos, ventas, proveedores, categorías y reportes.")
-                        .contact(new Contact()
-                                .name("Soporte Técnico")
-                                .email("soporte@inventariomotos.com"))
-                        .license(new License()
-                                .name("Uso Privado")
-                                .url("#")));
-    }
-}
-
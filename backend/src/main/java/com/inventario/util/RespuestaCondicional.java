@@ -0,0 +1,47 @@
+package com.inventario.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas GET condicionales: si el If-None-Match del cliente coincide con el ETag actual
+ * se responde 304 sin ejecutar la consulta ni serializar el cuerpo.
+ */
+@Component
+public class RespuestaCondicional {
+
+    private final CacheControl politicaListados;
+    private final CacheControl politicaRevalidar = CacheControl.noCache().cachePrivate();
+
+    public RespuestaCondicional(@Value("${app.cache-http.max-age-listados:30}") long maxAgeListados) {
+        this.politicaListados = CacheControl.maxAge(Duration.ofSeconds(maxAgeListados))
+                .cachePrivate()
+                .mustRevalidate();
+    }
+
+    // Listados que cambian poco (categorías, proveedores)
+    public <T> ResponseEntity<T> listado(WebRequest request, String etag, Supplier<T> cuerpo) {
+        return responder(request, etag, politicaListados, cuerpo);
+    }
+
+    // Recursos que cambian con cada venta o entrada de stock
+    public <T> ResponseEntity<T> revalidando(WebRequest request, String etag, Supplier<T> cuerpo) {
+        return responder(request, etag, politicaRevalidar, cuerpo);
+    }
+
+    private <T> ResponseEntity<T> responder(WebRequest request, String etag, CacheControl politica,
+                                            Supplier<T> cuerpo) {
+        // checkNotModified ya escribe la cabecera ETag en la respuesta, tanto en el 304 como en el 200
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(politica).build();
+        }
+        return ResponseEntity.ok().cacheControl(politica).body(cuerpo.get());
+    }
+}
@@ -0,0 +1,73 @@
+package com.inventario.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporizadores: los elementos se reparten en N ranuras según el tic (intervalo fijo)
+ * en que vencen, y cada avance solo revisa las ranuras de los tics transcurridos, sin recorrer
+ * todos los elementos programados. Un vencimiento más lejano que una vuelta completa
+ * (ranuras x tic) se queda en su ranura hasta la vuelta que le corresponde.
+ *
+ * Se puede programar desde cualquier hilo; solo un hilo debe llamar a
+ * {@link #avanzar(long, Consumer)}. No admite cancelar: quien la usa ignora al vencer los
+ * elementos que ya no le interesan. Un elemento programado justo mientras se revisa su ranura
+ * puede vencer con una vuelta de retraso.
+ */
+public final class RuedaTemporizadora<T> {
+
+    private record Entrada<T>(T elemento, long vencimiento) {
+    }
+
+    private final Queue<Entrada<T>>[] ranuras;
+    private final long ticMillis;
+
+    // Último tic revisado
+    private volatile long ultimoTic;
+
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadora(int numeroRanuras, long ticMillis, long ahoraMillis) {
+        this.ranuras = new Queue[numeroRanuras];
+        for (int i = 0; i < numeroRanuras; i++) {
+            this.ranuras[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.ticMillis = ticMillis;
+        this.ultimoTic = ahoraMillis / ticMillis;
+    }
+
+    // Programa el elemento para vencer en el instante indicado (milisegundos de época)
+    public void programar(T elemento, long vencimientoMillis) {
+        // Primer tic en cuyo avance ya ha vencido; si ya pasó, el siguiente que se revise
+        long tic = Math.max(Math.floorDiv(vencimientoMillis + ticMillis - 1, ticMillis), ultimoTic + 1);
+        ranuras[(int) (tic % ranuras.length)].add(new Entrada<>(elemento, vencimientoMillis));
+    }
+
+    // Revisa los tics transcurridos hasta ahora y entrega los elementos vencidos
+    public void avanzar(long ahoraMillis, Consumer<T> vencido) {
+        long hasta = ahoraMillis / ticMillis;
+        // Tras una pausa de más de una vuelta basta con revisar cada ranura una vez
+        long desde = Math.max(ultimoTic + 1, hasta - ranuras.length + 1);
+        List<Entrada<T>> revisadas = new ArrayList<>();
+        for (long tic = desde; tic <= hasta; tic++) {
+            ultimoTic = tic;
+            Queue<Entrada<T>> ranura = ranuras[(int) (tic % ranuras.length)];
+            for (Entrada<T> entrada = ranura.poll(); entrada != null; entrada = ranura.poll()) {
+                revisadas.add(entrada);
+            }
+            for (Entrada<T> entrada : revisadas) {
+                if (entrada.vencimiento() <= ahoraMillis) {
+                    vencido.accept(entrada.elemento());
+                } else {
+                    ranura.add(entrada);
+                }
+            }
+            revisadas.clear();
+        }
+        if (hasta > ultimoTic) {
+            ultimoTic = hasta;
+        }
+    }
+}
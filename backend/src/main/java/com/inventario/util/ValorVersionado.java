@@ -0,0 +1,27 @@
+package com.inventario.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Valor calculado que se reutiliza mientras no cambie la versión de su sección en
+ * VersionCatalogo. La versión se lee antes de calcular: si el catálogo cambia durante el
+ * cálculo, el valor queda asociado a la versión anterior y la siguiente llamada lo recalcula.
+ */
+public final class ValorVersionado<T> {
+
+    private record Calculado<T>(long version, T valor) {
+    }
+
+    private volatile Calculado<T> calculado;
+
+    // Valor para la versión indicada; si el guardado es de otra versión se recalcula
+    public T obtener(long version, Supplier<T> calculo) {
+        Calculado<T> actual = calculado;
+        if (actual != null && actual.version() == version) {
+            return actual.valor();
+        }
+        T valor = calculo.get();
+        calculado = new Calculado<>(version, valor);
+        return valor;
+    }
+}
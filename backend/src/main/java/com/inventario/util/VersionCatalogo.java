@@ -0,0 +1,162 @@
+package com.inventario.util;
+
+import com.inventario.entity.Categoria;
+import com.inventario.entity.Producto;
+import com.inventario.entity.Proveedor;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de cambios del catálogo usados para calcular los ETag de las respuestas GET.
+ * Cada inserción, actualización o borrado de productos, categorías o proveedores incrementa
+ * la versión de su sección al confirmarse la transacción. Las sentencias masivas que no pasan
+ * por los eventos de Hibernate deben llamar a {@link #registrarCambio(Seccion...)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersionCatalogo {
+
+    public enum Seccion { PRODUCTOS, CATEGORIAS, PROVEEDORES }
+
+    // Distingue los ETag de cada arranque, porque los contadores viven en memoria
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Seccion, AtomicLong> versiones = new EnumMap<>(Seccion.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registrarListeners() {
+        for (Seccion seccion : Seccion.values()) {
+            versiones.put(seccion, new AtomicLong());
+        }
+
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, new PostInsertEventListener() {
+            @Override
+            public void onPostInsert(PostInsertEvent evento) {
+                entidadCreadaOBorrada(evento.getEntity());
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister persister) {
+                return false;
+            }
+        });
+        listeners.appendListeners(EventType.POST_DELETE, new PostDeleteEventListener() {
+            @Override
+            public void onPostDelete(PostDeleteEvent evento) {
+                entidadCreadaOBorrada(evento.getEntity());
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister persister) {
+                return false;
+            }
+        });
+        listeners.appendListeners(EventType.POST_UPDATE, new PostUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent evento) {
+                entidadActualizada(evento);
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister persister) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Incrementa la versión de las secciones indicadas. Dentro de una transacción el cambio
+     * se aplica tras el commit, para no publicar un ETag nuevo con datos aún sin confirmar.
+     */
+    public void registrarCambio(Seccion... secciones) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementar(secciones);
+                }
+            });
+        } else {
+            incrementar(secciones);
+        }
+    }
+
+    public long version(Seccion seccion) {
+        return versiones.get(seccion).get();
+    }
+
+    /**
+     * ETag débil formado por un prefijo y las versiones actuales de las secciones indicadas.
+     */
+    public String etag(String prefijo, Seccion... secciones) {
+        StringBuilder etag = new StringBuilder("W/\"").append(prefijo).append('-').append(arranque);
+        for (Seccion seccion : secciones) {
+            etag.append('-').append(version(seccion));
+        }
+        return etag.append('"').toString();
+    }
+
+    private void incrementar(Seccion... secciones) {
+        for (Seccion seccion : secciones) {
+            versiones.get(seccion).incrementAndGet();
+        }
+    }
+
+    // Los listados de categorías y proveedores incluyen la cantidad de productos asignados
+    private void entidadCreadaOBorrada(Object entidad) {
+        if (entidad instanceof Producto) {
+            registrarCambio(Seccion.PRODUCTOS, Seccion.CATEGORIAS, Seccion.PROVEEDORES);
+        } else if (entidad instanceof Categoria) {
+            registrarCambio(Seccion.CATEGORIAS, Seccion.PRODUCTOS);
+        } else if (entidad instanceof Proveedor) {
+            registrarCambio(Seccion.PROVEEDORES, Seccion.PRODUCTOS);
+        }
+    }
+
+    // Un cambio de stock solo afecta a los productos; reasignar categoría o proveedor cambia sus cantidades
+    private void entidadActualizada(PostUpdateEvent evento) {
+        Object entidad = evento.getEntity();
+        if (entidad instanceof Producto) {
+            registrarCambio(Seccion.PRODUCTOS);
+            int[] modificadas = evento.getDirtyProperties();
+            if (modificadas == null) {
+                registrarCambio(Seccion.CATEGORIAS, Seccion.PROVEEDORES);
+                return;
+            }
+            String[] propiedades = evento.getPersister().getPropertyNames();
+            for (int indice : modificadas) {
+                if ("categoria".equals(propiedades[indice])) {
+                    registrarCambio(Seccion.CATEGORIAS);
+                } else if ("proveedor".equals(propiedades[indice])) {
+                    registrarCambio(Seccion.PROVEEDORES);
+                }
+            }
+        } else if (entidad instanceof Categoria) {
+            // El nombre de la categoría forma parte del DTO de producto
+            registrarCambio(Seccion.CATEGORIAS, Seccion.PRODUCTOS);
+        } else if (entidad instanceof Proveedor) {
+            registrarCambio(Seccion.PROVEEDORES, Seccion.PRODUCTOS);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.inventario;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PostgreSQL embebido compartido por las pruebas de integración. Cada clase de prueba usa su
+ * propia base de datos, creada la primera vez que se pide, para que sus datos no se mezclen
+ * aunque Spring reutilice o no el contexto.
+ */
+public final class PostgresPruebas {
+
+    private static EmbeddedPostgres postgres;
+    private static final Set<String> creadas = new HashSet<>();
+
+    private PostgresPruebas() {
+    }
+
+    /**
+     * Apunta el DataSource principal del backend a la base de datos indicada, con el esquema
+     * generado por Hibernate y sin muestreo de trazas.
+     */
+    public static void configurar(DynamicPropertyRegistry registro, String baseDatos) {
+        registro.add("spring.datasource.url", () -> url(baseDatos));
+        registro.add("spring.datasource.username", () -> "postgres");
+        registro.add("spring.datasource.password", () -> "postgres");
+        registro.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registro.add("management.tracing.sampling.probability", () -> "0");
+        registro.add("logging.level.root", () -> "WARN");
+    }
+
+    // URL JDBC de la base de datos, que se crea vacía si no existe
+    public static synchronized String url(String baseDatos) {
+        try {
+            if (postgres == null) {
+                postgres = EmbeddedPostgres.start();
+            }
+            if (creadas.add(baseDatos)) {
+                try (Connection conexion = postgres.getPostgresDatabase().getConnection();
+                     Statement st = conexion.createStatement()) {
+                    st.execute("CREATE DATABASE " + baseDatos);
+                }
+            }
+            return postgres.getJdbcUrl("postgres", baseDatos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo crear la base de datos " + baseDatos, e);
+        }
+    }
+
+    // Código de barras del producto i (1..productos) sembrado
+    public static String codigoProducto(int i) {
+        return String.format("779%010d", i);
+    }
+
+    /**
+     * Siembra un catálogo de 5 categorías, 3 proveedores y los productos indicados, todos con el
+     * mismo stock inicial.
+     */
+    public static void sembrarCatalogo(JdbcTemplate jdbc, int productos, int stockInicial) {
+        jdbc.execute("INSERT INTO categorias (nombre, descripcion, activo) " +
+                "SELECT 'Categoría ' || i, 'Repuestos del grupo ' || i, true FROM generate_series(1, 5) i");
+        jdbc.execute("INSERT INTO proveedores (nombre, ruc, activo) " +
+                "SELECT 'Proveedor ' || i, '20' || lpad(i::text, 9, '0'), true FROM generate_series(1, 3) i");
+        jdbc.execute("INSERT INTO productos (codigo_barras, codigo_interno, nombre, descripcion, marca, " +
+                "modelo_compatible, categoria_id, precio_venta, stock_actual, stock_minimo, proveedor_id, " +
+                "fecha_ingreso, ubicacion, activo, fecha_creacion) " +
+                "SELECT '779' || lpad(i::text, 10, '0'), 'INT-' || i, 'Repuesto ' || i, " +
+                "'Descripción del repuesto ' || i, 'Marca ' || (i % 12), 'Modelo ' || (i % 40), " +
+                "(SELECT min(id) FROM categorias) + i % 5, 10 + (i % 500) * 1.5, " + stockInicial + ", 5, " +
+                "(SELECT min(id) FROM proveedores) + i % 3, current_date, 'Estante ' || (i % 30), true, now() " +
+                "FROM generate_series(1, " + productos + ") i");
+    }
+}
@@ -0,0 +1,137 @@
+package com.inventario.config;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.ProductoDTO;
+import com.inventario.service.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Enrutado entre primaria y réplica con dos bases de datos distintas en el PostgreSQL embebido.
+ * La réplica tiene el mismo esquema y los mismos productos con otro nombre, de modo que cada
+ * lectura revela de qué base de datos salió: los listados marcados con {@link LecturaReplica}
+ * van a la réplica y las lecturas puntuales, las escrituras y los listados con la réplica no
+ * utilizable van a la primaria.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LecturaReplicaTest {
+
+    private static final String PRIMARIA = "replica_primaria";
+    private static final String REPLICA = "replica_lectura";
+
+    // Esquema que genera Hibernate para la primaria, para crearlo igual en la réplica
+    private static final Path ESQUEMA;
+
+    static {
+        try {
+            ESQUEMA = Files.createTempFile("esquema-replica", ".sql");
+            ESQUEMA.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        PostgresPruebas.configurar(registro, PRIMARIA);
+        registro.add("app.datasource.replica.habilitada", () -> "true");
+        registro.add("app.datasource.replica.url", () -> PostgresPruebas.url(REPLICA));
+        registro.add("app.datasource.replica.username", () -> "postgres");
+        registro.add("app.datasource.replica.password", () -> "postgres");
+        registro.add("spring.jpa.properties.jakarta.persistence.schema-generation.database.action", () -> "update");
+        registro.add("spring.jpa.properties.jakarta.persistence.schema-generation.scripts.action", () -> "create");
+        registro.add("spring.jpa.properties.jakarta.persistence.schema-generation.scripts.create-target", ESQUEMA::toString);
+        registro.add("spring.jpa.properties.hibernate.hbm2ddl.schema-generation.script.append", () -> "false");
+        registro.add("spring.jpa.properties.hibernate.hbm2ddl.delimiter", () -> ";");
+    }
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @SpyBean
+    private MonitorReplica monitorReplica;
+
+    private JdbcTemplate jdbcReplica;
+
+    @BeforeAll
+    void sembrar() throws IOException {
+        PostgresPruebas.sembrarCatalogo(jdbc, 3, 10);
+
+        jdbcReplica = new JdbcTemplate(new DriverManagerDataSource(PostgresPruebas.url(REPLICA), "postgres", "postgres"));
+        for (String sentencia : Files.readString(ESQUEMA).split(";")) {
+            if (!sentencia.isBlank()) {
+                jdbcReplica.execute(sentencia);
+            }
+        }
+        PostgresPruebas.sembrarCatalogo(jdbcReplica, 3, 10);
+        jdbcReplica.update("UPDATE productos SET nombre = 'Réplica ' || nombre");
+        monitorReplica.verificar();
+    }
+
+    @AfterEach
+    void restaurarMonitor() {
+        Mockito.reset(monitorReplica);
+    }
+
+    @Test
+    void listadoMarcadoLeeDeLaReplica() {
+        assertThat(monitorReplica.isUtilizable()).isTrue();
+
+        assertThat(productoService.listarTodos(0, 10, "nombre", "asc").getContent())
+                .extracting(ProductoDTO::getNombre)
+                .containsExactly("Réplica Repuesto 1", "Réplica Repuesto 2", "Réplica Repuesto 3");
+    }
+
+    @Test
+    void lecturaPuntualLeeDeLaPrimaria() {
+        assertThat(productoService.obtenerPorCodigoBarras(PostgresPruebas.codigoProducto(2)).getNombre())
+                .isEqualTo("Repuesto 2");
+    }
+
+    @Test
+    void escrituraVaALaPrimaria() {
+        String codigo = PostgresPruebas.codigoProducto(3);
+        int enReplica = stock(jdbcReplica, codigo);
+        int antes = stock(jdbc, codigo);
+
+        productoService.ajustarStock(codigo, 5, "Recuento", true);
+
+        assertThat(stock(jdbc, codigo)).isEqualTo(antes + 5);
+        assertThat(stock(jdbcReplica, codigo)).isEqualTo(enReplica);
+    }
+
+    @Test
+    void sinReplicaUtilizableElListadoLeeDeLaPrimaria() {
+        doReturn(false).when(monitorReplica).isUtilizable();
+
+        assertThat(productoService.listarTodos(0, 10, "nombre", "asc").getContent())
+                .extracting(ProductoDTO::getNombre)
+                .containsExactly("Repuesto 1", "Repuesto 2", "Repuesto 3");
+    }
+
+    private static int stock(JdbcTemplate jdbc, String codigo) {
+        return jdbc.queryForObject("SELECT stock_actual FROM productos WHERE codigo_barras = ?", Integer.class, codigo);
+    }
+}
@@ -0,0 +1,178 @@
+package com.inventario.repository;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.config.JornadaComercial;
+import com.inventario.dto.ReporteVentasDTO;
+import com.inventario.dto.VentaDiariaDTO;
+import com.inventario.service.ReporteService;
+import com.inventario.util.ContadorConsultas;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Las consultas por rango de fechas (ventas del día, totales, órdenes de un periodo) deben
+ * resolverse con idx_venta_fecha o idx_venta_estado_fecha (e idx_orden_fecha o
+ * idx_orden_estado_fecha), no recorriendo la tabla. Se siembra un año de ventas y órdenes, se
+ * captura el SQL que genera Hibernate para cada consulta y se comprueba su plan con EXPLAIN.
+ * Las ventas diarias del reporte se agrupan por jornada comercial, no por fecha de calendario.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasRangoFechaTest {
+
+    // El planificador elige entre el índice de fecha y el de estado y fecha según la selectividad
+    private static final String INDICE_VENTAS = "Index.* idx_venta_(estado_)?fecha";
+    private static final String INDICE_ORDENES = "Index.* idx_orden_(estado_)?fecha";
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        PostgresPruebas.configurar(registro, "consultas_rango");
+    }
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Autowired
+    private JornadaComercial jornada;
+
+    @Autowired
+    private ReporteService reporteService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        PostgresPruebas.sembrarCatalogo(jdbc, 10, 100);
+        // 200.000 ventas repartidas en 400 días, una de cada diez cancelada
+        jdbc.execute("INSERT INTO ventas (id, fecha_hora, total, estado) " +
+                "SELECT nextval('ventas_id_seq'), now() - (i % 400) * interval '1 day' - (i % 1440) * interval '1 minute', " +
+                "10 + i % 90, CASE WHEN i % 10 = 0 THEN 'CANCELADA' ELSE 'COMPLETADA' END " +
+                "FROM generate_series(1, 200000) i");
+        // 50.000 órdenes en el mismo periodo, casi todas ya recibidas
+        jdbc.execute("INSERT INTO ordenes_compra (id, proveedor_id, fecha_orden, estado, total) " +
+                "SELECT nextval('ordenes_compra_id_seq'), (SELECT min(id) FROM proveedores), " +
+                "now() - (i % 400) * interval '1 day', CASE WHEN i % 50 = 0 THEN 'PENDIENTE' ELSE 'RECIBIDA' END, 100 " +
+                "FROM generate_series(1, 50000) i");
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    void ventasCompletadasDelDiaUsanIndice() {
+        JornadaComercial.Rango hoy = jornada.hoy();
+
+        String sql = capturarSql(() -> ventaRepository.countCompletadasEnRango(hoy.inicio(), hoy.fin()));
+
+        assertThat(explicar(sql, hoy.inicio(), hoy.fin()))
+                .containsPattern(INDICE_VENTAS)
+                .doesNotContain("Seq Scan on ventas");
+    }
+
+    @Test
+    void totalDelPeriodoUsaIndice() {
+        JornadaComercial.Rango semana = jornada.dias(jornada.fechaActual().minusDays(6), jornada.fechaActual());
+
+        String sql = capturarSql(() -> ventaRepository.sumTotalVentasByFecha(semana.inicio(), semana.fin()));
+
+        assertThat(explicar(sql, semana.inicio(), semana.fin()))
+                .containsPattern(INDICE_VENTAS)
+                .doesNotContain("Seq Scan on ventas");
+    }
+
+    @Test
+    void ventasCompletadasConDetallesUsanIndice() {
+        JornadaComercial.Rango hoy = jornada.hoy();
+
+        String sql = capturarSql(() -> ventaRepository.findCompletadasEnRango(hoy.inicio(), hoy.fin()));
+
+        assertThat(explicar(sql, hoy.inicio(), hoy.fin()))
+                .containsPattern(INDICE_VENTAS)
+                .doesNotContain("Seq Scan on ventas");
+    }
+
+    @Test
+    void ventasDelRangoUsanIndice() {
+        JornadaComercial.Rango hoy = jornada.hoy();
+
+        String sql = capturarSql(() -> ventaRepository.countEnRango(hoy.inicio(), hoy.fin()));
+
+        assertThat(explicar(sql, hoy.inicio(), hoy.fin()))
+                .containsPattern(INDICE_VENTAS)
+                .doesNotContain("Seq Scan on ventas");
+    }
+
+    @Test
+    void ordenesDelRangoUsanIndice() {
+        JornadaComercial.Rango semana = jornada.dias(jornada.fechaActual().minusDays(6), jornada.fechaActual());
+
+        String sql = capturarSql(() -> ordenCompraRepository.findEnRango(semana.inicio(), semana.fin()));
+
+        assertThat(explicar(sql, semana.inicio(), semana.fin()))
+                .containsPattern(INDICE_ORDENES)
+                .doesNotContain("Seq Scan on ordenes_compra");
+    }
+
+    @Test
+    void ventasDiariasSeAgrupanPorJornada() {
+        // Lejos del año sembrado; con cierre a las 4 la madrugada cuenta para la jornada anterior
+        jdbc.update("INSERT INTO ventas (id, fecha_hora, total, estado) " +
+                "SELECT nextval('ventas_id_seq'), f, 10, 'COMPLETADA' FROM unnest(ARRAY[" +
+                "timestamp '2020-01-01 10:00', timestamp '2020-01-02 02:00', timestamp '2020-01-02 05:00', " +
+                "timestamp '2020-01-03 03:59', timestamp '2020-01-03 04:00']) f");
+        int horaCierre = jornada.getHoraCierre();
+        jornada.setHoraCierre(4);
+        try {
+            ReporteVentasDTO reporte = reporteService.generarReporteVentas(
+                    LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2));
+
+            assertThat(reporte.getCantidadVentas()).isEqualTo(4);
+            assertThat(reporte.getVentasDiarias())
+                    .extracting(VentaDiariaDTO::getFecha, VentaDiariaDTO::getCantidadVentas)
+                    .containsExactly(tuple(LocalDate.of(2020, 1, 1), 2L), tuple(LocalDate.of(2020, 1, 2), 2L));
+            assertThat(reporte.getVentasDiarias())
+                    .allSatisfy(dia -> assertThat(dia.getTotal()).isEqualByComparingTo("20"));
+        } finally {
+            jornada.setHoraCierre(horaCierre);
+        }
+    }
+
+    // SQL que Hibernate envía a PostgreSQL para la consulta (debe ser una sola sentencia)
+    private String capturarSql(Runnable consulta) {
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            consulta.run();
+            Set<String> sentencias = medicion.getSentenciasRepetidas(1).keySet();
+            assertThat(sentencias).hasSize(1);
+            return sentencias.iterator().next();
+        }
+    }
+
+    // Plan de la sentencia con sus parámetros (?) sustituidos por las fechas indicadas
+    private String explicar(String sql, LocalDateTime... fechas) {
+        String consulta = sql;
+        for (LocalDateTime fecha : fechas) {
+            consulta = consulta.replaceFirst("\\?", "timestamp '" + FORMATO.format(fecha) + "'");
+        }
+        List<String> plan = jdbc.queryForList("EXPLAIN " + consulta, String.class);
+        return String.join("\n", plan);
+    }
+}
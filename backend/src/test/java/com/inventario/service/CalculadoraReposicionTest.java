@@ -0,0 +1,169 @@
+package com.inventario.service;
+
+import com.inventario.entity.OrdenCompra;
+import com.inventario.entity.Producto;
+import com.inventario.entity.SugerenciaReposicion;
+import com.inventario.repository.DetalleOrdenCompraRepository;
+import com.inventario.repository.DetalleVentaRepository;
+import com.inventario.repository.MovimientoInventarioRepository;
+import com.inventario.repository.OrdenCompraRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.SugerenciaReposicionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cálculo de las sugerencias de un proveedor con los repositorios simulados: demanda diaria
+ * (media y desviación con los días sin ventas a cero), plazo de entrega promedio, stock de
+ * seguridad, punto de reorden y stock objetivo, y qué productos recalcula el modo incremental.
+ */
+class CalculadoraReposicionTest {
+
+    private static final Long PROVEEDOR = 1L;
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final DetalleVentaRepository detalleVentaRepository = mock(DetalleVentaRepository.class);
+    private final DetalleOrdenCompraRepository detalleOrdenRepository = mock(DetalleOrdenCompraRepository.class);
+    private final OrdenCompraRepository ordenCompraRepository = mock(OrdenCompraRepository.class);
+    private final MovimientoInventarioRepository movimientoRepository = mock(MovimientoInventarioRepository.class);
+    private final SugerenciaReposicionRepository sugerenciaRepository = mock(SugerenciaReposicionRepository.class);
+
+    private final CalculadoraReposicion calculadora = new CalculadoraReposicion(productoRepository,
+            detalleVentaRepository, detalleOrdenRepository, ordenCompraRepository, movimientoRepository,
+            sugerenciaRepository);
+
+    @BeforeEach
+    void configurar() {
+        // Ventana de 4 días, 14 de cobertura, z = 1,65
+        ReflectionTestUtils.setField(calculadora, "ventanaDias", 4);
+        ReflectionTestUtils.setField(calculadora, "diasCobertura", 14);
+        ReflectionTestUtils.setField(calculadora, "plazoEntregaDefecto", 7.0);
+        ReflectionTestUtils.setField(calculadora, "nivelServicioZ", 1.65);
+        ReflectionTestUtils.setField(calculadora, "vigenciaDias", 7);
+    }
+
+    @Test
+    void demandaPlazoYStockDeSeguridad() {
+        when(productoRepository.findByProveedorIdAndActivoTrue(PROVEEDOR)).thenReturn(List.of(
+                producto("A", 5, "10.00"), producto("B", 5, "10.00"), producto("C", 5, "10.00")));
+        LocalDate hoy = LocalDate.now();
+        when(detalleVentaRepository.findVentasDiariasPorProveedor(eq(PROVEEDOR), any())).thenReturn(List.of(
+                // A: 2 unidades los 4 días (media 2, sin variación)
+                new Object[] {"A", hoy, 2L}, new Object[] {"A", hoy.minusDays(1), 2L},
+                new Object[] {"A", hoy.minusDays(2), 2L}, new Object[] {"A", hoy.minusDays(3), 2L},
+                // B: 4 unidades en 2 de los 4 días (media 2, desviación 2)
+                new Object[] {"B", hoy, 4L}, new Object[] {"B", hoy.minusDays(2), 4L}));
+        // Recepciones a los 2 y a los 4 días de pedirlas: plazo de 3 días
+        LocalDateTime fecha = LocalDateTime.now().minusDays(30);
+        when(ordenCompraRepository.findTop10ByProveedorIdAndFechaRecepcionIsNotNullOrderByFechaRecepcionDesc(PROVEEDOR))
+                .thenReturn(List.of(orden(fecha, 2), orden(fecha, 4)));
+        when(detalleOrdenRepository.findUltimosPreciosCompraPorProveedor(PROVEEDOR))
+                .thenReturn(List.<Object[]>of(new Object[] {"A", new BigDecimal("6.50")}));
+
+        Map<String, SugerenciaReposicion> sugerencias = calcular(false);
+
+        SugerenciaReposicion a = sugerencias.get("A");
+        assertThat(a.getVentaDiaria()).isEqualByComparingTo("2");
+        assertThat(a.getDesviacionDiaria()).isEqualByComparingTo("0");
+        assertThat(a.getPlazoEntregaDias()).isEqualByComparingTo("3");
+        assertThat(a.getStockSeguridad()).isZero();
+        // 2 x 3 días de plazo; 2 x (3 + 14) días de cobertura
+        assertThat(a.getPuntoReorden()).isEqualTo(6);
+        assertThat(a.getStockObjetivo()).isEqualTo(34);
+        assertThat(a.getPrecioCompra()).isEqualByComparingTo("6.50");
+        assertThat(a.getPrecioEstimado()).isFalse();
+
+        SugerenciaReposicion b = sugerencias.get("B");
+        assertThat(b.getVentaDiaria()).isEqualByComparingTo("2");
+        assertThat(b.getDesviacionDiaria()).isEqualByComparingTo("2");
+        // ceil(1,65 x 2 x raíz(3)) = ceil(5,72)
+        assertThat(b.getStockSeguridad()).isEqualTo(6);
+        assertThat(b.getPuntoReorden()).isEqualTo(6 + 6);
+        assertThat(b.getStockObjetivo()).isEqualTo(34 + 6);
+
+        // Sin ventas manda el stock mínimo, y sin compras el precio se estima en el 70 % del de venta
+        SugerenciaReposicion c = sugerencias.get("C");
+        assertThat(c.getVentaDiaria()).isEqualByComparingTo("0");
+        assertThat(c.getStockSeguridad()).isZero();
+        assertThat(c.getPuntoReorden()).isEqualTo(5);
+        assertThat(c.getStockObjetivo()).isEqualTo(10);
+        assertThat(c.getPrecioCompra()).isEqualByComparingTo("7.00");
+        assertThat(c.getPrecioEstimado()).isTrue();
+    }
+
+    @Test
+    void sinRecepcionesSeUsaElPlazoPorDefecto() {
+        when(productoRepository.findByProveedorIdAndActivoTrue(PROVEEDOR)).thenReturn(List.of(producto("A", 1, "10.00")));
+        LocalDate hoy = LocalDate.now();
+        when(detalleVentaRepository.findVentasDiariasPorProveedor(eq(PROVEEDOR), any())).thenReturn(List.of(
+                new Object[] {"A", hoy, 1L}, new Object[] {"A", hoy.minusDays(1), 1L},
+                new Object[] {"A", hoy.minusDays(2), 1L}, new Object[] {"A", hoy.minusDays(3), 1L}));
+
+        SugerenciaReposicion a = calcular(false).get("A");
+
+        assertThat(a.getPlazoEntregaDias()).isEqualByComparingTo("7");
+        assertThat(a.getPuntoReorden()).isEqualTo(7);
+        assertThat(a.getStockObjetivo()).isEqualTo(7 + 14);
+    }
+
+    @Test
+    void elIncrementalSoloRecalculaLosProductosNuevosOCambiados() {
+        LocalDateTime calculo = LocalDateTime.now().minusDays(1);
+        Producto igual = producto("A", 5, "10.00");
+        Producto cambiado = producto("B", 5, "10.00");
+        // Pasó a este proveedor después del último cálculo
+        cambiado.setFechaActualizacion(calculo.plusHours(2));
+        Producto nuevo = producto("C", 5, "10.00");
+        when(productoRepository.findByProveedorIdAndActivoTrue(PROVEEDOR)).thenReturn(List.of(igual, cambiado, nuevo));
+        when(sugerenciaRepository.findByProveedorId(PROVEEDOR)).thenReturn(List.of(
+                SugerenciaReposicion.builder().productoCodigo("A").producto(igual).fechaCalculo(calculo).build(),
+                SugerenciaReposicion.builder().productoCodigo("B").producto(cambiado).fechaCalculo(calculo).build()));
+
+        assertThat(calcular(false)).containsOnlyKeys("B", "C");
+    }
+
+    private Map<String, SugerenciaReposicion> calcular(boolean completo) {
+        int calculadas = calculadora.recalcularProveedor(PROVEEDOR, completo).join();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SugerenciaReposicion>> guardadas = ArgumentCaptor.forClass(List.class);
+        verify(sugerenciaRepository).saveAll(guardadas.capture());
+        assertThat(guardadas.getValue()).hasSize(calculadas);
+        return guardadas.getValue().stream()
+                .collect(Collectors.toMap(s -> s.getProducto().getCodigoBarras(), Function.identity()));
+    }
+
+    private static Producto producto(String codigo, int stockMinimo, String precioVenta) {
+        return Producto.builder()
+                .codigoBarras(codigo)
+                .nombre("Repuesto " + codigo)
+                .stockActual(0)
+                .stockMinimo(stockMinimo)
+                .precioVenta(new BigDecimal(precioVenta))
+                .activo(true)
+                .build();
+    }
+
+    private static OrdenCompra orden(LocalDateTime fechaOrden, int diasEntrega) {
+        return OrdenCompra.builder()
+                .fechaOrden(fechaOrden)
+                .fechaRecepcion(fechaOrden.plusDays(diasEntrega))
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.inventario.service;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.DetalleOrdenCompraDTO;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.VentaDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga mixta sobre pocos productos con CerrojosStock (la de CerrojosStockBenchmark, acotada):
+ * ventas de varias líneas en orden aleatorio, cancelaciones, recepciones de órdenes y ajustes a
+ * la vez. Ninguna operación debe fallar (un interbloqueo de PostgreSQL llega como
+ * CannotAcquireLockException) y el stock de cada producto debe cuadrar con sus movimientos.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "app.stock.cerrojos.habilitado=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CerrojosStockTest {
+
+    private static final int PRODUCTOS = 6;
+    private static final int STOCK_INICIAL = 1_000_000;
+    private static final int HILOS = 16;
+    private static final int OPERACIONES_POR_HILO = 60;
+    private static final int ORDENES = 60;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        PostgresPruebas.configurar(registro, "cerrojos_stock");
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private OrdenCompraService ordenCompraService;
+
+    @Autowired
+    private MovimientoInventarioService movimientoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final List<Long> ordenes = new ArrayList<>();
+    private final AtomicInteger siguienteOrden = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Long> ventasCancelables = new ConcurrentLinkedQueue<>();
+    private final Map<String, ConcurrentLinkedQueue<String>> errores = new ConcurrentHashMap<>();
+
+    @BeforeAll
+    void sembrar() {
+        PostgresPruebas.sembrarCatalogo(jdbc, PRODUCTOS, STOCK_INICIAL);
+        // Órdenes de 3 productos que se reciben de una en una, cada una solo una vez
+        Long proveedor = jdbc.queryForObject("SELECT min(id) FROM proveedores", Long.class);
+        for (int i = 0; i < ORDENES; i++) {
+            List<DetalleOrdenCompraDTO> detalles = new ArrayList<>();
+            for (int p = 0; p < 3; p++) {
+                detalles.add(DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(PostgresPruebas.codigoProducto(1 + (i + p * 2) % PRODUCTOS))
+                        .cantidadSolicitada(10)
+                        .precioCompra(BigDecimal.TEN)
+                        .build());
+            }
+            ordenes.add(ordenCompraService.crear(OrdenCompraDTO.builder().proveedorId(proveedor).detalles(detalles).build()).getId());
+        }
+    }
+
+    @Test
+    void cargaMixtaSinInterbloqueosNiStockDescuadrado() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<?>> terminales = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                SplittableRandom random = new SplittableRandom(h);
+                terminales.add(hilos.submit(() -> {
+                    for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                        operar(random);
+                    }
+                }));
+            }
+            for (Future<?> terminal : terminales) {
+                terminal.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        assertThat(errores).isEmpty();
+        // Stock final frente al inicial más los movimientos de cada producto
+        Integer descuadrados = jdbc.queryForObject(
+                "SELECT count(*) FROM productos p WHERE p.stock_actual <> " + STOCK_INICIAL + " + COALESCE((" +
+                "SELECT sum(CASE WHEN m.tipo_movimiento IN ('SALIDA', 'AJUSTE_NEGATIVO') THEN -m.cantidad ELSE m.cantidad END) " +
+                "FROM movimientos_inventario m WHERE m.producto_codigo = p.codigo_barras), 0)", Integer.class);
+        assertThat(descuadrados).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM ventas", Integer.class)).isPositive();
+    }
+
+    private void operar(SplittableRandom random) {
+        int tipo = random.nextInt(10);
+        try {
+            if (tipo < 6) {
+                vender(random);
+            } else if (tipo < 8) {
+                Long venta = ventasCancelables.poll();
+                if (venta != null) {
+                    ventaService.cancelarVenta(venta);
+                } else {
+                    vender(random);
+                }
+            } else if (tipo < 9 && siguienteOrden.get() < ordenes.size()) {
+                recibir();
+            } else {
+                String codigo = productos(random).get(0);
+                movimientoService.registrarAjuste(codigo, 1 + random.nextInt(5), "Recuento", random.nextBoolean());
+            }
+        } catch (RuntimeException e) {
+            errores.computeIfAbsent(e.getClass().getSimpleName(), c -> new ConcurrentLinkedQueue<>())
+                    .add(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void vender(SplittableRandom random) {
+        List<DetalleVentaDTO> detalles = new ArrayList<>();
+        for (String codigo : productos(random)) {
+            detalles.add(DetalleVentaDTO.builder().productoCodigoBarras(codigo).cantidad(1).build());
+        }
+        VentaDTO venta = ventaService.crearVenta(VentaDTO.builder().detalles(detalles).build());
+        ventasCancelables.add(venta.getId());
+    }
+
+    private void recibir() {
+        int orden = siguienteOrden.getAndIncrement();
+        if (orden >= ordenes.size()) {
+            return;
+        }
+        Long id = ordenes.get(orden);
+        List<DetalleOrdenCompraDTO> recibidos = new ArrayList<>();
+        for (DetalleOrdenCompraDTO detalle : ordenCompraService.obtenerPorId(id).getDetalles()) {
+            recibidos.add(DetalleOrdenCompraDTO.builder()
+                    .productoCodigoBarras(detalle.getProductoCodigoBarras())
+                    .cantidadRecibida(detalle.getCantidadSolicitada())
+                    .build());
+        }
+        ordenCompraService.recibirOrden(id, recibidos);
+    }
+
+    // De 2 a 4 productos distintos, en el orden en que se escanean
+    private List<String> productos(SplittableRandom random) {
+        List<String> codigos = new ArrayList<>();
+        int lineas = 2 + random.nextInt(3);
+        while (codigos.size() < lineas) {
+            String codigo = PostgresPruebas.codigoProducto(1 + random.nextInt(PRODUCTOS));
+            if (!codigos.contains(codigo)) {
+                codigos.add(codigo);
+            }
+        }
+        return codigos;
+    }
+}
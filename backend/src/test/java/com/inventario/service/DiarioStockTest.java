@@ -0,0 +1,120 @@
+package com.inventario.service;
+
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.VersionCatalogo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lectura del diario de stock tras una caída: los registros se leen hasta el primero incompleto
+ * o con CRC erróneo, y al arrancar el motor repite los segmentos en orden, vuelca el resultado y
+ * los borra.
+ */
+class DiarioStockTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void leeLasAnotacionesEnOrden() throws IOException {
+        DiarioStock.Segmento segmento = escribir(0, 0, "7790000000001", 5, "7790000000002", 7, "7790000000001", 3);
+
+        List<String> leidas = new ArrayList<>();
+        assertThat(DiarioStock.leer(segmento, (codigo, stock) -> leidas.add(codigo + "=" + stock))).isEqualTo(3);
+        assertThat(leidas).containsExactly("7790000000001=5", "7790000000002=7", "7790000000001=3");
+    }
+
+    @Test
+    void unRegistroCortadoMarcaElFinal() throws IOException {
+        DiarioStock.Segmento segmento = escribir(0, 0, "7790000000001", 5, "7790000000002", 7);
+        byte[] completo = Files.readAllBytes(segmento.ruta());
+        // La escritura de un tercer registro se cortó a mitad del código
+        Files.write(segmento.ruta(), Arrays.copyOf(completo, 6), StandardOpenOption.APPEND);
+
+        List<String> leidas = new ArrayList<>();
+        assertThat(DiarioStock.leer(segmento, (codigo, stock) -> leidas.add(codigo + "=" + stock))).isEqualTo(2);
+        assertThat(leidas).containsExactly("7790000000001=5", "7790000000002=7");
+    }
+
+    @Test
+    void unRegistroConCrcErroneoMarcaElFinal() throws IOException {
+        DiarioStock.Segmento segmento = escribir(0, 0, "7790000000001", 5, "7790000000002", 7, "7790000000003", 9);
+        byte[] datos = Files.readAllBytes(segmento.ruta());
+        // Último byte del stock del segundo registro (cada uno ocupa 4 + 13 + 4 + 4 bytes)
+        datos[25 + 4 + 13 + 3] ^= 1;
+        Files.write(segmento.ruta(), datos);
+
+        List<String> leidas = new ArrayList<>();
+        assertThat(DiarioStock.leer(segmento, (codigo, stock) -> leidas.add(codigo + "=" + stock))).isEqualTo(1);
+        assertThat(leidas).containsExactly("7790000000001=5");
+    }
+
+    @Test
+    void alArrancarElMotorRepiteLosSegmentosYLosVuelca() throws Exception {
+        escribir(1, 4, "7790000000001", 2, "7790000000002", 9);
+        escribir(0, 3, "7790000000001", 6);
+        DiarioStock.Segmento cortado = escribir(0, 5, "7790000000002", 8);
+        Files.write(cortado.ruta(), new byte[] {0, 0, 0, 13, '7', '7'}, StandardOpenOption.APPEND);
+        assertThat(DiarioStock.segmentos(directorio)).extracting(DiarioStock.Segmento::numero).containsExactly(3L, 4L, 5L);
+
+        ProductoRepository productoRepository = mock(ProductoRepository.class);
+        when(productoRepository.findFichasStock()).thenReturn(List.of(
+                new Object[] {"7790000000001", 10, BigDecimal.TEN, 1, true},
+                new Object[] {"7790000000002", 10, BigDecimal.TEN, 1, true},
+                new Object[] {"7790000000003", 10, BigDecimal.TEN, 1, true}));
+        MotorStock motor = new MotorStock(productoRepository, mock(VersionCatalogo.class),
+                mock(PlatformTransactionManager.class), 2, 16, directorio.toString(), false, 60_000,
+                new SimpleMeterRegistry());
+        motor.iniciar();
+        try {
+            // El último valor de cada producto, por número de segmento; el 3 no tenía anotaciones
+            assertThat(motor.stockActual("7790000000001", -1)).isEqualTo(2);
+            assertThat(motor.stockActual("7790000000002", -1)).isEqualTo(8);
+            assertThat(motor.stockActual("7790000000003", -1)).isEqualTo(10);
+
+            ArgumentCaptor<String[]> codigos = ArgumentCaptor.forClass(String[].class);
+            ArgumentCaptor<Integer[]> stocks = ArgumentCaptor.forClass(Integer[].class);
+            verify(productoRepository).fijarStock(codigos.capture(), stocks.capture(), any(), any());
+            List<String> volcados = new ArrayList<>();
+            for (int i = 0; i < codigos.getValue().length; i++) {
+                volcados.add(codigos.getValue()[i] + "=" + stocks.getValue()[i]);
+            }
+            assertThat(volcados).containsExactlyInAnyOrder("7790000000001=2", "7790000000002=8");
+
+            // Los repetidos ya volcados se borran; solo quedan los nuevos, a continuación
+            assertThat(DiarioStock.segmentos(directorio)).extracting(DiarioStock.Segmento::numero).containsOnly(6L);
+        } finally {
+            motor.detener();
+        }
+        assertThat(DiarioStock.segmentos(directorio)).isEmpty();
+    }
+
+    // Escribe un segmento con las anotaciones (código, stock, código, stock...)
+    private DiarioStock.Segmento escribir(int particion, long numero, Object... anotaciones) throws IOException {
+        try (DiarioStock diario = DiarioStock.abrir(directorio, particion, numero, false)) {
+            for (int i = 0; i < anotaciones.length; i += 2) {
+                diario.anotar((String) anotaciones[i], (Integer) anotaciones[i + 1]);
+            }
+        }
+        return new DiarioStock.Segmento(directorio.resolve("stock-" + particion + "-" + numero + ".diario"),
+                particion, numero);
+    }
+}
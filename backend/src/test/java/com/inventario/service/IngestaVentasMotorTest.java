@@ -0,0 +1,106 @@
+package com.inventario.service;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.exception.StockInsuficienteException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingesta por lotes con el motor de stock: un lote que vende un producto por encima de su stock
+ * debe rechazar las ventas que no caben sin dejar rastro de ellas (ni venta, ni detalles, ni
+ * movimientos) y registrar el resto con su stock descontado.
+ */
+// Espera larga para que todas las ventas entren en el mismo lote
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.stock.motor.habilitado=true",
+        "app.ventas.ingesta.habilitada=true",
+        "app.ventas.ingesta.espera-maxima-ms=1000"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IngestaVentasMotorTest {
+
+    private static final int STOCK_ESCASO = 5;
+    private static final int VENTAS = 12;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) throws IOException {
+        PostgresPruebas.configurar(registro, "ingesta_motor");
+        String diario = Files.createTempDirectory("diario-ingesta").toString();
+        registro.add("app.stock.motor.directorio-diario", () -> diario);
+    }
+
+    @Autowired
+    private IngestaVentas ingestaVentas;
+
+    @Autowired
+    private MotorStock motorStock;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        // El producto 1 tiene poco stock; el 2 sobra para todas las ventas
+        PostgresPruebas.sembrarCatalogo(jdbc, 2, 100);
+        jdbc.update("UPDATE productos SET stock_actual = ? WHERE codigo_barras = ?",
+                STOCK_ESCASO, PostgresPruebas.codigoProducto(1));
+    }
+
+    @Test
+    void ventasSinStockDelLoteNoSeGuardan() {
+        List<CompletableFuture<VentaDTO>> resultados = new ArrayList<>();
+        for (int i = 0; i < VENTAS; i++) {
+            resultados.add(ingestaVentas.registrar(VentaDTO.builder().detalles(List.of(
+                    linea(PostgresPruebas.codigoProducto(2)),
+                    linea(PostgresPruebas.codigoProducto(1)))).build()));
+        }
+
+        int registradas = 0;
+        int rechazadas = 0;
+        for (CompletableFuture<VentaDTO> resultado : resultados) {
+            try {
+                assertThat(resultado.join().getId()).isNotNull();
+                registradas++;
+            } catch (CompletionException e) {
+                assertThat(e.getCause()).isInstanceOf(StockInsuficienteException.class);
+                rechazadas++;
+            }
+        }
+        assertThat(registradas).isEqualTo(STOCK_ESCASO);
+        assertThat(rechazadas).isEqualTo(VENTAS - STOCK_ESCASO);
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM ventas", Integer.class)).isEqualTo(STOCK_ESCASO);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM detalle_ventas", Integer.class)).isEqualTo(2 * STOCK_ESCASO);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM movimientos_inventario WHERE tipo_movimiento = 'SALIDA'",
+                Integer.class)).isEqualTo(2 * STOCK_ESCASO);
+
+        motorStock.persistir();
+        assertThat(stock(1)).isZero();
+        assertThat(stock(2)).isEqualTo(100 - STOCK_ESCASO);
+    }
+
+    private int stock(int producto) {
+        return jdbc.queryForObject("SELECT stock_actual FROM productos WHERE codigo_barras = ?", Integer.class,
+                PostgresPruebas.codigoProducto(producto));
+    }
+
+    private static DetalleVentaDTO linea(String codigo) {
+        return DetalleVentaDTO.builder().productoCodigoBarras(codigo).cantidad(1).build();
+    }
+}
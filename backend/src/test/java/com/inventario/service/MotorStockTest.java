@@ -0,0 +1,200 @@
+package com.inventario.service;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.entity.Producto;
+import com.inventario.exception.StockInsuficienteException;
+import com.inventario.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Reservas y confirmaciones del motor de stock ligadas a la transacción: ventas simultáneas no
+ * venden más de lo que hay, una salida se libera si la transacción se deshace y se revierte si
+ * falla después de confirmarse, y una entrada no se puede vender hasta después del commit.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "app.stock.motor.habilitado=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MotorStockTest {
+
+    private static final int STOCK_INICIAL = 10;
+    private static final int HILOS = 16;
+    private static final int VENTAS_POR_HILO = 2;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) throws IOException {
+        PostgresPruebas.configurar(registro, "motor_stock");
+        String diario = Files.createTempDirectory("diario-motor").toString();
+        registro.add("app.stock.motor.directorio-diario", () -> diario);
+    }
+
+    @Autowired
+    private MotorStock motorStock;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate transaccion;
+
+    @BeforeAll
+    void sembrar() {
+        PostgresPruebas.sembrarCatalogo(jdbc, 4, STOCK_INICIAL);
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void ventasSimultaneasNoVendenMasDeLoQueHay() throws Exception {
+        String codigo = PostgresPruebas.codigoProducto(1);
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<?>> terminales = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                terminales.add(hilos.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < VENTAS_POR_HILO; i++) {
+                        try {
+                            ventaService.crearVenta(VentaDTO.builder().detalles(List.of(
+                                    DetalleVentaDTO.builder().productoCodigoBarras(codigo).cantidad(1).build())).build());
+                            vendidas.incrementAndGet();
+                        } catch (StockInsuficienteException e) {
+                            rechazadas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> terminal : terminales) {
+                terminal.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        assertThat(vendidas.get()).isEqualTo(STOCK_INICIAL);
+        assertThat(rechazadas.get()).isEqualTo(HILOS * VENTAS_POR_HILO - STOCK_INICIAL);
+        assertThat(motorStock.stockActual(codigo, -1)).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM detalle_ventas WHERE producto_codigo = ?",
+                Integer.class, codigo)).isEqualTo(STOCK_INICIAL);
+
+        motorStock.persistir();
+        assertThat(stockGuardado(codigo)).isZero();
+    }
+
+    @Test
+    void unaSalidaSeLiberaAlDeshacerseYSeRevierteSiFallaElCommit() {
+        String codigo = PostgresPruebas.codigoProducto(2);
+        Map<String, Producto> productos = productos(codigo);
+
+        // Deshecha antes del commit: la reserva se libera sin llegar al stock confirmado
+        transaccion.executeWithoutResult(estado -> {
+            motorStock.descontar(Map.of(codigo, 4), productos, LocalDateTime.now());
+            estado.setRollbackOnly();
+        });
+        assertThat(motorStock.stockActual(codigo, -1)).isEqualTo(STOCK_INICIAL);
+        assertThat(disponibleCubre(codigo, STOCK_INICIAL, productos)).isTrue();
+
+        // Falla tras confirmarse la salida en beforeCommit: el motor la revierte
+        assertThatThrownBy(() -> transaccion.executeWithoutResult(estado -> {
+            motorStock.descontar(Map.of(codigo, 4), productos, LocalDateTime.now());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("Fallo tras confirmar la salida");
+                }
+            });
+        })).isInstanceOf(IllegalStateException.class);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(motorStock.stockActual(codigo, -1)).isEqualTo(STOCK_INICIAL));
+        assertThat(disponibleCubre(codigo, STOCK_INICIAL, productos)).isTrue();
+        assertThat(disponibleCubre(codigo, STOCK_INICIAL + 1, productos)).isFalse();
+
+        motorStock.persistir();
+        assertThat(stockGuardado(codigo)).isEqualTo(STOCK_INICIAL);
+    }
+
+    @Test
+    void unaEntradaSoloSePuedeVenderTrasElCommit() {
+        String codigo = PostgresPruebas.codigoProducto(3);
+        Map<String, Producto> productos = productos(codigo);
+
+        transaccion.executeWithoutResult(estado -> {
+            motorStock.sumar(Map.of(codigo, 5), productos);
+            assertThat(motorStock.stockActual(codigo, -1)).isEqualTo(STOCK_INICIAL);
+            assertThatThrownBy(() -> motorStock.descontar(Map.of(codigo, STOCK_INICIAL + 1), productos, LocalDateTime.now()))
+                    .isInstanceOf(StockInsuficienteException.class);
+        });
+        assertThat(motorStock.stockActual(codigo, -1)).isEqualTo(STOCK_INICIAL + 5);
+        assertThat(disponibleCubre(codigo, STOCK_INICIAL + 5, productos)).isTrue();
+
+        // Una entrada deshecha no llega a sumarse
+        transaccion.executeWithoutResult(estado -> {
+            motorStock.sumar(Map.of(codigo, 5), productos);
+            estado.setRollbackOnly();
+        });
+        assertThat(motorStock.stockActual(codigo, -1)).isEqualTo(STOCK_INICIAL + 5);
+        assertThat(disponibleCubre(codigo, STOCK_INICIAL + 6, productos)).isFalse();
+    }
+
+    // Si el disponible cubre la cantidad, comprobado con una reserva que se deshace
+    private boolean disponibleCubre(String codigo, int cantidad, Map<String, Producto> productos) {
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                motorStock.descontar(Map.of(codigo, cantidad), productos, LocalDateTime.now());
+                estado.setRollbackOnly();
+            });
+            return true;
+        } catch (StockInsuficienteException e) {
+            return false;
+        }
+    }
+
+    private Map<String, Producto> productos(String codigo) {
+        return Map.of(codigo, productoRepository.findById(codigo).orElseThrow());
+    }
+
+    private int stockGuardado(String codigo) {
+        return jdbc.queryForObject("SELECT stock_actual FROM productos WHERE codigo_barras = ?", Integer.class, codigo);
+    }
+}
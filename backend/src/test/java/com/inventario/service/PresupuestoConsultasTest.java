@@ -0,0 +1,147 @@
+package com.inventario.service;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.DetalleOrdenCompraDTO;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.util.ContadorConsultas;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Presupuesto de sentencias SQL de las operaciones más usadas, medido con ContadorConsultas:
+ * los listados no deben crecer con el tamaño de la página (N+1) y una venta no debe leer ni
+ * insertar fila a fila.
+ */
+// Escrituras agrupadas en lotes como en application-prod.properties
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PresupuestoConsultasTest {
+
+    private static final int PRODUCTOS = 30;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        PostgresPruebas.configurar(registro, "presupuesto_consultas");
+    }
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private OrdenCompraService ordenCompraService;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private ProveedorService proveedorService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        PostgresPruebas.sembrarCatalogo(jdbc, PRODUCTOS, 1000);
+        Long proveedor = jdbc.queryForObject("SELECT min(id) FROM proveedores", Long.class);
+        for (int i = 0; i < 20; i++) {
+            ventaService.crearVenta(venta(i, 3));
+            List<DetalleOrdenCompraDTO> detalles = new ArrayList<>();
+            for (int p = 0; p < 3; p++) {
+                detalles.add(DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(PostgresPruebas.codigoProducto(1 + (i + p * 7) % PRODUCTOS))
+                        .cantidadSolicitada(10)
+                        .precioCompra(BigDecimal.TEN)
+                        .build());
+            }
+            ordenCompraService.crear(OrdenCompraDTO.builder().proveedorId(proveedor).detalles(detalles).build());
+        }
+    }
+
+    @Test
+    void listadoDeProductos() {
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            assertThat(productoService.listarTodos(0, 20, "nombre", "asc").getContent()).hasSize(20);
+            medicion.verificarMaximoConsultas(4);
+            medicion.verificarSinRepeticiones(2);
+        }
+    }
+
+    @Test
+    void listadoDeVentas() {
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            assertThat(ventaService.listarTodas(0, 20).getContent()).hasSize(20);
+            medicion.verificarMaximoConsultas(4);
+            medicion.verificarSinRepeticiones(2);
+        }
+    }
+
+    @Test
+    void listadoDeOrdenes() {
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            assertThat(ordenCompraService.listarTodas(0, 20).getContent()).hasSize(20);
+            medicion.verificarMaximoConsultas(4);
+            medicion.verificarSinRepeticiones(2);
+        }
+    }
+
+    @Test
+    void cantidadesDeProductosSinConsultarloDeNuevo() {
+        Long categoria = jdbc.queryForObject("SELECT min(id) FROM categorias", Long.class);
+        Long proveedor = jdbc.queryForObject("SELECT min(id) FROM proveedores", Long.class);
+        categoriaService.listarTodas();
+        proveedorService.listarTodos();
+
+        // Sin cambios en los productos las cantidades por categoría y proveedor no se recalculan
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            assertThat(categoriaService.listarTodas()).isNotEmpty();
+            assertThat(categoriaService.obtenerPorId(categoria).getCantidadProductos()).isPositive();
+            assertThat(proveedorService.listarTodos()).isNotEmpty();
+            assertThat(proveedorService.obtenerPorId(proveedor).getCantidadProductos()).isPositive();
+            assertThat(medicion.getSentenciasRepetidas(1).keySet()).noneMatch(sql -> sql.contains("productos"));
+        }
+    }
+
+    @Test
+    void ventaDeVariasLineas() {
+        int lineas = 8;
+        try (ContadorConsultas.Medicion medicion = ContadorConsultas.iniciar()) {
+            ventaService.crearVenta(venta(5, lineas));
+            // Los INSERT van en lotes; el stock de cada producto se actualiza con su propio UPDATE
+            medicion.verificarMaximoConsultas(lineas + 5);
+            assertThat(medicion.getSentenciasRepetidas(2).keySet())
+                    .noneMatch(sql -> sql.startsWith("select") || sql.startsWith("insert"));
+        }
+    }
+
+    // Venta de una unidad de cada uno de los productos consecutivos a partir del indicado
+    private static VentaDTO venta(int desde, int lineas) {
+        List<DetalleVentaDTO> detalles = new ArrayList<>();
+        for (int l = 0; l < lineas; l++) {
+            detalles.add(DetalleVentaDTO.builder()
+                    .productoCodigoBarras(PostgresPruebas.codigoProducto(1 + (desde + l) % PRODUCTOS))
+                    .cantidad(1)
+                    .build());
+        }
+        return VentaDTO.builder().detalles(detalles).build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.inventario.service;
+
+import com.inventario.PostgresPruebas;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.exception.StockInsuficienteException;
+import com.inventario.repository.VentaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Retenciones de las ventas pendientes con el motor de stock: mientras la reserva está viva las
+ * ventas directas no pueden tomar su stock, al vencer la venta se cancela y el stock vuelve a
+ * estar disponible, y al arrancar se vuelven a retener las que siguen pendientes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.stock.motor.habilitado=true",
+        "app.ventas.reservas.tic-ms=100"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReservasStockTest {
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) throws IOException {
+        PostgresPruebas.configurar(registro, "reservas_stock");
+        String diario = Files.createTempDirectory("diario-reservas").toString();
+        registro.add("app.stock.motor.directorio-diario", () -> diario);
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ReservasStock reservasStock;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void sembrar() {
+        PostgresPruebas.sembrarCatalogo(jdbc, 2, 4);
+    }
+
+    @Test
+    void alVencerSeCancelaYSeLiberaLaRetencion() {
+        String codigo = PostgresPruebas.codigoProducto(1);
+        // Sin minutos vence en el acto: se cancela en el siguiente tic
+        Long id = ventaService.crearReserva(venta(codigo, 4, 0)).getId();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(estado(id)).isEqualTo("CANCELADA"));
+        assertThat(reservasStock.retenido(codigo)).isZero();
+
+        // El motor ha recuperado las 4 unidades retenidas
+        assertThat(ventaService.crearVenta(venta(codigo, 4, null)).getId()).isNotNull();
+    }
+
+    @Test
+    void lasPendientesSeVuelvenARetenerAlArrancar() {
+        String codigo = PostgresPruebas.codigoProducto(2);
+        Long id = ventaService.crearReserva(venta(codigo, 3, 60)).getId();
+
+        assertThat(reservasStock.retenido(codigo)).isEqualTo(3);
+        assertThatThrownBy(() -> ventaService.crearVenta(venta(codigo, 2, null)))
+                .isInstanceOf(StockInsuficienteException.class);
+
+        // Un arranque nuevo las lee de las ventas pendientes y las retiene también en el motor
+        MotorStock motor = mock(MotorStock.class);
+        ReservasStock arrancadas = new ReservasStock(ventaRepository, Optional.of(motor), transactionManager,
+                15, 10080, 1000, 3600, new SimpleMeterRegistry());
+        arrancadas.cargar();
+
+        assertThat(arrancadas.retenido(codigo)).isEqualTo(3);
+        assertThat(arrancadas.retenido(codigo, id)).isZero();
+        verify(motor).restaurarRetencion(Map.of(codigo, 3));
+    }
+
+    private String estado(Long id) {
+        return jdbc.queryForObject("SELECT estado FROM ventas WHERE id = ?", String.class, id);
+    }
+
+    private static VentaDTO venta(String codigo, int cantidad, Integer minutosReserva) {
+        return VentaDTO.builder()
+                .detalles(List.of(DetalleVentaDTO.builder().productoCodigoBarras(codigo).cantidad(cantidad).build()))
+                .minutosReserva(minutosReserva)
+                .build();
+    }
+}
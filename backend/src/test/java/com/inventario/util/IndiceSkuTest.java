@@ -0,0 +1,153 @@
+package com.inventario.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conversión de códigos numéricos a clave y vuelta, colisiones y crecimiento de la tabla, los
+ * códigos con letras en el mapa aparte, y búsquedas sin locks mientras otro hilo inserta.
+ */
+class IndiceSkuTest {
+
+    private static final long VACIA = -1;
+
+    @Test
+    void laClaveConservaLosCerosALaIzquierdaYLos18Digitos() {
+        List<String> codigos = List.of("0", "9", "00", "0123", "123", "7790000000001", "07790000000001",
+                "000000000000000000", "999999999999999999", "100000000000000000");
+
+        Set<Long> claves = new HashSet<>();
+        for (String codigo : codigos) {
+            long clave = IndiceSku.clave(codigo);
+            assertThat(clave).as(codigo).isNotEqualTo(VACIA);
+            assertThat(IndiceSku.texto(clave)).isEqualTo(codigo);
+            claves.add(clave);
+        }
+        assertThat(claves).hasSameSizeAs(codigos);
+
+        // Los límites de cada longitud quedan contiguos: tras "9" viene "00", tras "99" viene "000"
+        assertThat(IndiceSku.clave("00")).isEqualTo(IndiceSku.clave("9") + 1);
+        assertThat(IndiceSku.clave("000")).isEqualTo(IndiceSku.clave("99") + 1);
+    }
+
+    @Test
+    void loQueNoEsUnNumeroDe1A18DigitosNoTieneClave() {
+        assertThat(IndiceSku.clave("")).isEqualTo(VACIA);
+        assertThat(IndiceSku.clave("1234567890123456789")).isEqualTo(VACIA);
+        assertThat(IndiceSku.clave("779000000000A")).isEqualTo(VACIA);
+        assertThat(IndiceSku.clave("-123")).isEqualTo(VACIA);
+        assertThat(IndiceSku.clave("12 3")).isEqualTo(VACIA);
+    }
+
+    @Test
+    void losCodigosConLetrasVanAlMapaDeTextos() {
+        IndiceSku indice = new IndiceSku(4);
+        List<String> codigos = List.of("7790000000001", "ABC-123", "1234567890123456789", "0123", "123",
+                "779000000000A", "CODE128/x");
+
+        for (int i = 0; i < codigos.size(); i++) {
+            assertThat(indice.insertar(codigos.get(i))).isEqualTo(i);
+        }
+        // Insertar de nuevo devuelve la misma posición sin crear otra
+        assertThat(indice.insertar("ABC-123")).isEqualTo(1);
+        assertThat(indice.insertar("0123")).isEqualTo(3);
+        assertThat(indice.tamano()).isEqualTo(codigos.size());
+
+        for (int i = 0; i < codigos.size(); i++) {
+            assertThat(indice.buscar(codigos.get(i))).isEqualTo(i);
+            assertThat(indice.codigo(i)).isEqualTo(codigos.get(i));
+        }
+        assertThat(indice.buscar("abc-123")).isEqualTo(-1);
+        assertThat(indice.buscar("00123")).isEqualTo(-1);
+    }
+
+    @Test
+    void lasColisionesSeSondeanYSobrevivenAlCrecer() {
+        // Con la capacidad mínima (16 huecos, crece al pasar de 8) y 50.000 códigos aleatorios
+        // la tabla crece varias veces y muchas claves caen en un hueco ya ocupado
+        IndiceSku indice = new IndiceSku(1);
+        Random azar = new Random(42);
+        List<String> codigos = new ArrayList<>();
+        Set<String> vistos = new HashSet<>();
+        while (codigos.size() < 50_000) {
+            String codigo = String.format("%013d", Math.floorMod(azar.nextLong(), 10_000_000_000_000L));
+            if (vistos.add(codigo)) {
+                assertThat(indice.insertar(codigo)).isEqualTo(codigos.size());
+                codigos.add(codigo);
+            }
+        }
+
+        for (int i = 0; i < codigos.size(); i++) {
+            assertThat(indice.buscar(codigos.get(i))).isEqualTo(i);
+            assertThat(indice.codigo(i)).isEqualTo(codigos.get(i));
+        }
+        // Los que faltan terminan la sonda en un hueco vacío
+        for (int i = 0; i < 10_000; i++) {
+            String codigo = String.format("%013d", Math.floorMod(azar.nextLong(), 10_000_000_000_000L));
+            assertThat(indice.buscar(codigo)).isEqualTo(vistos.contains(codigo) ? codigos.indexOf(codigo) : -1);
+        }
+    }
+
+    @Test
+    void buscarSinLocksMientrasOtroHiloInserta() throws Exception {
+        int total = 200_000;
+        IndiceSku indice = new IndiceSku(1);
+        AtomicInteger publicadas = new AtomicInteger();
+        AtomicBoolean terminado = new AtomicBoolean();
+        List<String> errores = new ArrayList<>();
+
+        ExecutorService lectores = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int l = 0; l < 4; l++) {
+                tareas.add(lectores.submit(() -> {
+                    ThreadLocalRandom azar = ThreadLocalRandom.current();
+                    while (!terminado.get()) {
+                        // Una posición ya publicada tiene que encontrarse; una posterior puede
+                        // no estar todavía, pero nunca devolver otra posición
+                        int hasta = publicadas.get();
+                        int i = azar.nextInt(total);
+                        int posicion = indice.buscar(codigo(i));
+                        if (i < hasta ? posicion != i : posicion != -1 && posicion != i) {
+                            synchronized (errores) {
+                                errores.add(codigo(i) + " -> " + posicion);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < total; i++) {
+                indice.insertar(codigo(i));
+                publicadas.set(i + 1);
+            }
+            terminado.set(true);
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            lectores.shutdown();
+        }
+
+        assertThat(errores).isEmpty();
+        assertThat(indice.tamano()).isEqualTo(total);
+    }
+
+    private static String codigo(int i) {
+        return String.format("779%010d", i);
+    }
+}
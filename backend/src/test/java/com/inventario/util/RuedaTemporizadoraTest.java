@@ -0,0 +1,74 @@
+package com.inventario.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vencimientos de la rueda con 4 ranuras de 10 ms (una vuelta son 40 ms), con el reloj dado a
+ * mano.
+ */
+class RuedaTemporizadoraTest {
+
+    private final RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(4, 10, 0);
+    private final List<String> vencidos = new ArrayList<>();
+
+    @Test
+    void venceEnElTicDeSuVencimiento() {
+        rueda.programar("a", 25);
+
+        rueda.avanzar(20, vencidos::add);
+        assertThat(vencidos).isEmpty();
+
+        rueda.avanzar(30, vencidos::add);
+        assertThat(vencidos).containsExactly("a");
+    }
+
+    @Test
+    void unVencimientoDeOtraVueltaEsperaASuVuelta() {
+        // Tic 8: misma ranura que los tics 4 y 0, dos vueltas más adelante
+        rueda.programar("lejano", 75);
+
+        for (long ahora = 10; ahora < 75; ahora += 10) {
+            rueda.avanzar(ahora, vencidos::add);
+        }
+        assertThat(vencidos).isEmpty();
+
+        rueda.avanzar(80, vencidos::add);
+        assertThat(vencidos).containsExactly("lejano");
+    }
+
+    @Test
+    void unoYaVencidoSaleEnElSiguienteAvance() {
+        rueda.avanzar(100, vencidos::add);
+
+        rueda.programar("pasado", 30);
+        rueda.avanzar(105, vencidos::add);
+        assertThat(vencidos).isEmpty();
+
+        rueda.avanzar(110, vencidos::add);
+        assertThat(vencidos).containsExactly("pasado");
+    }
+
+    @Test
+    void trasUnaPausaLargaEntregaTodoLoVencidoUnaSolaVez() {
+        rueda.programar("a", 15);
+        rueda.programar("b", 35);
+        rueda.programar("c", 55);
+        rueda.programar("d", 500);
+        rueda.programar("futuro", 1500);
+
+        // Varias vueltas sin avanzar: basta con revisar cada ranura una vez
+        rueda.avanzar(1000, vencidos::add);
+        assertThat(vencidos).containsExactlyInAnyOrder("a", "b", "c", "d");
+
+        rueda.avanzar(1490, vencidos::add);
+        assertThat(vencidos).hasSize(4);
+
+        rueda.avanzar(1500, vencidos::add);
+        assertThat(vencidos).containsExactlyInAnyOrder("a", "b", "c", "d", "futuro");
+    }
+}
@@ -0,0 +1,95 @@
+package com.inventario.benchmark;
+
+import com.inventario.InventarioMotosApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend sin servidor web contra un PostgreSQL embebido con un catálogo sembrado
+ * (25 categorías, 15 proveedores y los productos indicados), para los benchmarks que
+ * miden los servicios con una base de datos real.
+ */
+final class BackendEmbebido implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext contexto;
+
+    private BackendEmbebido(EmbeddedPostgres postgres, ConfigurableApplicationContext contexto) {
+        this.postgres = postgres;
+        this.contexto = contexto;
+    }
+
+    /**
+     * Arranca PostgreSQL y el backend, y siembra el catálogo. Las propiedades adicionales
+     * (--clave=valor) se añaden a las de application.properties.
+     */
+    static BackendEmbebido iniciar(int productos, int stockInicial, String... propiedades) throws IOException, SQLException {
+        // zonky desactiva synchronous_commit por defecto; aquí cada commit espera al fsync como en producción
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("synchronous_commit", "on")
+                .start();
+
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--app.consultas.habilitado=false",
+                "--management.tracing.sampling.probability=0",
+                "--logging.level.root=WARN"));
+        argumentos.addAll(List.of(propiedades));
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventarioMotosApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(argumentos.toArray(String[]::new));
+
+        sembrar(postgres, productos, stockInicial);
+        return new BackendEmbebido(postgres, contexto);
+    }
+
+    // Código de barras del producto i (1..productos) sembrado
+    static String codigoProducto(int i) {
+        return String.format("779%010d", i);
+    }
+
+    <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    <T> T beanOpcional(Class<T> tipo) {
+        return contexto.getBeanProvider(tipo).getIfAvailable();
+    }
+
+    @Override
+    public void close() throws IOException {
+        contexto.close();
+        postgres.close();
+    }
+
+    private static void sembrar(EmbeddedPostgres postgres, int productos, int stockInicial) throws SQLException {
+        try (Connection conexion = postgres.getPostgresDatabase().getConnection();
+             Statement st = conexion.createStatement()) {
+            st.execute("INSERT INTO categorias (nombre, descripcion, activo) " +
+                    "SELECT 'Categoría ' || i, 'Repuestos del grupo ' || i, true FROM generate_series(1, 25) i");
+            st.execute("INSERT INTO proveedores (nombre, ruc, activo) " +
+                    "SELECT 'Proveedor ' || i, '20' || lpad(i::text, 9, '0'), true FROM generate_series(1, 15) i");
+            st.execute("INSERT INTO productos (codigo_barras, codigo_interno, nombre, descripcion, marca, " +
+                    "modelo_compatible, categoria_id, precio_venta, stock_actual, stock_minimo, proveedor_id, " +
+                    "fecha_ingreso, ubicacion, activo, fecha_creacion) " +
+                    "SELECT '779' || lpad(i::text, 10, '0'), 'INT-' || i, 'Repuesto ' || i, " +
+                    "'Descripción del repuesto ' || i, 'Marca ' || (i % 12), 'Modelo ' || (i % 40), " +
+                    "(SELECT min(id) FROM categorias) + i % 25, 10 + (i % 500) * 1.5, " + stockInicial + ", 5, " +
+                    "(SELECT min(id) FROM proveedores) + i % 15, current_date, 'Estante ' || (i % 30), true, now() " +
+                    "FROM generate_series(1, " + productos + ") i");
+            st.execute("ANALYZE");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.inventario.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Punto de entrada del jar de benchmarks. Acepta las mismas opciones que JMH
+ * (por ejemplo un patrón de benchmarks o -f/-wi/-i) y, si no se indica otro formato,
+ * exporta los resultados en JSON para comparar regresiones entre commits.
+ *
+ * Uso: java -Djmh.resultado=target/jmh-abc123.json -jar target/benchmarks.jar [opciones JMH]
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions lineaComandos = new CommandLineOptions(args);
+        if (lineaComandos.shouldHelp() || lineaComandos.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(lineaComandos);
+        if (!lineaComandos.getResultFormat().hasValue()) {
+            Path resultado = Paths.get(System.getProperty("jmh.resultado", "target/jmh-result.json"));
+            if (resultado.getParent() != null) {
+                Files.createDirectories(resultado.getParent());
+            }
+            opciones.resultFormat(ResultFormatType.JSON).result(resultado.toString());
+        }
+
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.DetalleOrdenCompraDTO;
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.service.MovimientoInventarioService;
+import com.inventario.service.OrdenCompraService;
+import com.inventario.service.VentaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de carga mixta sobre pocos productos: ventas de varias líneas en orden aleatorio,
+ * cancelaciones, recepciones de órdenes de compra y ajustes, todos a la vez y sin motor de stock.
+ * Compara las operaciones sin y con CerrojosStock.
+ *
+ * Además del rendimiento, al terminar cada prueba muestra las operaciones fallidas por tipo de
+ * error (un interbloqueo de PostgreSQL aparece como CannotAcquireLockException) y los productos
+ * cuyo stock no cuadra con sus movimientos (actualizaciones perdidas). Con cerrojos ambas cifras
+ * deben ser cero.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class CerrojosStockBenchmark {
+
+    private static final int PRODUCTOS = 20;
+    private static final int STOCK_INICIAL = 10_000_000;
+    private static final int ORDENES = 3000;
+
+    @Param({"false", "true"})
+    boolean cerrojos;
+
+    private BackendEmbebido backend;
+    private VentaService ventaService;
+    private OrdenCompraService ordenCompraService;
+    private MovimientoInventarioService movimientoService;
+
+    private final List<Long> ordenes = new ArrayList<>(ORDENES);
+    private final AtomicInteger siguienteOrden = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Long> ventasCancelables = new ConcurrentLinkedQueue<>();
+    private final Map<String, LongAdder> errores = new ConcurrentHashMap<>();
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        private final SplittableRandom random = new SplittableRandom();
+
+        // De 2 a 4 productos distintos, en el orden en que se escanean
+        List<String> productos() {
+            List<String> codigos = new ArrayList<>();
+            int lineas = 2 + random.nextInt(3);
+            while (codigos.size() < lineas) {
+                String codigo = BackendEmbebido.codigoProducto(1 + random.nextInt(PRODUCTOS));
+                if (!codigos.contains(codigo)) {
+                    codigos.add(codigo);
+                }
+            }
+            return codigos;
+        }
+    }
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        backend = BackendEmbebido.iniciar(PRODUCTOS, STOCK_INICIAL,
+                "--app.stock.cerrojos.habilitado=" + cerrojos,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "--spring.jpa.properties.hibernate.order_inserts=true");
+        ventaService = backend.bean(VentaService.class);
+        ordenCompraService = backend.bean(OrdenCompraService.class);
+        movimientoService = backend.bean(MovimientoInventarioService.class);
+
+        // Órdenes de 3 productos que se reciben de una en una, cada una solo una vez
+        Long proveedor = backend.bean(JdbcTemplate.class).queryForObject("SELECT min(id) FROM proveedores", Long.class);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < ORDENES; i++) {
+            List<DetalleOrdenCompraDTO> detalles = new ArrayList<>();
+            for (int p = 0; p < 3; p++) {
+                detalles.add(DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(BackendEmbebido.codigoProducto(1 + (i + p * 7 + random.nextInt(3)) % PRODUCTOS))
+                        .cantidadSolicitada(10)
+                        .precioCompra(BigDecimal.TEN)
+                        .build());
+            }
+            ordenes.add(ordenCompraService.crear(OrdenCompraDTO.builder().proveedorId(proveedor).detalles(detalles).build()).getId());
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        // Stock final frente al inicial más los movimientos de cada producto
+        Integer descuadrados = backend.bean(JdbcTemplate.class).queryForObject(
+                "SELECT count(*) FROM productos p WHERE p.stock_actual <> " + STOCK_INICIAL + " + COALESCE((" +
+                "SELECT sum(CASE WHEN m.tipo_movimiento IN ('SALIDA', 'AJUSTE_NEGATIVO') THEN -m.cantidad ELSE m.cantidad END) " +
+                "FROM movimientos_inventario m WHERE m.producto_codigo = p.codigo_barras), 0)", Integer.class);
+        System.out.println();
+        System.out.println("cerrojos=" + cerrojos + ": errores " + errores + ", productos descuadrados " + descuadrados);
+        backend.close();
+    }
+
+    @Benchmark
+    public Object operar(Terminal terminal) {
+        int tipo = terminal.random.nextInt(10);
+        try {
+            if (tipo < 6) {
+                return vender(terminal);
+            }
+            if (tipo < 8) {
+                Long venta = ventasCancelables.poll();
+                return venta != null ? ventaService.cancelarVenta(venta) : vender(terminal);
+            }
+            if (tipo < 9) {
+                int orden = siguienteOrden.getAndIncrement();
+                if (orden < ordenes.size()) {
+                    Long id = ordenes.get(orden);
+                    List<DetalleOrdenCompraDTO> recibidos = new ArrayList<>();
+                    for (DetalleOrdenCompraDTO detalle : ordenCompraService.obtenerPorId(id).getDetalles()) {
+                        recibidos.add(DetalleOrdenCompraDTO.builder()
+                                .productoCodigoBarras(detalle.getProductoCodigoBarras())
+                                .cantidadRecibida(detalle.getCantidadSolicitada())
+                                .build());
+                    }
+                    return ordenCompraService.recibirOrden(id, recibidos);
+                }
+            }
+            String codigo = terminal.productos().get(0);
+            return movimientoService.registrarAjuste(codigo, 1 + terminal.random.nextInt(5), "Recuento", terminal.random.nextBoolean());
+        } catch (RuntimeException e) {
+            errores.computeIfAbsent(e.getClass().getSimpleName(), c -> new LongAdder()).increment();
+            return e;
+        }
+    }
+
+    private VentaDTO vender(Terminal terminal) {
+        List<DetalleVentaDTO> detalles = new ArrayList<>();
+        for (String codigo : terminal.productos()) {
+            detalles.add(DetalleVentaDTO.builder().productoCodigoBarras(codigo).cantidad(1).build());
+        }
+        VentaDTO venta = ventaService.crearVenta(VentaDTO.builder().detalles(detalles).build());
+        ventasCancelables.add(venta.getId());
+        return venta;
+    }
+}
@@ -0,0 +1,38 @@
+package com.inventario.benchmark;
+
+import com.inventario.util.BarcodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodigoBarrasBenchmark {
+
+    private final BarcodeGenerator generador = new BarcodeGenerator();
+    private String ean13;
+
+    @Setup
+    public void preparar() {
+        ean13 = generador.generarCodigoBarras();
+    }
+
+    @Benchmark
+    public String generarCodigoBarras() {
+        return generador.generarCodigoBarras();
+    }
+
+    @Benchmark
+    public String imagenEan13() {
+        return generador.generarImagenCodigoBarras(ean13);
+    }
+
+    @Benchmark
+    public String imagenCode128() {
+        return generador.generarImagenCodigoBarras("PRD-FRE-001-A");
+    }
+}
@@ -0,0 +1,119 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.entity.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera entidades y DTOs con valores parecidos a los de un almacén real
+ * (nombres y descripciones largas, precios con centavos, categorías y proveedores).
+ * La semilla es fija para que todas las ejecuciones midan los mismos datos.
+ */
+final class DatosSinteticos {
+
+    private static final String[] MARCAS = {"Brembo", "NGK", "Motul", "DID", "Yuasa", "EBC", "K&N", "Wiseco"};
+    private static final String[] PIEZAS = {"Pastillas de Freno", "Bujía Iridium", "Kit de Arrastre",
+            "Filtro de Aire", "Batería 12V", "Disco de Freno", "Kit de Pistón", "Aceite 10W40"};
+    private static final String[] MODELOS = {"Honda CB 190R", "Yamaha R15", "Suzuki Gixxer", "Bajaj Pulsar 200"};
+
+    private final Random random = new Random(42);
+    private final List<Categoria> categorias = new ArrayList<>();
+    private final List<Proveedor> proveedores = new ArrayList<>();
+    private int secuencia;
+
+    DatosSinteticos() {
+        for (long i = 1; i <= 10; i++) {
+            categorias.add(Categoria.builder().id(i).nombre("Categoría " + i)
+                    .descripcion("Repuestos y componentes de la categoría " + i).activo(true).build());
+        }
+        for (long i = 1; i <= 5; i++) {
+            proveedores.add(Proveedor.builder().id(i).nombre("Distribuidora " + i + " S.A.")
+                    .ruc("20" + (100000000 + i)).activo(true).build());
+        }
+    }
+
+    Producto producto() {
+        int n = secuencia++;
+        String pieza = PIEZAS[random.nextInt(PIEZAS.length)];
+        String marca = MARCAS[random.nextInt(MARCAS.length)];
+        return Producto.builder()
+                .codigoBarras(String.valueOf(7990000000000L + n))
+                .codigoInterno(String.format("PRD-%05d-%03d", n, random.nextInt(1000)))
+                .nombre(pieza + " " + marca)
+                .descripcion(pieza + " de alto rendimiento marca " + marca
+                        + ", compatible con varios modelos, fabricado con materiales de primera calidad")
+                .marca(marca)
+                .modeloCompatible(MODELOS[random.nextInt(MODELOS.length)])
+                .categoria(categorias.get(random.nextInt(categorias.size())))
+                .proveedor(proveedores.get(random.nextInt(proveedores.size())))
+                .precioVenta(precio())
+                .stockActual(random.nextInt(200))
+                .stockMinimo(5 + random.nextInt(10))
+                .fechaIngreso(LocalDate.now().minusDays(random.nextInt(365)))
+                .fechaUltimaVenta(LocalDateTime.now().minusHours(random.nextInt(500)))
+                .ubicacion("Estante " + (char) ('A' + random.nextInt(8)) + "-" + random.nextInt(10))
+                .activo(true)
+                .fechaCreacion(LocalDateTime.now().minusDays(random.nextInt(365)))
+                .build();
+    }
+
+    Venta venta(int lineas) {
+        Venta venta = Venta.builder().id((long) secuencia++).fechaHora(LocalDateTime.now())
+                .estado(Venta.EstadoVenta.COMPLETADA).observaciones("Venta de mostrador").build();
+        for (int i = 0; i < lineas; i++) {
+            Producto producto = producto();
+            int cantidad = 1 + random.nextInt(5);
+            venta.agregarDetalle(DetalleVenta.builder().id((long) i).producto(producto).cantidad(cantidad)
+                    .precioUnitario(producto.getPrecioVenta())
+                    .subtotal(producto.getPrecioVenta().multiply(BigDecimal.valueOf(cantidad)))
+                    .build());
+        }
+        venta.calcularTotal();
+        return venta;
+    }
+
+    VentaDTO ventaDTO(int lineas) {
+        Venta venta = venta(lineas);
+        List<DetalleVentaDTO> detalles = new ArrayList<>();
+        for (DetalleVenta d : venta.getDetalles()) {
+            detalles.add(DetalleVentaDTO.builder().id(d.getId())
+                    .productoCodigoBarras(d.getProducto().getCodigoBarras())
+                    .productoNombre(d.getProducto().getNombre()).cantidad(d.getCantidad())
+                    .precioUnitario(d.getPrecioUnitario()).subtotal(d.getSubtotal()).build());
+        }
+        return VentaDTO.builder().id(venta.getId()).fechaHora(venta.getFechaHora()).total(venta.getTotal())
+                .estado(venta.getEstado().name()).observaciones(venta.getObservaciones()).detalles(detalles).build();
+    }
+
+    OrdenCompra ordenCompra(int lineas) {
+        OrdenCompra orden = OrdenCompra.builder().id((long) secuencia++).proveedor(proveedores.get(0))
+                .fechaOrden(LocalDateTime.now()).fechaEntregaEstimada(LocalDate.now().plusDays(7)).build();
+        for (int i = 0; i < lineas; i++) {
+            Producto producto = producto();
+            orden.agregarDetalle(DetalleOrdenCompra.builder().id((long) i).producto(producto)
+                    .cantidadSolicitada(10 + random.nextInt(90)).cantidadRecibida(0)
+                    .precioCompra(producto.getPrecioVenta().multiply(new BigDecimal("0.70"))).build());
+        }
+        orden.calcularTotal();
+        return orden;
+    }
+
+    MovimientoInventario movimiento() {
+        Producto producto = producto();
+        return MovimientoInventario.builder().id((long) secuencia++).producto(producto)
+                .tipoMovimiento(MovimientoInventario.TipoMovimiento.SALIDA).cantidad(2)
+                .fechaHora(LocalDateTime.now()).motivo("Venta").stockAnterior(producto.getStockActual() + 2)
+                .stockNuevo(producto.getStockActual()).referencia("VENTA-" + secuencia).build();
+    }
+
+    private BigDecimal precio() {
+        return BigDecimal.valueOf(500 + random.nextInt(50000), 2);
+    }
+}
@@ -0,0 +1,137 @@
+package com.inventario.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción de las líneas de una venta en una transacción, con las dos estrategias de id que
+ * admite Hibernate, reproduciendo en JDBC lo que hace cada una:
+ * <ul>
+ *   <li>IDENTITY: cada INSERT se ejecuta en el momento para leer la clave generada, de una en una
+ *       y sin lotes.</li>
+ *   <li>Secuencia con optimizador pooled-lo (SecuenciaAgrupadaGenerator, INCREMENT BY 50): un
+ *       nextval cada 50 ids y los INSERT en lotes JDBC de 50, con reWriteBatchedInserts como en
+ *       application-prod.properties.</li>
+ * </ul>
+ * PostgreSQL embebido con synchronous_commit activado: cada transacción espera al fsync.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneracionIdsBenchmark {
+
+    private static final int TAMANO_ASIGNACION = 50;
+
+    private static final String INSERT_IDENTITY = "INSERT INTO lineas_identity " +
+            "(venta_id, producto_codigo, cantidad, precio_unitario) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_SECUENCIA = "INSERT INTO lineas_secuencia " +
+            "(id, venta_id, producto_codigo, cantidad, precio_unitario) VALUES (?, ?, ?, ?, ?)";
+
+    // Líneas insertadas por transacción
+    @Param({"5", "50"})
+    int lineas;
+
+    private EmbeddedPostgres postgres;
+    private Connection conexion;
+    private long venta;
+
+    // Bloque de ids reservado con el último nextval: [siguienteId, limiteId)
+    private long siguienteId;
+    private long limiteId;
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder()
+                .setServerConfig("synchronous_commit", "on")
+                .start();
+        conexion = DriverManager.getConnection(
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        try (Statement st = conexion.createStatement()) {
+            st.execute("CREATE TABLE lineas_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "venta_id BIGINT NOT NULL, producto_codigo VARCHAR(50) NOT NULL, cantidad INTEGER NOT NULL, " +
+                    "precio_unitario NUMERIC(12, 2) NOT NULL)");
+            st.execute("CREATE SEQUENCE lineas_secuencia_seq INCREMENT BY " + TAMANO_ASIGNACION);
+            st.execute("CREATE TABLE lineas_secuencia (id BIGINT PRIMARY KEY, " +
+                    "venta_id BIGINT NOT NULL, producto_codigo VARCHAR(50) NOT NULL, cantidad INTEGER NOT NULL, " +
+                    "precio_unitario NUMERIC(12, 2) NOT NULL)");
+        }
+        conexion.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void cerrar() throws IOException, SQLException {
+        conexion.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public long identity() throws SQLException {
+        long ultimoId = 0;
+        venta++;
+        try (PreparedStatement insert = conexion.prepareStatement(INSERT_IDENTITY, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < lineas; i++) {
+                asignar(insert, 1, i);
+                insert.executeUpdate();
+                try (ResultSet clave = insert.getGeneratedKeys()) {
+                    clave.next();
+                    ultimoId = clave.getLong(1);
+                }
+            }
+        }
+        conexion.commit();
+        return ultimoId;
+    }
+
+    @Benchmark
+    public long secuenciaAgrupada() throws SQLException {
+        long ultimoId = 0;
+        venta++;
+        try (PreparedStatement insert = conexion.prepareStatement(INSERT_SECUENCIA)) {
+            for (int i = 0; i < lineas; i++) {
+                ultimoId = siguienteId();
+                insert.setLong(1, ultimoId);
+                asignar(insert, 2, i);
+                insert.addBatch();
+                if ((i + 1) % TAMANO_ASIGNACION == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        conexion.commit();
+        return ultimoId;
+    }
+
+    // pooled-lo: el valor de nextval es el primero del bloque
+    private long siguienteId() throws SQLException {
+        if (siguienteId == limiteId) {
+            try (Statement st = conexion.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT nextval('lineas_secuencia_seq')")) {
+                rs.next();
+                siguienteId = rs.getLong(1);
+                limiteId = siguienteId + TAMANO_ASIGNACION;
+            }
+        }
+        return siguienteId++;
+    }
+
+    private void asignar(PreparedStatement insert, int desde, int linea) throws SQLException {
+        insert.setLong(desde, venta);
+        insert.setString(desde + 1, BackendEmbebido.codigoProducto(1 + linea));
+        insert.setInt(desde + 2, 1 + linea % 3);
+        insert.setBigDecimal(desde + 3, BigDecimal.valueOf(1050 + linea, 2));
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventario.benchmark;
+
+import com.inventario.util.IndiceSku;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de un código EAN-13 entre 1.000.000 de productos: HashMap de String frente a
+ * IndiceSku. Los códigos buscados son Strings nuevos (como los que llegan en cada venta), de
+ * modo que el HashMap tiene que calcular su hash en cada búsqueda.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IndiceSkuBenchmark {
+
+    private static final int PRODUCTOS = 1_000_000;
+    private static final int BUSQUEDAS = 4096;
+
+    private final Map<String, Integer> mapa = new HashMap<>();
+    private final IndiceSku indice = new IndiceSku(PRODUCTOS);
+    private final char[][] buscados = new char[BUSQUEDAS][];
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String codigo = BackendEmbebido.codigoProducto(i + 1);
+            mapa.put(codigo, i);
+            indice.insertar(codigo);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < BUSQUEDAS; i++) {
+            buscados[i] = BackendEmbebido.codigoProducto(1 + random.nextInt(PRODUCTOS)).toCharArray();
+        }
+    }
+
+    private String siguienteCodigo() {
+        siguiente = (siguiente + 1) & (BUSQUEDAS - 1);
+        return new String(buscados[siguiente]);
+    }
+
+    @Benchmark
+    public Integer hashMap() {
+        return mapa.get(siguienteCodigo());
+    }
+
+    @Benchmark
+    public int indiceSku() {
+        return indice.buscar(siguienteCodigo());
+    }
+}
@@ -0,0 +1,81 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.service.IngestaVentas;
+import com.inventario.service.VentaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas por segundo con muchos terminales a la vez: cada venta en su propia transacción
+ * (VentaService.crearVenta) frente al commit agrupado de IngestaVentas. Cada hilo de JMH es
+ * un terminal que vende de 1 a 3 productos al azar de un catálogo de 2000.
+ *
+ * PostgreSQL embebido con synchronous_commit=on, de modo que cada commit espera al fsync.
+ * Con más o menos terminales: java -jar target/benchmarks.jar IngestaVentas -t 64
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class IngestaVentasBenchmark {
+
+    private static final int PRODUCTOS = 2000;
+
+    @Param({"directo", "agrupado"})
+    String modo;
+
+    private BackendEmbebido backend;
+    private VentaService ventaService;
+    private IngestaVentas ingestaVentas;
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        private final SplittableRandom random = new SplittableRandom();
+
+        VentaDTO siguienteVenta() {
+            int lineas = 1 + random.nextInt(3);
+            List<DetalleVentaDTO> detalles = new ArrayList<>(lineas);
+            for (int i = 0; i < lineas; i++) {
+                detalles.add(DetalleVentaDTO.builder()
+                        .productoCodigoBarras(BackendEmbebido.codigoProducto(1 + random.nextInt(PRODUCTOS)))
+                        .cantidad(1)
+                        .build());
+            }
+            return VentaDTO.builder().detalles(detalles).build();
+        }
+    }
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        backend = BackendEmbebido.iniciar(PRODUCTOS, 10_000_000,
+                "--app.ventas.ingesta.habilitada=" + "agrupado".equals(modo),
+                // Agrupación de INSERT/UPDATE del perfil prod
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "--spring.jpa.properties.hibernate.order_inserts=true",
+                "--spring.jpa.properties.hibernate.order_updates=true");
+        ventaService = backend.bean(VentaService.class);
+        ingestaVentas = backend.beanOpcional(IngestaVentas.class);
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        backend.close();
+    }
+
+    @Benchmark
+    public VentaDTO vender(Terminal terminal) {
+        VentaDTO venta = terminal.siguienteVenta();
+        return ingestaVentas != null ? ingestaVentas.registrarYEsperar(venta) : ventaService.crearVenta(venta);
+    }
+}
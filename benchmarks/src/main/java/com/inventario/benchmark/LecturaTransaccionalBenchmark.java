@@ -0,0 +1,62 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.ProductoDTO;
+import com.inventario.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura de una página de productos (con categoría y proveedor, mapeada a DTO) tal como la
+ * ejecuta ProductoService.listarTodos, en su transacción de solo lectura y dentro de una
+ * transacción de lectura-escritura. En la segunda Hibernate guarda un snapshot de cada
+ * entidad cargada y la compara campo a campo en el flush del commit.
+ *
+ * Levanta el backend sin servidor web contra un PostgreSQL embebido. Para ver la memoria
+ * asignada por lectura: java -jar target/benchmarks.jar LecturaTransaccional -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LecturaTransaccionalBenchmark {
+
+    private static final int PRODUCTOS = 2000;
+
+    @Param({"20", "200"})
+    int tamanoPagina;
+
+    private BackendEmbebido backend;
+    private ProductoService productoService;
+    private TransactionTemplate transaccionEscritura;
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        backend = BackendEmbebido.iniciar(PRODUCTOS, 45);
+        productoService = backend.bean(ProductoService.class);
+        transaccionEscritura = new TransactionTemplate(backend.bean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        backend.close();
+    }
+
+    @Benchmark
+    public Page<ProductoDTO> soloLectura() {
+        return productoService.listarTodos(0, tamanoPagina, "nombre", "ASC");
+    }
+
+    // El método readOnly se une a la transacción exterior, que es de lectura-escritura
+    @Benchmark
+    public Page<ProductoDTO> lecturaEscritura() {
+        return transaccionEscritura.execute(estado -> productoService.listarTodos(0, tamanoPagina, "nombre", "ASC"));
+    }
+}
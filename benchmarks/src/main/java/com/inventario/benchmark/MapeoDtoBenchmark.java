@@ -0,0 +1,96 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.MovimientoInventarioDTO;
+import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.ProductoDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.entity.MovimientoInventario;
+import com.inventario.entity.OrdenCompra;
+import com.inventario.entity.Producto;
+import com.inventario.entity.Venta;
+import com.inventario.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variantes de convertirADTO de los servicios. Los métodos son privados, así que se
+ * invocan mediante MethodHandles sobre instancias con las dependencias a null
+ * (el mapeo solo lee la entidad).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapeoDtoBenchmark {
+
+    @Param({"5", "50"})
+    int lineas;
+
+    private Producto producto;
+    private Venta venta;
+    private OrdenCompra orden;
+    private MovimientoInventario movimiento;
+
+    private MethodHandle productoADTO;
+    private MethodHandle reporteProductoADTO;
+    private MethodHandle ventaADTO;
+    private MethodHandle ordenADTO;
+    private MethodHandle movimientoADTO;
+
+    @Setup
+    public void preparar() throws Exception {
+        DatosSinteticos datos = new DatosSinteticos();
+        producto = datos.producto();
+        venta = datos.venta(lineas);
+        orden = datos.ordenCompra(lineas);
+        movimiento = datos.movimiento();
+
+        productoADTO = mapeo(ProductoService.class, "convertirADTO", ProductoDTO.class, Producto.class);
+        reporteProductoADTO = mapeo(ReporteService.class, "convertirProductoADTO", ProductoDTO.class, Producto.class);
+        ventaADTO = mapeo(VentaService.class, "convertirADTO", VentaDTO.class, Venta.class);
+        ordenADTO = mapeo(OrdenCompraService.class, "convertirADTO", OrdenCompraDTO.class, OrdenCompra.class);
+        movimientoADTO = mapeo(MovimientoInventarioService.class, "convertirADTO",
+                MovimientoInventarioDTO.class, MovimientoInventario.class);
+    }
+
+    @Benchmark
+    public Object producto() throws Throwable {
+        return productoADTO.invoke(producto);
+    }
+
+    @Benchmark
+    public Object productoReporte() throws Throwable {
+        return reporteProductoADTO.invoke(producto);
+    }
+
+    @Benchmark
+    public Object venta() throws Throwable {
+        return ventaADTO.invoke(venta);
+    }
+
+    @Benchmark
+    public Object ordenCompra() throws Throwable {
+        return ordenADTO.invoke(orden);
+    }
+
+    @Benchmark
+    public Object movimiento() throws Throwable {
+        return movimientoADTO.invoke(movimiento);
+    }
+
+    private static MethodHandle mapeo(Class<?> servicio, String metodo, Class<?> retorno, Class<?> entidad)
+            throws Exception {
+        Constructor<?> constructor = servicio.getDeclaredConstructors()[0];
+        Object instancia = constructor.newInstance(new Object[constructor.getParameterCount()]);
+        return MethodHandles.privateLookupIn(servicio, MethodHandles.lookup())
+                .findVirtual(servicio, metodo, MethodType.methodType(retorno, entidad))
+                .bindTo(instancia);
+    }
+}
@@ -0,0 +1,87 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.DetalleVentaDTO;
+import com.inventario.dto.VentaDTO;
+import com.inventario.service.VentaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas por segundo sobre un catálogo pequeño muy vendido (50 productos), donde varias ventas
+ * simultáneas tocan las mismas filas: con el stock en la base de datos cada venta mantiene
+ * bloqueadas las filas de sus productos hasta el commit; con el motor de stock el descuento se
+ * hace en memoria y se vuelca después.
+ *
+ * PostgreSQL embebido con synchronous_commit=on y el diario del motor con fsync.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class MotorStockBenchmark {
+
+    private static final int PRODUCTOS = 50;
+
+    @Param({"baseDatos", "motor"})
+    String stock;
+
+    private Path diario;
+    private BackendEmbebido backend;
+    private VentaService ventaService;
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        private final SplittableRandom random = new SplittableRandom();
+
+        VentaDTO siguienteVenta() {
+            int lineas = 1 + random.nextInt(3);
+            List<DetalleVentaDTO> detalles = new ArrayList<>(lineas);
+            for (int i = 0; i < lineas; i++) {
+                detalles.add(DetalleVentaDTO.builder()
+                        .productoCodigoBarras(BackendEmbebido.codigoProducto(1 + random.nextInt(PRODUCTOS)))
+                        .cantidad(1)
+                        .build());
+            }
+            return VentaDTO.builder().detalles(detalles).build();
+        }
+    }
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        diario = Files.createTempDirectory("diario-stock");
+        backend = BackendEmbebido.iniciar(PRODUCTOS, 10_000_000,
+                "--app.stock.motor.habilitado=" + "motor".equals(stock),
+                "--app.stock.motor.directorio-diario=" + diario,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "--spring.jpa.properties.hibernate.order_inserts=true",
+                "--spring.jpa.properties.hibernate.order_updates=true");
+        ventaService = backend.bean(VentaService.class);
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        backend.close();
+        try (var archivos = Files.list(diario)) {
+            for (Path archivo : archivos.toList()) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(diario);
+    }
+
+    @Benchmark
+    public VentaDTO vender(Terminal terminal) {
+        return ventaService.crearVenta(terminal.siguienteVenta());
+    }
+}
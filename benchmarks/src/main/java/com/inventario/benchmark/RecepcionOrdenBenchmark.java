@@ -0,0 +1,109 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.DetalleOrdenCompraDTO;
+import com.inventario.dto.OrdenCompraDTO;
+import com.inventario.dto.RecepcionOrdenDTO;
+import com.inventario.service.OrdenCompraService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo de recibir un contenedor de 500 líneas con OrdenCompraService.recibirOrdenes: en una
+ * sola orden o repartido en 5 órdenes de 100 líneas recibidas en la misma llamada. Incluye
+ * cargar las órdenes, sumar el stock de los 500 productos e insertar sus 500 movimientos de
+ * ENTRADA. El objetivo es que tarde bastante menos de un segundo.
+ *
+ * Cada invocación recibe órdenes nuevas, creadas antes y fuera de la medición. PostgreSQL
+ * embebido con synchronous_commit=on, el diario del motor con fsync y los INSERT agrupados
+ * reescritos como en application-prod.properties.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecepcionOrdenBenchmark {
+
+    private static final int LINEAS = 500;
+
+    @Param({"baseDatos", "motor"})
+    String stock;
+
+    @Param({"1", "5"})
+    int ordenes;
+
+    private Path diario;
+    private BackendEmbebido backend;
+    private OrdenCompraService ordenCompraService;
+    private Long proveedor;
+
+    private List<RecepcionOrdenDTO> recepciones;
+
+    @Setup
+    public void preparar() throws IOException, SQLException {
+        diario = Files.createTempDirectory("diario-stock");
+        backend = BackendEmbebido.iniciar(LINEAS, 1000,
+                "--app.stock.motor.habilitado=" + "motor".equals(stock),
+                "--app.stock.motor.directorio-diario=" + diario,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "--spring.jpa.properties.hibernate.order_inserts=true",
+                "--spring.jpa.properties.hibernate.order_updates=true",
+                "--spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=true");
+        ordenCompraService = backend.bean(OrdenCompraService.class);
+        proveedor = backend.bean(JdbcTemplate.class).queryForObject("SELECT min(id) FROM proveedores", Long.class);
+    }
+
+    // Órdenes pendientes con los 500 productos repartidos entre ellas, y su recepción completa
+    @Setup(Level.Invocation)
+    public void crearOrdenes() {
+        recepciones = new ArrayList<>(ordenes);
+        int porOrden = LINEAS / ordenes;
+        for (int o = 0; o < ordenes; o++) {
+            List<DetalleOrdenCompraDTO> detalles = new ArrayList<>(porOrden);
+            List<DetalleOrdenCompraDTO> recibidos = new ArrayList<>(porOrden);
+            for (int i = 1; i <= porOrden; i++) {
+                String codigo = BackendEmbebido.codigoProducto(o * porOrden + i);
+                detalles.add(DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(codigo)
+                        .cantidadSolicitada(12)
+                        .precioCompra(BigDecimal.TEN)
+                        .build());
+                recibidos.add(DetalleOrdenCompraDTO.builder()
+                        .productoCodigoBarras(codigo)
+                        .cantidadRecibida(12)
+                        .build());
+            }
+            Long id = ordenCompraService.crear(OrdenCompraDTO.builder()
+                    .proveedorId(proveedor)
+                    .detalles(detalles)
+                    .build()).getId();
+            recepciones.add(RecepcionOrdenDTO.builder().ordenId(id).detalles(recibidos).build());
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws IOException {
+        backend.close();
+        try (var archivos = Files.list(diario)) {
+            for (Path archivo : archivos.toList()) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(diario);
+    }
+
+    @Benchmark
+    public Object recibir() {
+        return ordenCompraService.recibirOrdenes(recepciones);
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventario.benchmark;
+
+import com.inventario.dto.VentaDTO;
+import com.inventario.util.PdfGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketPdfBenchmark {
+
+    @Param({"3", "30"})
+    int lineas;
+
+    private final PdfGenerator generador = new PdfGenerator();
+    private VentaDTO venta;
+
+    @Setup
+    public void preparar() {
+        venta = new DatosSinteticos().ventaDTO(lineas);
+    }
+
+    @Benchmark
+    public byte[] generarTicketVenta() throws IOException {
+        return generador.generarTicketVenta(venta);
+    }
+}
@@ -0,0 +1,69 @@
+package com.inventario.benchmark;
+
+import com.inventario.entity.DetalleVenta;
+import com.inventario.entity.OrdenCompra;
+import com.inventario.entity.Venta;
+import com.inventario.util.Dinero;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de totales: el bucle de crearVenta (precio x cantidad acumulado línea a línea)
+ * con BigDecimal y con céntimos (Dinero), Venta.calcularTotal y OrdenCompra.calcularTotal.
+ * Con -prof gc se ve la memoria reservada por operación de cada variante.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TotalVentaBenchmark {
+
+    @Param({"5", "50", "500"})
+    int lineas;
+
+    private Venta venta;
+    private OrdenCompra orden;
+
+    @Setup
+    public void preparar() {
+        DatosSinteticos datos = new DatosSinteticos();
+        venta = datos.venta(lineas);
+        orden = datos.ordenCompra(lineas);
+    }
+
+    // Versión anterior de crearVenta, como referencia
+    @Benchmark
+    public BigDecimal crearVentaTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (DetalleVenta detalle : venta.getDetalles()) {
+            BigDecimal subtotal = detalle.getPrecioUnitario().multiply(BigDecimal.valueOf(detalle.getCantidad()));
+            total = total.add(subtotal);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal crearVentaTotalDinero() {
+        long total = 0;
+        for (DetalleVenta detalle : venta.getDetalles()) {
+            total = Math.addExact(total, Dinero.subtotal(Dinero.centimos(detalle.getPrecioUnitario()), detalle.getCantidad()));
+        }
+        return Dinero.aBigDecimal(total);
+    }
+
+    @Benchmark
+    public BigDecimal ventaCalcularTotal() {
+        venta.calcularTotal();
+        return venta.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal ordenCompraCalcularTotal() {
+        orden.calcularTotal();
+        return orden.getTotal();
+    }
+}
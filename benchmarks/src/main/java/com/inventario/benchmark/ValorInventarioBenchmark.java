@@ -0,0 +1,55 @@
+package com.inventario.benchmark;
+
+import com.inventario.entity.Producto;
+import com.inventario.util.Dinero;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valor del inventario (precio de venta x stock) de 100.000 productos ya cargados, como en
+ * ReporteService.generarReporteInventario: con la cadena de BigDecimal que se usaba antes
+ * (multiply + add por producto) y acumulando céntimos en un long con Dinero.
+ *
+ * Para ver los bytes reservados por operación: java -jar target/benchmarks.jar ValorInventario -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValorInventarioBenchmark {
+
+    private static final int PRODUCTOS = 100_000;
+
+    private List<Producto> productos;
+
+    @Setup
+    public void preparar() {
+        DatosSinteticos datos = new DatosSinteticos();
+        productos = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos.add(datos.producto());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        return productos.stream()
+                .map(p -> p.getPrecioVenta().multiply(BigDecimal.valueOf(p.getStockActual())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal dinero() {
+        long centimos = 0;
+        for (Producto p : productos) {
+            centimos = Math.addExact(centimos, Dinero.subtotal(Dinero.centimos(p.getPrecioVenta()), p.getStockActual()));
+        }
+        return Dinero.aBigDecimal(centimos);
+    }
+}
@@ -72,11 +72,17 @@ CREATE TABLE IF NOT EXISTS ventas (
     fecha_hora TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     total DECIMAL(12,2) NOT NULL DEFAULT 0,
     estado VARCHAR(20) NOT NULL DEFAULT 'COMPLETADA',
-    observaciones VARCHAR(500)
+    observaciones VARCHAR(500),
+    -- Solo en ventas PENDIENTE: hasta cuándo retienen su stock
+    fecha_expiracion TIMESTAMP
 );
 
+-- Hibernate reserva ids de 50 en 50 (optimizador pooled-lo) para poder agrupar los INSERT.
+-- El incremento debe coincidir con inventario.id.tamano_asignacion en application.properties
+ALTER SEQUENCE ventas_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_venta_fecha ON ventas(fecha_hora);
-CREATE INDEX IF NOT EXISTS idx_venta_estado ON ventas(estado);
+CREATE INDEX IF NOT EXISTS idx_venta_estado_fecha ON ventas(estado, fecha_hora);
 
 -- =============================================
 -- TABLA: detalle_ventas
@@ -90,6 +96,8 @@ CREATE TABLE IF NOT EXISTS detalle_ventas (
     subtotal DECIMAL(12,2) NOT NULL
 );
 
+ALTER SEQUENCE detalle_ventas_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_detalle_venta ON detalle_ventas(venta_id);
 CREATE INDEX IF NOT EXISTS idx_detalle_producto ON detalle_ventas(producto_codigo);
 
@@ -108,6 +116,8 @@ CREATE TABLE IF NOT EXISTS movimientos_inventario (
     referencia VARCHAR(100)
 );
 
+ALTER SEQUENCE movimientos_inventario_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_movimiento_fecha ON movimientos_inventario(fecha_hora);
 CREATE INDEX IF NOT EXISTS idx_movimiento_tipo ON movimientos_inventario(tipo_movimiento);
 CREATE INDEX IF NOT EXISTS idx_movimiento_producto ON movimientos_inventario(producto_codigo);
@@ -122,11 +132,14 @@ CREATE TABLE IF NOT EXISTS ordenes_compra (
     fecha_entrega_estimada DATE,
     estado VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
     total DECIMAL(12,2) DEFAULT 0,
-    observaciones VARCHAR(500)
+    observaciones VARCHAR(500),
+    fecha_recepcion TIMESTAMP
 );
 
+ALTER SEQUENCE ordenes_compra_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_orden_fecha ON ordenes_compra(fecha_orden);
-CREATE INDEX IF NOT EXISTS idx_orden_estado ON ordenes_compra(estado);
+CREATE INDEX IF NOT EXISTS idx_orden_estado_fecha ON ordenes_compra(estado, fecha_orden);
 CREATE INDEX IF NOT EXISTS idx_orden_proveedor ON ordenes_compra(proveedor_id);
 
 -- =============================================
@@ -141,8 +154,27 @@ CREATE TABLE IF NOT EXISTS detalle_ordenes_compra (
     precio_compra DECIMAL(12,2) NOT NULL
 );
 
+ALTER SEQUENCE detalle_ordenes_compra_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_detalle_orden ON detalle_ordenes_compra(orden_id);
 
+-- =============================================
+-- TABLA: sugerencias_reposicion
+-- Calculada cada noche por ReposicionService (una fila por producto)
+-- =============================================
+CREATE TABLE IF NOT EXISTS sugerencias_reposicion (
+    producto_codigo VARCHAR(50) PRIMARY KEY REFERENCES productos(codigo_barras),
+    venta_diaria DECIMAL(12,4) NOT NULL,
+    desviacion_diaria DECIMAL(12,4) NOT NULL,
+    plazo_entrega_dias DECIMAL(8,2) NOT NULL,
+    stock_seguridad INTEGER NOT NULL,
+    punto_reorden INTEGER NOT NULL,
+    stock_objetivo INTEGER NOT NULL,
+    precio_compra DECIMAL(12,2) NOT NULL,
+    precio_estimado BOOLEAN NOT NULL,
+    fecha_calculo TIMESTAMP NOT NULL
+);
+
 -- =============================================
 -- DATOS DE EJEMPLO
 -- =============================================
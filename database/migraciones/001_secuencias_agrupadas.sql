@@ -0,0 +1,18 @@
+-- =============================================
+-- MIGRACIÓN 001: SECUENCIAS CON ASIGNACIÓN AGRUPADA
+-- Para bases de datos creadas antes del cambio de IDENTITY a secuencias.
+-- =============================================
+-- Venta, DetalleVenta, MovimientoInventario, OrdenCompra y DetalleOrdenCompra
+-- obtienen sus ids de las secuencias BIGSERIAL existentes con el optimizador
+-- pooled-lo: cada nextval reserva un bloque de ids que Hibernate asigna en
+-- memoria. El INCREMENT BY debe coincidir con inventario.id.tamano_asignacion
+-- (50 por defecto); si no coincide, Hibernate se niega a arrancar.
+--
+-- El siguiente nextval devuelve el último id usado + 50, por lo que los
+-- bloques nuevos nunca se solapan con filas existentes.
+
+ALTER SEQUENCE ventas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE detalle_ventas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE movimientos_inventario_id_seq INCREMENT BY 50;
+ALTER SEQUENCE ordenes_compra_id_seq INCREMENT BY 50;
+ALTER SEQUENCE detalle_ordenes_compra_id_seq INCREMENT BY 50;
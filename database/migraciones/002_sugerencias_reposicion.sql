@@ -0,0 +1,25 @@
+-- =============================================
+-- MIGRACIÓN 002: MOTOR DE SUGERENCIAS DE REPOSICIÓN
+-- =============================================
+-- Fecha de recepción completa de cada orden, usada para medir el plazo de entrega real
+ALTER TABLE ordenes_compra ADD COLUMN IF NOT EXISTS fecha_recepcion TIMESTAMP;
+
+-- Las órdenes ya recibidas toman como fecha de recepción su última entrada de mercancía
+UPDATE ordenes_compra o SET fecha_recepcion = m.fecha
+FROM (SELECT referencia, MAX(fecha_hora) AS fecha FROM movimientos_inventario
+      WHERE tipo_movimiento = 'ENTRADA' AND referencia LIKE 'OC-%' GROUP BY referencia) m
+WHERE o.estado = 'RECIBIDA' AND o.fecha_recepcion IS NULL AND m.referencia = 'OC-' || o.id;
+
+-- Sugerencias calculadas cada noche (una fila por producto)
+CREATE TABLE IF NOT EXISTS sugerencias_reposicion (
+    producto_codigo VARCHAR(50) PRIMARY KEY REFERENCES productos(codigo_barras),
+    venta_diaria DECIMAL(12,4) NOT NULL,
+    desviacion_diaria DECIMAL(12,4) NOT NULL,
+    plazo_entrega_dias DECIMAL(8,2) NOT NULL,
+    stock_seguridad INTEGER NOT NULL,
+    punto_reorden INTEGER NOT NULL,
+    stock_objetivo INTEGER NOT NULL,
+    precio_compra DECIMAL(12,2) NOT NULL,
+    precio_estimado BOOLEAN NOT NULL,
+    fecha_calculo TIMESTAMP NOT NULL
+);
@@ -0,0 +1,17 @@
+-- =============================================
+-- MIGRACIÓN 003: ÍNDICES COMPUESTOS (ESTADO, FECHA)
+-- =============================================
+-- Las consultas de ventas del día y por período filtran por estado y por un rango
+-- semiabierto [inicio, fin) de fecha_hora calculado en la aplicación. Con el índice
+-- compuesto ambas condiciones se resuelven en un único recorrido del índice.
+CREATE INDEX IF NOT EXISTS idx_venta_estado_fecha ON ventas(estado, fecha_hora);
+
+-- Órdenes pendientes o enviadas, listadas de la más reciente a la más antigua
+CREATE INDEX IF NOT EXISTS idx_orden_estado_fecha ON ordenes_compra(estado, fecha_orden);
+
+-- Los índices solo por estado quedan cubiertos por la primera columna de los compuestos
+DROP INDEX IF EXISTS idx_venta_estado;
+DROP INDEX IF EXISTS idx_orden_estado;
+
+ANALYZE ventas;
+ANALYZE ordenes_compra;
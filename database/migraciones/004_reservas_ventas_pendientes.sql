@@ -0,0 +1,11 @@
+-- =============================================
+-- MIGRACIÓN 004: RESERVAS DE STOCK DE VENTAS PENDIENTES
+-- =============================================
+-- Las ventas PENDIENTE (carritos y presupuestos) retienen su stock hasta esta fecha;
+-- al vencer pasan a CANCELADA. Las ventas existentes no la necesitan.
+ALTER TABLE ventas ADD COLUMN IF NOT EXISTS fecha_expiracion TIMESTAMP;
+
+-- Las pendientes creadas antes de las reservas no tenían vencimiento: el backend las
+-- cancela al arrancar. Para conservarlas, darles un plazo antes de desplegar, p. ej.:
+-- UPDATE ventas SET fecha_expiracion = CURRENT_TIMESTAMP + INTERVAL '1 day'
+-- WHERE estado = 'PENDIENTE' AND fecha_expiracion IS NULL;
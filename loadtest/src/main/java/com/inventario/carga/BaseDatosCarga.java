@@ -0,0 +1,106 @@
+package com.inventario.carga;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Base de datos de la prueba: un PostgreSQL embebido (binarios de zonky, sin Docker)
+ * o uno local indicado con carga.jdbc-url. Crea el esquema con database/init.sql
+ * sin los datos de ejemplo.
+ */
+final class BaseDatosCarga implements AutoCloseable {
+
+    private static final String MARCA_DATOS_EJEMPLO = "-- DATOS DE EJEMPLO";
+
+    private final EmbeddedPostgres embebido;
+    private final String jdbcUrl;
+    private final String usuario;
+    private final String clave;
+
+    private BaseDatosCarga(EmbeddedPostgres embebido, String jdbcUrl, String usuario, String clave) {
+        this.embebido = embebido;
+        this.jdbcUrl = jdbcUrl;
+        this.usuario = usuario;
+        this.clave = clave;
+    }
+
+    static BaseDatosCarga iniciar(ConfiguracionCarga config) throws IOException {
+        if (!config.usaPostgresEmbebido()) {
+            return new BaseDatosCarga(null, config.jdbcUrl, config.usuario, config.clave);
+        }
+        return iniciarEmbebido();
+    }
+
+    static BaseDatosCarga iniciarEmbebido() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "200")
+                .setServerConfig("shared_buffers", "256MB")
+                .start();
+        return new BaseDatosCarga(postgres, postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+    }
+
+    Connection conectar() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, usuario, clave);
+    }
+
+    /**
+     * Ejecuta la parte de init.sql anterior a los datos de ejemplo. Si la extensión
+     * pg_trgm no está disponible en los binarios se continúa sin ella.
+     */
+    void crearEsquema(ConfiguracionCarga config) throws IOException, SQLException {
+        String script = Files.readString(config.esquema, StandardCharsets.UTF_8);
+        int fin = script.indexOf(MARCA_DATOS_EJEMPLO);
+        if (fin >= 0) {
+            script = script.substring(0, fin);
+        }
+
+        StringBuilder sinComentarios = new StringBuilder();
+        for (String linea : script.split("\\R")) {
+            if (!linea.trim().startsWith("--")) {
+                sinComentarios.append(linea).append('\n');
+            }
+        }
+
+        try (Connection conexion = conectar(); Statement st = conexion.createStatement()) {
+            for (String sentencia : sinComentarios.toString().split(";")) {
+                if (sentencia.isBlank()) {
+                    continue;
+                }
+                try {
+                    st.execute(sentencia);
+                } catch (SQLException e) {
+                    if (!sentencia.toUpperCase().contains("CREATE EXTENSION")) {
+                        throw e;
+                    }
+                    System.out.println("Aviso: no se pudo crear la extensión (" + e.getMessage().trim() + ")");
+                }
+            }
+        }
+    }
+
+    String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String getUsuario() {
+        return usuario;
+    }
+
+    String getClave() {
+        return clave;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embebido != null) {
+            embebido.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.inventario.carga;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba, leídos de propiedades del sistema con prefijo "carga."
+ * (por ejemplo -Dcarga.tasa=300 -Dcarga.skus=20000).
+ */
+final class ConfiguracionCarga {
+
+    /** Mezcla por defecto: pesos relativos de cada operación */
+    private static final String MEZCLA_DEFECTO =
+            "escaneo:40,venta:15,busqueda:15,listado:8,estadisticas:8,dashboard:8,reporte-ventas:4,reporte-inventario:2";
+
+    // Base de datos: vacío = PostgreSQL embebido
+    final String jdbcUrl = texto("jdbc-url", "");
+    final String usuario = texto("usuario", "postgres");
+    final String clave = texto("clave", "postgres");
+    final Path esquema = Paths.get(texto("esquema", "../database/init.sql"));
+    final boolean sembrar = Boolean.parseBoolean(texto("sembrar", "true"));
+    // Segunda instancia embebida con los mismos datos como réplica de lectura (sin replicación real)
+    final boolean replica = Boolean.parseBoolean(texto("replica", "false"));
+
+    // Tienda sintética
+    final int skus = entero("skus", 5000);
+    final int categorias = entero("categorias", 25);
+    final int proveedores = entero("proveedores", 15);
+    final int anios = entero("anios", 2);
+    final int ventasPorDia = entero("ventas-dia", 120);
+    final long semilla = Long.parseLong(texto("semilla", "42"));
+
+    // Aplicación y tráfico
+    final String perfiles = texto("perfiles", "prod");
+    final int tasa = entero("tasa", 200);
+    final Duration calentamiento = Duration.ofSeconds(entero("calentamiento", 15));
+    final Duration duracion = Duration.ofSeconds(entero("duracion", 60));
+    final int maxEnVuelo = entero("max-en-vuelo", 2000);
+    final Map<String, Integer> mezcla = mezcla(texto("mezcla", MEZCLA_DEFECTO));
+    final Path resultado = Paths.get(texto("resultado", "target/carga-resultado.csv"));
+
+    boolean usaPostgresEmbebido() {
+        return jdbcUrl.isBlank();
+    }
+
+    private static String texto(String clave, String defecto) {
+        return System.getProperty("carga." + clave, defecto);
+    }
+
+    private static int entero(String clave, int defecto) {
+        return Integer.parseInt(texto(clave, String.valueOf(defecto)));
+    }
+
+    private static Map<String, Integer> mezcla(String valor) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : valor.split(",")) {
+            String[] operacionPeso = parte.trim().split(":");
+            if (operacionPeso.length != 2) {
+                throw new IllegalArgumentException("Mezcla inválida: " + parte + " (formato operacion:peso)");
+            }
+            pesos.put(operacionPeso[0].trim(), Integer.parseInt(operacionPeso[1].trim()));
+        }
+        return pesos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("skus=%d categorias=%d proveedores=%d anios=%d ventasDia=%d tasa=%d/s "
+                        + "calentamiento=%ds duracion=%ds perfiles=%s replica=%s mezcla=%s",
+                skus, categorias, proveedores, anios, ventasPorDia, tasa,
+                calentamiento.toSeconds(), duracion.toSeconds(), perfiles, replica, mezcla);
+    }
+}
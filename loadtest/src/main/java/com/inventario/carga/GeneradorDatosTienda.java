@@ -0,0 +1,306 @@
+package com.inventario.carga;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Siembra una tienda sintética: categorías, proveedores, N productos y los años de
+ * historial indicados (ventas con sus detalles y movimientos, y órdenes de compra
+ * recibidas cada dos semanas por proveedor). La popularidad de los productos sigue
+ * una curva sesgada, de forma que pocos SKU concentran la mayoría de las ventas.
+ */
+final class GeneradorDatosTienda {
+
+    static final String[] MARCAS = {"Brembo", "NGK", "Motul", "DID", "Yuasa", "EBC", "Wiseco", "Pirelli",
+            "Michelin", "Castrol", "Honda", "Yamaha", "Bosch", "Denso", "Renthal"};
+    static final String[] PIEZAS = {"Pastillas de Freno", "Bujía", "Kit de Arrastre", "Filtro de Aire",
+            "Filtro de Aceite", "Batería", "Disco de Freno", "Kit de Pistón", "Aceite", "Llanta",
+            "Cadena", "Embrague", "Amortiguador", "Faro", "Espejo", "Manubrio", "Cable de Acelerador"};
+    private static final String[] MODELOS = {"Honda CB 190R", "Yamaha FZ 2.0", "Suzuki Gixxer", "Bajaj Pulsar 200",
+            "KTM Duke 200", "Honda XR 150L", "Yamaha XTZ 125", "Universal"};
+
+    private static final int LOTE = 1000;
+
+    private final ConfiguracionCarga config;
+    private final Random random;
+
+    private String[] codigos;
+    private BigDecimal[] precios;
+    private List<List<Integer>> productosPorProveedor;
+
+    GeneradorDatosTienda(ConfiguracionCarga config) {
+        this.config = config;
+        this.random = new Random(config.semilla);
+    }
+
+    void sembrar(Connection conexion) throws SQLException {
+        conexion.setAutoCommit(false);
+        insertarCategorias(conexion);
+        insertarProveedores(conexion);
+        insertarProductos(conexion);
+        conexion.commit();
+
+        insertarHistorial(conexion);
+
+        try (Statement st = conexion.createStatement()) {
+            for (String tabla : new String[]{"categorias", "proveedores", "ventas", "detalle_ventas",
+                    "movimientos_inventario", "ordenes_compra", "detalle_ordenes_compra"}) {
+                st.execute("SELECT setval(pg_get_serial_sequence('" + tabla + "', 'id'), "
+                        + "(SELECT COALESCE(MAX(id), 1) FROM " + tabla + "))");
+            }
+        }
+        conexion.commit();
+        conexion.setAutoCommit(true);
+        try (Statement st = conexion.createStatement()) {
+            st.execute("ANALYZE");
+        }
+    }
+
+    private void insertarCategorias(Connection conexion) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO categorias (id, nombre, descripcion, activo) VALUES (?, ?, ?, true)")) {
+            for (int i = 1; i <= config.categorias; i++) {
+                String pieza = PIEZAS[(i - 1) % PIEZAS.length];
+                ps.setLong(1, i);
+                ps.setString(2, pieza + " " + i);
+                ps.setString(3, "Repuestos de tipo " + pieza.toLowerCase() + " (grupo " + i + ")");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarProveedores(Connection conexion) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO proveedores (id, nombre, ruc, direccion, telefono, email, contacto_principal, activo) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, true)")) {
+            for (int i = 1; i <= config.proveedores; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "Distribuidora " + MARCAS[(i - 1) % MARCAS.length] + " " + i + " S.A.C.");
+                ps.setString(3, String.valueOf(20100000000L + i));
+                ps.setString(4, "Av. Industrial " + (100 + i) + ", Lima");
+                ps.setString(5, "01-" + (4000000 + i));
+                ps.setString(6, "ventas" + i + "@distribuidora.pe");
+                ps.setString(7, "Contacto " + i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarProductos(Connection conexion) throws SQLException {
+        codigos = new String[config.skus];
+        precios = new BigDecimal[config.skus];
+        productosPorProveedor = new ArrayList<>();
+        for (int i = 0; i < config.proveedores; i++) {
+            productosPorProveedor.add(new ArrayList<>());
+        }
+
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "INSERT INTO productos (codigo_barras, codigo_interno, nombre, descripcion, marca, modelo_compatible, "
+                        + "categoria_id, precio_venta, stock_actual, stock_minimo, proveedor_id, fecha_ingreso, "
+                        + "ubicacion, activo, fecha_creacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, ?)")) {
+            LocalDate inicio = LocalDate.now().minusYears(config.anios);
+            for (int i = 0; i < config.skus; i++) {
+                String pieza = PIEZAS[random.nextInt(PIEZAS.length)];
+                String marca = MARCAS[random.nextInt(MARCAS.length)];
+                String modelo = MODELOS[random.nextInt(MODELOS.length)];
+                int proveedor = random.nextInt(config.proveedores);
+
+                codigos[i] = ean13(i);
+                precios[i] = BigDecimal.valueOf(500 + random.nextInt(80000), 2);
+                productosPorProveedor.get(proveedor).add(i);
+
+                ps.setString(1, codigos[i]);
+                ps.setString(2, String.format("%s-%05d", marca.substring(0, 3).toUpperCase(), i));
+                ps.setString(3, pieza + " " + marca + " " + modelo);
+                ps.setString(4, pieza + " marca " + marca + " compatible con " + modelo);
+                ps.setString(5, marca);
+                ps.setString(6, modelo);
+                ps.setLong(7, 1 + random.nextInt(config.categorias));
+                ps.setBigDecimal(8, precios[i]);
+                ps.setInt(9, 200 + random.nextInt(2000));
+                ps.setInt(10, 5 + random.nextInt(20));
+                ps.setLong(11, proveedor + 1);
+                ps.setDate(12, Date.valueOf(inicio));
+                ps.setString(13, "Estante " + (char) ('A' + random.nextInt(10)) + "-" + random.nextInt(20));
+                ps.setTimestamp(14, Timestamp.valueOf(inicio.atStartOfDay()));
+                ps.addBatch();
+                if ((i + 1) % LOTE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertarHistorial(Connection conexion) throws SQLException {
+        try (PreparedStatement ventas = conexion.prepareStatement(
+                "INSERT INTO ventas (id, fecha_hora, total, estado, observaciones) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement detalles = conexion.prepareStatement(
+                     "INSERT INTO detalle_ventas (id, venta_id, producto_codigo, cantidad, precio_unitario, subtotal) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement movimientos = conexion.prepareStatement(
+                     "INSERT INTO movimientos_inventario (id, producto_codigo, tipo_movimiento, cantidad, fecha_hora, "
+                             + "motivo, referencia) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement ordenes = conexion.prepareStatement(
+                     "INSERT INTO ordenes_compra (id, proveedor_id, fecha_orden, fecha_entrega_estimada, estado, total, "
+                             + "fecha_recepcion) VALUES (?, ?, ?, ?, 'RECIBIDA', ?, ?)");
+             PreparedStatement detallesOrden = conexion.prepareStatement(
+                     "INSERT INTO detalle_ordenes_compra (id, orden_id, producto_codigo, cantidad_solicitada, "
+                             + "cantidad_recibida, precio_compra) VALUES (?, ?, ?, ?, ?, ?)")) {
+
+            long ventaId = 0, detalleId = 0, movimientoId = 0, ordenId = 0, detalleOrdenId = 0;
+            int pendientes = 0;
+            LocalDate hoy = LocalDate.now();
+
+            for (LocalDate dia = hoy.minusYears(config.anios); dia.isBefore(hoy); dia = dia.plusDays(1)) {
+                double factor = dia.getDayOfWeek() == DayOfWeek.SUNDAY ? 0.4
+                        : dia.getDayOfWeek() == DayOfWeek.SATURDAY ? 1.3 : 0.8 + random.nextDouble() * 0.4;
+                int ventasDelDia = (int) Math.round(config.ventasPorDia * factor);
+
+                for (int v = 0; v < ventasDelDia; v++) {
+                    LocalDateTime fechaHora = dia.atTime(9, 0).plusSeconds(random.nextInt(10 * 3600));
+                    boolean cancelada = random.nextInt(100) < 3;
+                    ventaId++;
+                    BigDecimal total = BigDecimal.ZERO;
+
+                    int lineas = 1 + random.nextInt(4);
+                    for (int l = 0; l < lineas; l++) {
+                        int producto = productoPopular();
+                        int cantidad = 1 + random.nextInt(3);
+                        BigDecimal subtotal = precios[producto].multiply(BigDecimal.valueOf(cantidad));
+                        total = total.add(subtotal);
+
+                        detalles.setLong(1, ++detalleId);
+                        detalles.setLong(2, ventaId);
+                        detalles.setString(3, codigos[producto]);
+                        detalles.setInt(4, cantidad);
+                        detalles.setBigDecimal(5, precios[producto]);
+                        detalles.setBigDecimal(6, subtotal);
+                        detalles.addBatch();
+
+                        if (!cancelada) {
+                            agregarMovimiento(movimientos, ++movimientoId, codigos[producto], "SALIDA", cantidad,
+                                    fechaHora, "Venta", "VENTA-" + ventaId);
+                        }
+                    }
+
+                    ventas.setLong(1, ventaId);
+                    ventas.setTimestamp(2, Timestamp.valueOf(fechaHora));
+                    ventas.setBigDecimal(3, total);
+                    ventas.setString(4, cancelada ? "CANCELADA" : "COMPLETADA");
+                    ventas.setString(5, null);
+                    ventas.addBatch();
+                    pendientes += lineas;
+                }
+
+                // Cada proveedor recibe una orden cada dos semanas (escalonadas por proveedor)
+                for (int p = 0; p < config.proveedores; p++) {
+                    List<Integer> suyos = productosPorProveedor.get(p);
+                    if (suyos.isEmpty() || (dia.toEpochDay() + p) % 14 != 0) {
+                        continue;
+                    }
+                    ordenId++;
+                    LocalDateTime fechaOrden = dia.atTime(10, 0);
+                    LocalDateTime recepcion = fechaOrden.plusDays(3 + random.nextInt(8));
+                    BigDecimal total = BigDecimal.ZERO;
+
+                    int lineas = Math.min(suyos.size(), 3 + random.nextInt(6));
+                    for (int l = 0; l < lineas; l++) {
+                        int producto = suyos.get(random.nextInt(suyos.size()));
+                        int cantidad = 10 * (1 + random.nextInt(10));
+                        BigDecimal precioCompra = precios[producto].multiply(new BigDecimal("0.65"))
+                                .setScale(2, RoundingMode.HALF_UP);
+                        total = total.add(precioCompra.multiply(BigDecimal.valueOf(cantidad)));
+
+                        detallesOrden.setLong(1, ++detalleOrdenId);
+                        detallesOrden.setLong(2, ordenId);
+                        detallesOrden.setString(3, codigos[producto]);
+                        detallesOrden.setInt(4, cantidad);
+                        detallesOrden.setInt(5, cantidad);
+                        detallesOrden.setBigDecimal(6, precioCompra);
+                        detallesOrden.addBatch();
+
+                        agregarMovimiento(movimientos, ++movimientoId, codigos[producto], "ENTRADA", cantidad,
+                                recepcion, "Recepción de orden de compra", "OC-" + ordenId);
+                    }
+
+                    ordenes.setLong(1, ordenId);
+                    ordenes.setLong(2, p + 1);
+                    ordenes.setTimestamp(3, Timestamp.valueOf(fechaOrden));
+                    ordenes.setDate(4, Date.valueOf(dia.plusDays(7)));
+                    ordenes.setBigDecimal(5, total);
+                    ordenes.setTimestamp(6, Timestamp.valueOf(recepcion));
+                    ordenes.addBatch();
+                    pendientes += lineas;
+                }
+
+                if (pendientes >= LOTE || dia.getDayOfMonth() == 1) {
+                    // Padres antes que hijos por las claves foráneas
+                    ventas.executeBatch();
+                    ordenes.executeBatch();
+                    detalles.executeBatch();
+                    detallesOrden.executeBatch();
+                    movimientos.executeBatch();
+                    conexion.commit();
+                    pendientes = 0;
+                }
+            }
+
+            ventas.executeBatch();
+            ordenes.executeBatch();
+            detalles.executeBatch();
+            detallesOrden.executeBatch();
+            movimientos.executeBatch();
+            conexion.commit();
+
+            System.out.printf("Historial sembrado: %d ventas, %d detalles, %d movimientos, %d órdenes de compra%n",
+                    ventaId, detalleId, movimientoId, ordenId);
+        }
+    }
+
+    private static void agregarMovimiento(PreparedStatement ps, long id, String codigo, String tipo, int cantidad,
+                                          LocalDateTime fechaHora, String motivo, String referencia)
+            throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, codigo);
+        ps.setString(3, tipo);
+        ps.setInt(4, cantidad);
+        ps.setTimestamp(5, Timestamp.valueOf(fechaHora));
+        ps.setString(6, motivo);
+        ps.setString(7, referencia);
+        ps.addBatch();
+    }
+
+    /**
+     * Índice de producto con sesgo hacia los primeros: aproximadamente el 20% de los
+     * SKU acumula el 65% de las ventas.
+     */
+    private int productoPopular() {
+        return (int) (config.skus * Math.pow(random.nextDouble(), 2.5));
+    }
+
+    /** Código EAN-13 con prefijo 779 y dígito verificador válido */
+    private static String ean13(int secuencia) {
+        String base = String.format("779%09d", secuencia);
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            int digito = base.charAt(i) - '0';
+            suma += (i % 2 == 0) ? digito : digito * 3;
+        }
+        return base + (10 - suma % 10) % 10;
+    }
+}
@@ -0,0 +1,161 @@
+package com.inventario.carga;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Genera tráfico en lazo abierto: las peticiones se programan a la tasa objetivo
+ * independientemente de lo que tarde el servidor, y la latencia se mide desde el
+ * instante programado. Así una pausa del servidor se refleja en los percentiles
+ * en lugar de frenar al generador (omisión coordinada).
+ */
+final class GeneradorTrafico {
+
+    private static final Duration TIMEOUT_PETICION = Duration.ofSeconds(30);
+
+    private final ConfiguracionCarga config;
+    private final String base;
+    private final String[] codigos;
+    private final Random random;
+    private final Map<String, Supplier<HttpRequest>> operaciones = new LinkedHashMap<>();
+    private final String[] nombres;
+    private final int[] pesosAcumulados;
+
+    GeneradorTrafico(ConfiguracionCarga config, String base, String[] codigos) {
+        this.config = config;
+        this.base = base;
+        this.codigos = codigos;
+        this.random = new Random(config.semilla);
+
+        operaciones.put("escaneo", () -> get("/api/productos/" + codigoPopular()));
+        operaciones.put("venta", this::crearVenta);
+        operaciones.put("busqueda", () -> get("/api/productos/buscar?texto=" + URLEncoder.encode(terminoBusqueda(), StandardCharsets.UTF_8)));
+        operaciones.put("listado", () -> get("/api/productos?page=" + random.nextInt(Math.max(1, Math.min(50, codigos.length / 20))) + "&size=20"));
+        operaciones.put("estadisticas", () -> get("/api/ventas/estadisticas"));
+        operaciones.put("dashboard", () -> get("/api/reportes/dashboard"));
+        operaciones.put("reporte-ventas", () -> get("/api/reportes/ventas?fechaInicio=" + LocalDate.now().minusDays(30) + "&fechaFin=" + LocalDate.now()));
+        operaciones.put("reporte-inventario", () -> get("/api/reportes/inventario"));
+
+        nombres = config.mezcla.keySet().toArray(new String[0]);
+        pesosAcumulados = new int[nombres.length];
+        int acumulado = 0;
+        for (int i = 0; i < nombres.length; i++) {
+            if (!operaciones.containsKey(nombres[i])) {
+                throw new IllegalArgumentException("Operación desconocida en la mezcla: " + nombres[i]
+                        + " (disponibles: " + operaciones.keySet() + ")");
+            }
+            acumulado += config.mezcla.get(nombres[i]);
+            pesosAcumulados[i] = acumulado;
+        }
+    }
+
+    InformeCarga ejecutar() throws InterruptedException {
+        InformeCarga informe = new InformeCarga();
+        ExecutorService hilos = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(hilos)
+                .build();
+        Semaphore enVuelo = new Semaphore(config.maxEnVuelo);
+
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / config.tasa;
+        long inicio = System.nanoTime();
+        long finCalentamiento = inicio + config.calentamiento.toNanos();
+        long fin = finCalentamiento + config.duracion.toNanos();
+
+        System.out.printf("Calentando %ds y midiendo %ds a %d peticiones/s...%n",
+                config.calentamiento.toSeconds(), config.duracion.toSeconds(), config.tasa);
+
+        for (long k = 0; ; k++) {
+            long programado = inicio + k * intervalo;
+            if (programado >= fin) {
+                break;
+            }
+            long espera = programado - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+
+            String operacion = elegirOperacion();
+            boolean medir = programado >= finCalentamiento;
+            if (!enVuelo.tryAcquire()) {
+                if (medir) {
+                    informe.descartar(operacion);
+                }
+                continue;
+            }
+
+            cliente.sendAsync(operaciones.get(operacion).get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((respuesta, error) -> {
+                        enVuelo.release();
+                        if (medir) {
+                            informe.registrar(operacion, System.nanoTime() - programado,
+                                    error == null && respuesta.statusCode() < 400);
+                        }
+                    });
+        }
+
+        // Esperar a las peticiones que siguen en vuelo
+        enVuelo.tryAcquire(config.maxEnVuelo, TIMEOUT_PETICION.toSeconds(), TimeUnit.SECONDS);
+        hilos.shutdownNow();
+        return informe;
+    }
+
+    private String elegirOperacion() {
+        int valor = random.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (valor < pesosAcumulados[i]) {
+                return nombres[i];
+            }
+        }
+        return nombres[nombres.length - 1];
+    }
+
+    private HttpRequest crearVenta() {
+        StringBuilder json = new StringBuilder("{\"observaciones\":\"prueba de carga\",\"detalles\":[");
+        int lineas = 1 + random.nextInt(3);
+        for (int i = 0; i < lineas; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"productoCodigoBarras\":\"").append(codigoPopular()).append("\",\"cantidad\":1}");
+        }
+        json.append("]}");
+        return HttpRequest.newBuilder(URI.create(base + "/api/ventas"))
+                .timeout(TIMEOUT_PETICION)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(TIMEOUT_PETICION).GET().build();
+    }
+
+    /** Sesgo más suave que el del historial para no agotar el stock de los más vendidos durante la prueba */
+    private String codigoPopular() {
+        return codigos[(int) (codigos.length * Math.pow(random.nextDouble(), 1.5))];
+    }
+
+    private String terminoBusqueda() {
+        return random.nextBoolean()
+                ? GeneradorDatosTienda.MARCAS[random.nextInt(GeneradorDatosTienda.MARCAS.length)]
+                : GeneradorDatosTienda.PIEZAS[random.nextInt(GeneradorDatosTienda.PIEZAS.length)];
+    }
+}
@@ -0,0 +1,106 @@
+package com.inventario.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula latencias por operación (en microsegundos, desde el instante programado
+ * de cada petición) y genera el resumen de throughput y percentiles.
+ */
+final class InformeCarga {
+
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Resultado> resultados = new ConcurrentSkipListMap<>();
+
+    void registrar(String operacion, long latenciaNanos, boolean correcta) {
+        Resultado resultado = resultado(operacion);
+        if (correcta) {
+            long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latenciaNanos), LATENCIA_MAXIMA_US);
+            resultado.latencias.recordValue(Math.max(micros, 1));
+        } else {
+            resultado.errores.increment();
+        }
+    }
+
+    /** Peticiones que no se enviaron porque se alcanzó el máximo en vuelo */
+    void descartar(String operacion) {
+        resultado(operacion).descartadas.increment();
+    }
+
+    void imprimir(Duration medicion, Path archivo) throws IOException {
+        double segundos = medicion.toMillis() / 1000.0;
+        String cabecera = String.format("%-20s %9s %8s %9s %10s %9s %9s %9s %9s %9s",
+                "operacion", "ok", "errores", "descart.", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        System.out.println();
+        System.out.println(cabecera);
+        System.out.println("-".repeat(cabecera.length()));
+
+        Histogram total = new Histogram(LATENCIA_MAXIMA_US, 3);
+        long errores = 0;
+        long descartadas = 0;
+        StringBuilder csv = new StringBuilder("operacion,ok,errores,descartadas,req_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        for (Map.Entry<String, Resultado> entrada : resultados.entrySet()) {
+            Resultado r = entrada.getValue();
+            Histogram h = r.latencias.copy();
+            total.add(h);
+            errores += r.errores.sum();
+            descartadas += r.descartadas.sum();
+            System.out.println(fila(entrada.getKey(), h, r.errores.sum(), r.descartadas.sum(), segundos, "%-20s %9d %8d %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f"));
+            csv.append(fila(entrada.getKey(), h, r.errores.sum(), r.descartadas.sum(), segundos, "%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f")).append('\n');
+        }
+        System.out.println("-".repeat(cabecera.length()));
+        System.out.println(fila("TOTAL", total, errores, descartadas, segundos, "%-20s %9d %8d %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f"));
+        csv.append(fila("TOTAL", total, errores, descartadas, segundos, "%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f")).append('\n');
+
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8))) {
+            out.print(csv);
+        }
+        System.out.println("\nResultados guardados en " + archivo.toAbsolutePath());
+    }
+
+    private static String fila(String operacion, Histogram h, long errores, long descartadas, double segundos,
+                               String formato) {
+        Object[] valores = new Object[6 + PERCENTILES.length];
+        valores[0] = operacion;
+        valores[1] = h.getTotalCount();
+        valores[2] = errores;
+        valores[3] = descartadas;
+        valores[4] = h.getTotalCount() / segundos;
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            valores[5 + i] = milis(h.getValueAtPercentile(PERCENTILES[i]));
+        }
+        valores[5 + PERCENTILES.length] = milis(h.getMaxValue());
+        return String.format(Locale.ROOT, formato, valores);
+    }
+
+    private static double milis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private Resultado resultado(String operacion) {
+        return resultados.computeIfAbsent(operacion, k -> new Resultado());
+    }
+
+    private static final class Resultado {
+        final Histogram latencias = new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+        final LongAdder errores = new LongAdder();
+        final LongAdder descartadas = new LongAdder();
+    }
+}
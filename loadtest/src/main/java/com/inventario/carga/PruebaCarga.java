@@ -0,0 +1,107 @@
+package com.inventario.carga;
+
+import com.inventario.InventarioMotosApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prueba de carga de extremo a extremo: levanta PostgreSQL, siembra la tienda
+ * sintética, arranca el backend en un puerto libre y lanza la mezcla de operaciones
+ * a la tasa indicada. Al terminar imprime throughput y percentiles por endpoint.
+ *
+ * Uso:
+ *   cd ../backend && mvn install -DskipTests
+ *   cd ../loadtest && mvn compile exec:java -Dcarga.tasa=300 -Dcarga.duracion=120
+ *
+ * Con -Dcarga.jdbc-url=... se usa un PostgreSQL local en vez del embebido
+ * (-Dcarga.sembrar=false para reutilizar datos ya sembrados). Con -Dcarga.replica=true se
+ * levanta una segunda instancia embebida con los mismos datos y se activa el enrutado
+ * de las lecturas a la réplica.
+ *
+ * Para comparar hilos de plataforma y virtuales se ejecuta con un JDK 21 la misma prueba con
+ * -Dcarga.perfiles=prod y con -Dcarga.perfiles=prod,virtual; en Java 17 el perfil virtual no
+ * cambia nada. Al arrancar se indica qué hilos atienden las peticiones.
+ */
+public final class PruebaCarga {
+
+    private PruebaCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga config = new ConfiguracionCarga();
+        System.out.println("Configuración: " + config);
+
+        try (BaseDatosCarga baseDatos = BaseDatosCarga.iniciar(config)) {
+            if (config.sembrar) {
+                sembrar(config, baseDatos);
+            }
+            String[] codigos = leerCodigos(baseDatos);
+
+            List<String> argumentos = new ArrayList<>(List.of(
+                    "--spring.profiles.active=" + config.perfiles,
+                    "--spring.datasource.url=" + baseDatos.getJdbcUrl(),
+                    "--spring.datasource.username=" + baseDatos.getUsuario(),
+                    "--spring.datasource.password=" + baseDatos.getClave(),
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.com.inventario=INFO",
+                    "--logging.level.org.hibernate.SQL=WARN",
+                    "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+
+            BaseDatosCarga replica = null;
+            if (config.replica) {
+                replica = BaseDatosCarga.iniciarEmbebido();
+                sembrar(config, replica);
+                argumentos.addAll(List.of(
+                        "--app.datasource.replica.habilitada=true",
+                        "--app.datasource.replica.url=" + replica.getJdbcUrl(),
+                        "--app.datasource.replica.username=" + replica.getUsuario(),
+                        "--app.datasource.replica.password=" + replica.getClave()));
+            }
+
+            try (BaseDatosCarga baseReplica = replica;
+                 ConfigurableApplicationContext aplicacion = new SpringApplicationBuilder(InventarioMotosApplication.class)
+                         .run(argumentos.toArray(new String[0]))) {
+
+                String base = "http://localhost:" + aplicacion.getEnvironment().getProperty("local.server.port");
+                System.out.printf("Java %s, peticiones en hilos %s%n", Runtime.version().feature(),
+                        Threading.VIRTUAL.isActive(aplicacion.getEnvironment()) ? "virtuales" : "de plataforma");
+                InformeCarga informe = new GeneradorTrafico(config, base, codigos).ejecutar();
+                informe.imprimir(config.duracion, config.resultado);
+            }
+        }
+    }
+
+    private static void sembrar(ConfiguracionCarga config, BaseDatosCarga baseDatos) throws Exception {
+        long inicio = System.currentTimeMillis();
+        baseDatos.crearEsquema(config);
+        try (Connection conexion = baseDatos.conectar()) {
+            new GeneradorDatosTienda(config).sembrar(conexion);
+        }
+        System.out.printf("Datos sembrados en %d s%n", (System.currentTimeMillis() - inicio) / 1000);
+    }
+
+    private static String[] leerCodigos(BaseDatosCarga baseDatos) throws SQLException {
+        List<String> codigos = new ArrayList<>();
+        try (Connection conexion = baseDatos.conectar();
+             Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT codigo_barras FROM productos WHERE activo ORDER BY codigo_barras")) {
+            while (rs.next()) {
+                codigos.add(rs.getString(1));
+            }
+        }
+        if (codigos.isEmpty()) {
+            throw new IllegalStateException("No hay productos activos en la base de datos");
+        }
+        return codigos.toArray(new String[0]);
+    }
+}